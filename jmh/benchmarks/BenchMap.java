@@ -0,0 +1,169 @@
+package benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import bstmap.BSTMap;
+import hashmap.CuckooHashMap;
+import hashmap.MyHashMap;
+import hashmap.MyHashMapALBuckets;
+import hashmap.MyHashMapAdaptiveBuckets;
+import hashmap.MyHashMapHSBuckets;
+import hashmap.MyHashMapLLBuckets;
+import hashmap.MyHashMapPQBuckets;
+import hashmap.MyHashMapTSBuckets;
+import hashmap.OpenAddressingHashMap;
+import hashmap.SwissHashMap;
+import hashmap.ULLMap;
+
+/**
+ * The operations the benchmarks run, over the three map interfaces we have:
+ * lab8's hashmap.Map61B, lab7's bstmap.Map61B and java.util.Map.
+ */
+public interface BenchMap {
+
+    Integer get(String key);
+
+    void put(String key, Integer value);
+
+    Integer remove(String key);
+
+    /** Iterates over every key and returns the sum of their lengths. */
+    int iterate();
+
+    /** Returns a new, empty map of the implementation named impl. */
+    static BenchMap create(String impl) {
+        switch (impl) {
+            case "MyHashMap":
+                return new HashMap61B(new MyHashMap<>());
+            case "MyHashMapALBuckets":
+                return new HashMap61B(new MyHashMapALBuckets<>());
+            case "MyHashMapLLBuckets":
+                return new HashMap61B(new MyHashMapLLBuckets<>());
+            case "MyHashMapTSBuckets":
+                return new HashMap61B(new MyHashMapTSBuckets<>());
+            case "MyHashMapHSBuckets":
+                return new HashMap61B(new MyHashMapHSBuckets<>());
+            case "MyHashMapPQBuckets":
+                return new HashMap61B(new MyHashMapPQBuckets<>());
+            case "MyHashMapAdaptiveBuckets":
+                return new HashMap61B(new MyHashMapAdaptiveBuckets<>());
+            case "OpenAddressingHashMap":
+                return new HashMap61B(new OpenAddressingHashMap<>());
+            case "CuckooHashMap":
+                return new HashMap61B(new CuckooHashMap<>());
+            case "SwissHashMap":
+                return new HashMap61B(new SwissHashMap<>());
+            case "ULLMap":
+                return new HashMap61B(new ULLMap<>());
+            case "BSTMap":
+                return new BSTMap61B(new BSTMap<>());
+            case "HashMap":
+                return new JavaMap(new HashMap<>());
+            case "TreeMap":
+                return new JavaMap(new TreeMap<>());
+            default:
+                throw new IllegalArgumentException("unknown map implementation " + impl);
+        }
+    }
+
+    /** Adapts lab8's Map61B. */
+    class HashMap61B implements BenchMap {
+        private final hashmap.Map61B<String, Integer> map;
+
+        HashMap61B(hashmap.Map61B<String, Integer> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Integer get(String key) {
+            return this.map.get(key);
+        }
+
+        @Override
+        public void put(String key, Integer value) {
+            this.map.put(key, value);
+        }
+
+        @Override
+        public Integer remove(String key) {
+            return this.map.remove(key);
+        }
+
+        @Override
+        public int iterate() {
+            int sum = 0;
+            for (String key : this.map) {
+                sum += key.length();
+            }
+            return sum;
+        }
+    }
+
+    /** Adapts lab7's Map61B. */
+    class BSTMap61B implements BenchMap {
+        private final bstmap.Map61B<String, Integer> map;
+
+        BSTMap61B(bstmap.Map61B<String, Integer> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Integer get(String key) {
+            return this.map.get(key);
+        }
+
+        @Override
+        public void put(String key, Integer value) {
+            this.map.put(key, value);
+        }
+
+        @Override
+        public Integer remove(String key) {
+            return this.map.remove(key);
+        }
+
+        @Override
+        public int iterate() {
+            int sum = 0;
+            for (String key : this.map) {
+                sum += key.length();
+            }
+            return sum;
+        }
+    }
+
+    /** Adapts the java.util baselines. */
+    class JavaMap implements BenchMap {
+        private final Map<String, Integer> map;
+
+        JavaMap(Map<String, Integer> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Integer get(String key) {
+            return this.map.get(key);
+        }
+
+        @Override
+        public void put(String key, Integer value) {
+            this.map.put(key, value);
+        }
+
+        @Override
+        public Integer remove(String key) {
+            return this.map.remove(key);
+        }
+
+        @Override
+        public int iterate() {
+            int sum = 0;
+            for (String key : this.map.keySet()) {
+                sum += key.length();
+            }
+            return sum;
+        }
+    }
+}
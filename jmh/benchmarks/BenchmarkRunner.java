@@ -0,0 +1,45 @@
+package benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the map benchmarks and writes the results as JSON, so two runs can
+ * be diffed or loaded into a JMH visualizer.
+ * <p>
+ * Usage: java -jar target/benchmarks.jar [JMH options]
+ * <p>
+ * Without -rf/-rff the results go to jmh-result.json. Any other JMH option
+ * works as usual, for example
+ * <pre>
+ *   java -jar target/benchmarks.jar MapBenchmark.get -p impl=MyHashMap,HashMap -p n=100000
+ * </pre>
+ * runs only get() on two maps with 100000 keys.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(MapBenchmark.class.getSimpleName());
+            builder.include(RemoveBenchmark.class.getSimpleName());
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            builder.result("jmh-result.json");
+        }
+
+        Options options = builder.build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,77 @@
+package benchmarks;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates the distinct String keys the benchmarks insert and look up.
+ * The same arguments always give the same keys.
+ */
+public final class Keys {
+    private static final long SEED = 61;
+
+    private Keys() {
+    }
+
+    /**
+     * Returns n distinct keys of about length characters, following distribution:
+     * <ul>
+     * <li>uniform: random lowercase letters, in random order
+     * <li>sequential: the zero-padded numbers 0, 1, 2, ... in order,
+     *     longer than length if length digits are not enough
+     * <li>colliding: "Aa"/"BB" blocks that all share one hash code, made
+     *     longer than length if length / 2 blocks cannot tell n keys apart
+     * </ul>
+     */
+    public static String[] generate(String distribution, int n, int length) {
+        switch (distribution) {
+            case "uniform":
+                return uniform(n, length);
+            case "sequential":
+                return sequential(n, length);
+            case "colliding":
+                return colliding(n, length);
+            default:
+                throw new IllegalArgumentException("unknown key distribution " + distribution);
+        }
+    }
+
+    private static String[] uniform(int n, int length) {
+        Random random = new Random(SEED);
+        Set<String> keys = new LinkedHashSet<>();
+        char[] chars = new char[length];
+        while (keys.size() < n) {
+            for (int i = 0; i < length; i++) {
+                chars[i] = (char) ('a' + random.nextInt(26));
+            }
+            keys.add(new String(chars));
+        }
+        return keys.toArray(new String[0]);
+    }
+
+    private static String[] sequential(int n, int length) {
+        String[] keys = new String[n];
+        String format = "%0" + length + "d";
+        for (int i = 0; i < n; i++) {
+            keys[i] = String.format(format, i);
+        }
+        return keys;
+    }
+
+    private static String[] colliding(int n, int length) {
+        int bitsNeeded = 32 - Integer.numberOfLeadingZeros(Math.max(n - 1, 1));
+        int blocks = Math.max(length / 2, bitsNeeded);
+        String[] keys = new String[n];
+        StringBuilder sb = new StringBuilder(blocks * 2);
+        for (int i = 0; i < n; i++) {
+            sb.setLength(0);
+            for (int b = 0; b < blocks; b++) {
+                // "Aa" and "BB" have the same hashCode, so every key does too
+                sb.append(((i >>> b) & 1) == 0 ? "Aa" : "BB");
+            }
+            keys[i] = sb.toString();
+        }
+        return keys;
+    }
+}
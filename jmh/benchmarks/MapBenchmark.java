@@ -0,0 +1,74 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * get, put and iteration over the map implementations. The defaults only
+ * run a few of them; see MapBenchmarkState for widening the rest of the
+ * matrix.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MapBenchmark extends MapBenchmarkState {
+
+    /**
+     * The map to run, any name BenchMap.create() takes: MyHashMap,
+     * MyHashMapALBuckets, MyHashMapLLBuckets, MyHashMapTSBuckets,
+     * MyHashMapHSBuckets, MyHashMapPQBuckets, MyHashMapAdaptiveBuckets,
+     * OpenAddressingHashMap, CuckooHashMap, SwissHashMap, ULLMap, BSTMap,
+     * HashMap or TreeMap.
+     */
+    @Param({"MyHashMap", "MyHashMapAdaptiveBuckets", "OpenAddressingHashMap", "SwissHashMap",
+        "HashMap"})
+    public String impl;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.fill(this.impl);
+    }
+
+    /** One lookup of a key that is in the map. */
+    @Benchmark
+    public Integer get() {
+        return this.map.get(this.keys[this.nextIndex()]);
+    }
+
+    /** One lookup of a key that is not in the map. */
+    @Benchmark
+    public Integer getMissing() {
+        return this.map.get(this.missing[this.nextIndex()]);
+    }
+
+    /** Builds a new map of all n keys, resizes included. */
+    @Benchmark
+    public BenchMap put() {
+        BenchMap fresh = BenchMap.create(this.impl);
+        for (int i = 0; i < this.n; i++) {
+            fresh.put(this.keys[i], i);
+        }
+        return fresh;
+    }
+
+    /** Iterates over all n keys. */
+    @Benchmark
+    public int iterate() {
+        return this.map.iterate();
+    }
+}
@@ -0,0 +1,65 @@
+package benchmarks;
+
+import java.util.Arrays;
+
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * The parameters and data shared by MapBenchmark and RemoveBenchmark.
+ * Subclasses add the impl parameter and call fill() from their setup.
+ * <p>
+ * The defaults are a small matrix, 1000 uniform or sequential keys of
+ * length 16 over a few maps, that runs in minutes. Widen it with -p, for
+ * example
+ * <pre>
+ *   -p n=1000,100000 -p keyLength=8,32 -p distribution=uniform,sequential,colliding
+ * </pre>
+ * Every chained map fills in quadratic time with colliding keys, as ULLMap
+ * does with any keys, so keep n small for those.
+ */
+public abstract class MapBenchmarkState {
+
+    /** Number of keys in the map. */
+    @Param({"1000"})
+    public int n;
+
+    /** Length of each key, see Keys.generate(). */
+    @Param({"16"})
+    public int keyLength;
+
+    /**
+     * How keys are generated: uniform, sequential or colliding, see
+     * Keys.generate().
+     */
+    @Param({"uniform", "sequential"})
+    public String distribution;
+
+    /** The keys in map. */
+    protected String[] keys;
+
+    /** Keys of the same distribution that are not in map. */
+    protected String[] missing;
+
+    protected BenchMap map;
+
+    private int next;
+
+    /** Creates map as impl and puts every key in it. */
+    protected void fill(String impl) {
+        String[] all = Keys.generate(this.distribution, 2 * this.n, this.keyLength);
+        this.keys = Arrays.copyOfRange(all, 0, this.n);
+        this.missing = Arrays.copyOfRange(all, this.n, 2 * this.n);
+        this.map = BenchMap.create(impl);
+        for (int i = 0; i < this.n; i++) {
+            this.map.put(this.keys[i], i);
+        }
+        this.next = 0;
+    }
+
+    /** Returns the next index to use, cycling through [0, n). */
+    protected int nextIndex() {
+        int i = this.next;
+        this.next = i + 1 == this.n ? 0 : i + 1;
+        return i;
+    }
+}
@@ -0,0 +1,52 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * remove() over the maps that support it, which is all of them but ULLMap.
+ * The defaults only run a few of them; see MapBenchmarkState for widening
+ * the rest of the matrix.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RemoveBenchmark extends MapBenchmarkState {
+
+    /** The map to run, any name MapBenchmark.impl lists except ULLMap. */
+    @Param({"MyHashMap", "MyHashMapAdaptiveBuckets", "OpenAddressingHashMap", "SwissHashMap",
+        "HashMap"})
+    public String impl;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.fill(this.impl);
+    }
+
+    /**
+     * Removes one key and puts it back, so the map stays at n keys for
+     * the whole run.
+     */
+    @Benchmark
+    public Integer removeAndPut() {
+        int i = this.nextIndex();
+        Integer value = this.map.remove(this.keys[i]);
+        this.map.put(this.keys[i], i);
+        return value;
+    }
+}
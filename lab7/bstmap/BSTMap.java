@@ -1,6 +1,11 @@
 package bstmap;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
 
@@ -18,8 +23,21 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
         }
     }
 
+    // where a search for a key ended: the key's node, or null if it is absent,
+    // and the parent it hangs from on the side given by cmp
+    private class Search {
+        private BSTNode parent;
+        private BSTNode node;
+        private int cmp;
+    }
+
+    // snapshot format, see writeTo()
+    private static final long SNAPSHOT_MAGIC = 0x3631424253544D53L;
+    private static final int SNAPSHOT_VERSION = 1;
+
     private BSTNode root;
     private int size;
+    private Set<K> keySetView;
 
     public BSTMap() {
         this.root = null;
@@ -91,34 +109,119 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
         return this.size;
     }
 
-    private BSTNode putNode(BSTNode node, K key, V value) {
-        if (node == null) {
-            return new BSTNode(key, value);
+    // walks down from the root once, to key's node or the spot it would go
+    private Search search(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
         }
 
-        int cmp = key.compareTo(node.key);
-        if (cmp < 0) {
-            node.left = putNode(node.left, key, value);
-        } else if (cmp > 0) {
-            node.right = putNode(node.right, key, value);
+        Search s = new Search();
+        s.node = this.root;
+        while (s.node != null) {
+            int cmp = key.compareTo(s.node.key);
+            if (cmp == 0) {
+                break;
+            }
+            s.parent = s.node;
+            s.cmp = cmp;
+            s.node = cmp < 0 ? s.node.left : s.node.right;
+        }
+
+        return s;
+    }
+
+    // hangs child where the search ended, in place of s.node
+    private void link(Search s, BSTNode child) {
+        if (s.parent == null) {
+            this.root = child;
+        } else if (s.cmp < 0) {
+            s.parent.left = child;
         } else {
-            // the key have already exists, just update it
-            node.val = value;
+            s.parent.right = child;
         }
+    }
 
-        return node;
+    // maps the key searched for by s to value, or removes it if value is null
+    private void setOrRemove(Search s, K key, V value) {
+        if (s.node == null) {
+            if (value != null) {
+                this.link(s, new BSTNode(key, value));
+                this.size++;
+            }
+        } else if (value != null) {
+            s.node.val = value;
+        } else {
+            this.link(s, this.deleteNode(s.node));
+            this.size--;
+        }
     }
 
     /* Associates the specified value with the specified key in this map. */
     public void put(K key, V value) {
-        if (key == null) {
-            throw new IllegalArgumentException();
+        Search s = this.search(key);
+        if (s.node != null) {
+            // the key have already exists, just update it
+            s.node.val = value;
+            return;
         }
 
-        this.root = this.putNode(this.root, key, value);
+        this.link(s, new BSTNode(key, value));
         this.size++;
     }
 
+    /* The upserts below walk the tree once with search() and then update,
+     * add or remove the node where it ended. */
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Search s = this.search(key);
+        if (s.node == null) {
+            this.link(s, new BSTNode(key, value));
+            this.size++;
+        } else if (s.node.val == null) {
+            // like put(), a null value is stored rather than removing the key
+            s.node.val = value;
+        } else {
+            return s.node.val;
+        }
+        return null;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Search s = this.search(key);
+        if (s.node != null && s.node.val != null) {
+            return s.node.val;
+        }
+
+        V value = mappingFunction.apply(key);
+        if (value != null) {
+            this.setOrRemove(s, key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        Search s = this.search(key);
+        V value = remappingFunction.apply(key, s.node == null ? null : s.node.val);
+        this.setOrRemove(s, key, value);
+        return value;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        Search s = this.search(key);
+        V newValue = s.node == null || s.node.val == null
+                ? value : remappingFunction.apply(s.node.val, value);
+        this.setOrRemove(s, key, newValue);
+        return newValue;
+    }
+
     private void printInOrderHelper(BSTNode root) {
         if (root == null) {
             return;
@@ -153,34 +256,15 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
             throw new IllegalArgumentException();
         }
 
-        V ret = this.get(key);
-        if (ret == null) {
+        // a key mapped to null is still a node to unlink
+        Search s = this.search(key);
+        if (s.node == null) {
             return null;
         }
 
+        this.link(s, this.deleteNode(s.node));
         this.size -= 1;
-        this.root = this.removeKeyNode(this.root, key);
-        return ret;
-    }
-
-    private BSTNode removeKeyNode(BSTNode curr, K key) {
-        if (curr == null) {
-            return null;
-        }
-
-        int cmp = key.compareTo(curr.key);
-        if (cmp == 0) {
-            // remove this node
-            return deleteNode(curr);
-        } else if (cmp < 0) {
-            // key < curr.key
-            curr.left = removeKeyNode(curr.left, key);
-        } else {
-            // key > curr.key
-            curr.right = removeKeyNode(curr.right, key);
-        }
-
-        return curr;
+        return s.node.val;
     }
 
     private BSTNode deleteNode(BSTNode node) {
@@ -219,6 +303,7 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
 
     private class BSTIterator implements Iterator<K> {
         private final Stack<BSTNode> stack;
+        private BSTNode last;
 
         public BSTIterator(BSTNode root) {
             this.stack = new Stack<>();
@@ -236,10 +321,29 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
             return !this.stack.isEmpty();
         }
 
-        public K next() {
+        private BSTNode nextNode() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
             BSTNode node = this.stack.pop();
             pushAllLeft(node.right);
-            return node.key;
+            this.last = node;
+            return node;
+        }
+
+        public K next() {
+            return this.nextNode().key;
+        }
+
+        // deleting the last node only relinks nodes that were already visited,
+        // so the nodes still on the stack stay in the tree
+        @Override
+        public void remove() {
+            if (this.last == null) {
+                throw new IllegalStateException();
+            }
+            BSTMap.this.remove(this.last.key);
+            this.last = null;
         }
     }
 
@@ -248,15 +352,153 @@ public class BSTMap<K extends Comparable<K>, V> implements Map61B<K, V> {
         return new BSTIterator(this.root);
     }
 
+    /* Calls action on every key and value in order, in a single walk of the tree. */
     @Override
-    public Set<K> keySet() {
-        HashSet<K> keys = new HashSet<>();
-        Iterator<K> iter = new BSTIterator(this.root);
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        BSTIterator iter = new BSTIterator(this.root);
+        while (iter.hasNext()) {
+            BSTNode node = iter.nextNode();
+            action.accept(node.key, node.val);
+        }
+    }
 
+    /* Writes every entry to channel, from its position on, in key order:
+     *   header   long magic, int version, int size
+     *   entries  per entry [int length][key] [int length][value]
+     * A null value is written as a length of -1. The channel is left right
+     * after the snapshot. */
+    public void writeTo(FileChannel channel, Codec<K> keyCodec, Codec<V> valueCodec)
+            throws IOException {
+        if (channel == null || keyCodec == null || valueCodec == null) {
+            throw new IllegalArgumentException();
+        }
+
+        SnapshotOutput out = new SnapshotOutput(channel);
+        out.writeLong(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(this.size);
+        BSTIterator iter = new BSTIterator(this.root);
         while (iter.hasNext()) {
-            keys.add(iter.next());
+            BSTNode node = iter.nextNode();
+            out.write(keyCodec, node.key);
+            out.write(valueCodec, node.val);
+        }
+        out.flush();
+    }
+
+    /* Replaces the contents of this map with a snapshot that writeTo() wrote
+     * to channel, read from its position on. The keys come back sorted, so
+     * the tree is built perfectly balanced straight from them, in O(n) and
+     * without a search per key; the keys are only compared once each, to
+     * check that they really are in order. The channel is left right after
+     * the snapshot. Throws IOException if the channel fails or does not hold
+     * a snapshot. */
+    public void readFrom(FileChannel channel, Codec<K> keyCodec, Codec<V> valueCodec)
+            throws IOException {
+        if (channel == null || keyCodec == null || valueCodec == null) {
+            throw new IllegalArgumentException();
+        }
+
+        SnapshotInput in = new SnapshotInput(channel);
+        if (in.readLong() != SNAPSHOT_MAGIC) {
+            throw new IOException("not a BSTMap snapshot");
+        }
+        int version = in.readInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IOException("unknown snapshot version " + version);
+        }
+        int n = in.readInt();
+        if (n < 0) {
+            throw new IOException("corrupt snapshot header");
+        }
+
+        // the nodes are made in order, then linked into a tree
+        List<BSTNode> nodes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            K key = in.read(keyCodec);
+            V val = in.read(valueCodec);
+            if (key == null || (i > 0 && nodes.get(i - 1).key.compareTo(key) >= 0)) {
+                throw new IOException("corrupt snapshot: keys out of order at entry " + i);
+            }
+            nodes.add(new BSTNode(key, val));
+        }
+        in.finish();
+
+        this.root = this.buildBalanced(nodes, 0, n);
+        this.size = n;
+    }
+
+    // links nodes[lo, hi), which are in key order, into a balanced tree
+    private BSTNode buildBalanced(List<BSTNode> nodes, int lo, int hi) {
+        if (lo >= hi) {
+            return null;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        BSTNode node = nodes.get(mid);
+        node.left = this.buildBalanced(nodes, lo, mid);
+        node.right = this.buildBalanced(nodes, mid + 1, hi);
+        return node;
+    }
+
+    // returns the number of nodes on the longest path from the root
+    int height() {
+        return this.heightHelper(this.root);
+    }
+
+    private int heightHelper(BSTNode node) {
+        if (node == null) {
+            return 0;
+        }
+        return 1 + Math.max(this.heightHelper(node.left), this.heightHelper(node.right));
+    }
+
+    // a live view of the keys, backed by the tree
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public int size() {
+            return BSTMap.this.size;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return new BSTIterator(root);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            try {
+                return o != null && containsKey((K) o);
+            } catch (ClassCastException e) {
+                return false;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o) {
+            if (!this.contains(o)) {
+                return false;
+            }
+            BSTMap.this.remove((K) o);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            BSTMap.this.clear();
+        }
+    }
+
+    /* Returns a live Set view of the keys, in order. The view is created once,
+     * so calling keySet() copies nothing. */
+    @Override
+    public Set<K> keySet() {
+        if (this.keySetView == null) {
+            this.keySetView = new KeySet();
         }
 
-        return keys;
+        return this.keySetView;
     }
 }
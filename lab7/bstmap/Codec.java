@@ -0,0 +1,95 @@
+package bstmap;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Turns keys or values into bytes and back for BSTMap.writeTo() and
+ * readFrom(). The snapshot stores every encoded value behind its length,
+ * so a codec does not have to mark where its bytes end.
+ * <p>
+ * STRING, INTEGER and LONG cover the types the speed tests use.
+ * <p>
+ * A copy of lab8's hashmap.Codec, since the labs build separately; change
+ * both together. TestSnapshotIO covers the two copies alike.
+ *
+ * @param <T> the type of what is encoded
+ */
+public interface Codec<T> {
+
+    /**
+     * Writes value into out, starting at its position. Throws
+     * BufferOverflowException if out does not have room; the caller then
+     * retries with an emptier or larger buffer, so what was written before
+     * the exception does not matter.
+     */
+    void encode(T value, ByteBuffer out);
+
+    /**
+     * Reads a value back from in, whose remaining bytes are exactly what
+     * encode() wrote for it.
+     */
+    T decode(ByteBuffer in);
+
+    /** UTF-8, with a fast path for ASCII strings. */
+    Codec<String> STRING = new Codec<>() {
+        @Override
+        public void encode(String value, ByteBuffer out) {
+            int length = value.length();
+            if (out.remaining() < length) {
+                throw new BufferOverflowException();
+            }
+            int start = out.position();
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    out.position(start);
+                    out.put(value.getBytes(StandardCharsets.UTF_8));
+                    return;
+                }
+                out.put((byte) c);
+            }
+        }
+
+        @Override
+        public String decode(ByteBuffer in) {
+            int length = in.remaining();
+            String value;
+            if (in.hasArray()) {
+                value = new String(in.array(), in.arrayOffset() + in.position(), length,
+                        StandardCharsets.UTF_8);
+                in.position(in.limit());
+            } else {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return value;
+        }
+    };
+
+    Codec<Integer> INTEGER = new Codec<>() {
+        @Override
+        public void encode(Integer value, ByteBuffer out) {
+            out.putInt(value);
+        }
+
+        @Override
+        public Integer decode(ByteBuffer in) {
+            return in.getInt();
+        }
+    };
+
+    Codec<Long> LONG = new Codec<>() {
+        @Override
+        public void encode(Long value, ByteBuffer out) {
+            out.putLong(value);
+        }
+
+        @Override
+        public Long decode(ByteBuffer in) {
+            return in.getLong();
+        }
+    };
+}
@@ -1,6 +1,9 @@
 package bstmap;
 
 import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 /* Your implementation BSTMap should implement this interface. To do so,
  * append "implements Map61B<K,V>" to the end of your "public class..."
@@ -39,4 +42,78 @@ public interface Map61B<K, V> extends Iterable<K> {
      * throw an UnsupportedOperationException.*/
     V remove(K key, V value);
 
+    /* Performs action on every key and the value it maps to, in the order of
+     * iterator(). The default calls get() for every key; BSTMap overrides it
+     * to read the values in the same walk as the keys. */
+    default void forEach(BiConsumer<? super K, ? super V> action) {
+        for (K key : this) {
+            action.accept(key, this.get(key));
+        }
+    }
+
+    /* The upsert methods below follow java.util.Map: a null value means the
+     * key is absent, and a function that returns null removes the key. The
+     * defaults are built on get(), put() and remove(), so they walk the tree
+     * more than once. BSTMap overrides them to walk it only once. */
+
+    /* Returns the value to which the specified key is mapped, or
+     * defaultValue if this map contains no mapping for the key. */
+    default V getOrDefault(K key, V defaultValue) {
+        V value = this.get(key);
+        return value != null ? value : defaultValue;
+    }
+
+    /* Associates value with key only if key is absent. Returns the value
+     * key was mapped to before, or null if it was absent. */
+    default V putIfAbsent(K key, V value) {
+        V old = this.get(key);
+        if (old == null) {
+            this.put(key, value);
+        }
+        return old;
+    }
+
+    /* If key is absent, maps it to mappingFunction(key) unless that is null.
+     * Returns the value key is now mapped to, or null if it is absent. */
+    default V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = this.get(key);
+        if (value == null) {
+            value = mappingFunction.apply(key);
+            if (value != null) {
+                this.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    /* Maps key to remappingFunction(key, old value or null), or removes key
+     * if that is null. Returns the new value, or null if key is now absent. */
+    default V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        V old = this.get(key);
+        V value = remappingFunction.apply(key, old);
+        if (value != null) {
+            this.put(key, value);
+        } else if (old != null) {
+            this.remove(key);
+        }
+        return value;
+    }
+
+    /* Maps key to value if it is absent, otherwise to
+     * remappingFunction(old value, value), or removes key if that is null.
+     * Returns the new value, or null if key is now absent. */
+    default V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null) {
+            throw new IllegalArgumentException();
+        }
+        V old = this.get(key);
+        V newValue = old == null ? value : remappingFunction.apply(old, value);
+        if (newValue != null) {
+            this.put(key, newValue);
+        } else {
+            this.remove(key);
+        }
+        return newValue;
+    }
+
 }
@@ -0,0 +1,82 @@
+package bstmap;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Scanner;
+import edu.princeton.cs.algs4.Stopwatch;
+
+/** Compares restoring a BSTMap of N random strings of length L from a
+ *  writeTo() snapshot with rebuilding it by replaying N puts. The replay
+ *  puts keys that are already in memory; the restore reads and decodes its
+ *  snapshot from a temporary file. Also prints the height of both trees.
+ */
+public class SnapshotSpeedTest {
+    /**
+        Requests user input and runs the comparison. ARGS is unused.
+    */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("This program saves and restores a BSTMap of random "
+                           + "Strings of length L.");
+        System.out.print("Please enter desired length of each string: ");
+        int L = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into the map: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+            String[] keys = new String[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+            }
+            timeSnapshot(keys);
+
+            System.out.print("Would you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /** Replays a put of every key, saves the map, and restores the snapshot,
+      * printing the time of each step. */
+    public static void timeSnapshot(String[] keys) throws IOException {
+        BSTMap<String, Integer> map = new BSTMap<>();
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        double replayTime = sw.elapsedTime();
+
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            sw = new Stopwatch();
+            map.writeTo(channel, Codec.STRING, Codec.INTEGER);
+            double writeTime = sw.elapsedTime();
+            int size = map.size();
+            int height = map.height();
+            map.clear();
+
+            channel.position(0);
+            BSTMap<String, Integer> restored = new BSTMap<>();
+            sw = new Stopwatch();
+            restored.readFrom(channel, Codec.STRING, Codec.INTEGER);
+            double readTime = sw.elapsedTime();
+
+            System.out.printf("BSTMap: replaying puts %.2f sec (height %d), writeTo %.2f sec,"
+                            + " readFrom %.2f sec (height %d, %.1fx faster)\n",
+                    replayTime, height, writeTime, readTime, restored.height(),
+                    replayTime / readTime);
+            if (restored.size() != size) {
+                System.out.println("--restored " + restored.size() + " of " + size + " entries");
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
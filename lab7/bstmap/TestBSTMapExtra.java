@@ -1,7 +1,16 @@
 package bstmap;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Set;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
@@ -113,4 +122,184 @@ public class TestBSTMapExtra {
         assertEquals(null, noChild.get('Z'));
     }
 
+
+    /* Updating a key must not change the size. */
+    @Test
+    public void putExistingKeyTest() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        b.put("a", 1);
+        b.put("a", 2);
+        assertEquals(1, b.size());
+        assertEquals(Integer.valueOf(2), b.get("a"));
+    }
+
+    /* getOrDefault, putIfAbsent, computeIfAbsent, compute and merge, checked
+     * against java.util.TreeMap on a word count with removals. */
+    @Test
+    public void upsertTest() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        TreeMap<String, Integer> expected = new TreeMap<>();
+
+        assertEquals(Integer.valueOf(-1), b.getOrDefault("m", -1));
+        assertNull(b.putIfAbsent("m", 1));
+        assertEquals(Integer.valueOf(1), b.putIfAbsent("m", 2));
+        assertEquals(Integer.valueOf(1), b.computeIfAbsent("m", k -> 3));
+        assertEquals(Integer.valueOf(1), b.computeIfAbsent("n", String::length));
+        assertNull(b.computeIfAbsent("o", k -> null));
+        assertEquals(2, b.size());
+        // putIfAbsent stores null values like put() and MyHashMap do
+        assertNull(b.putIfAbsent("p", null));
+        assertTrue(b.containsKey("p"));
+        assertNull(b.putIfAbsent("p", null));
+        assertTrue(b.containsKey("p"));
+        assertNull(b.putIfAbsent("p", 4));
+        assertEquals(Integer.valueOf(4), b.get("p"));
+        assertEquals(3, b.size());
+        b.clear();
+
+        String text = "it was the best of times it was the worst of times it was the age "
+                + "of wisdom it was the age of foolishness";
+        for (String word : text.split(" ")) {
+            assertEquals(expected.merge(word, 1, Integer::sum), b.merge(word, 1, Integer::sum));
+        }
+        // drop every word seen an even number of times, bump the others
+        for (String word : text.split(" ")) {
+            assertEquals(expected.compute(word, (k, v) -> v == null || v % 2 == 0 ? null : v + 1),
+                    b.compute(word, (k, v) -> v == null || v % 2 == 0 ? null : v + 1));
+            assertEquals(expected.size(), b.size());
+        }
+        for (String word : expected.keySet()) {
+            assertEquals(expected.get(word), b.get(word));
+        }
+        assertEquals(expected.keySet(), b.keySet());
+    }
+
+    /* forEach walks in key order and hands out the values. */
+    @Test
+    public void forEachTest() {
+        BSTMap<Integer, Integer> b = new BSTMap<>();
+        int[] keys = {50, 20, 80, 10, 30, 70, 90, 60};
+        for (int k : keys) {
+            b.put(k, -k);
+        }
+        List<Integer> seen = new ArrayList<>();
+        b.forEach((k, v) -> {
+            assertEquals(-k, v.intValue());
+            seen.add(k);
+        });
+        assertEquals(List.of(10, 20, 30, 50, 60, 70, 80, 90), seen);
+    }
+
+    /* keySet is a live view: map changes show through it and removing from
+     * it, directly or through its iterator, removes from the map. */
+    @Test
+    public void liveKeySetTest() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        Set<String> keys = b.keySet();
+        assertSame(keys, b.keySet());
+        for (int i = 0; i < 100; i++) {
+            b.put("hi" + i, i);
+        }
+        assertEquals(100, keys.size());
+        assertTrue(keys.contains("hi42"));
+        assertFalse(keys.contains(42));
+
+        assertTrue(keys.remove("hi42"));
+        assertFalse(b.containsKey("hi42"));
+
+        Iterator<String> iter = keys.iterator();
+        String prev = "";
+        while (iter.hasNext()) {
+            String key = iter.next();
+            assertTrue(key.compareTo(prev) > 0);
+            prev = key;
+            if (key.endsWith("0")) {
+                iter.remove();
+            }
+        }
+        assertEquals(89, b.size());
+        assertEquals(89, keys.size());
+        assertNull(b.get("hi10"));
+        assertEquals(Integer.valueOf(11), b.get("hi11"));
+    }
+
+    /* Keys mapped to null are removed like any other, through remove(),
+     * the key set and its iterator. */
+    @Test
+    public void removeNullValueTest() {
+        BSTMap<String, Integer> b = new BSTMap<>();
+        b.put("a", 1);
+        b.putIfAbsent("b", null);
+        b.put("c", null);
+        b.put("d", 4);
+
+        assertTrue(b.keySet().remove("b"));
+        assertFalse(b.containsKey("b"));
+        assertEquals(3, b.size());
+
+        Iterator<String> iter = b.keySet().iterator();
+        while (iter.hasNext()) {
+            if (iter.next().equals("c")) {
+                iter.remove();
+            }
+        }
+        assertFalse(b.containsKey("c"));
+        assertEquals(2, b.size());
+
+        b.put("e", null);
+        assertNull(b.remove("e"));
+        assertFalse(b.containsKey("e"));
+        assertEquals(2, b.size());
+        assertEquals(Integer.valueOf(4), b.remove("d"));
+        assertEquals(List.of("a"), new ArrayList<>(b.keySet()));
+    }
+
+    /* A snapshot of a tree grown from sorted keys, a list in effect, comes
+     * back as a balanced tree with the same entries. */
+    @Test
+    public void snapshotTest() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            BSTMap<Integer, String> b = new BSTMap<>();
+            for (int i = 0; i < 2000; i++) {
+                b.put(i, "v" + i);
+            }
+            assertEquals(2000, b.height());
+            b.writeTo(channel, Codec.INTEGER, Codec.STRING);
+            new BSTMap<Integer, String>().writeTo(channel, Codec.INTEGER, Codec.STRING);
+            long end = channel.position();
+
+            channel.position(0);
+            BSTMap<Integer, String> copy = new BSTMap<>();
+            copy.put(-1, "stale");
+            copy.readFrom(channel, Codec.INTEGER, Codec.STRING);
+            assertEquals(2000, copy.size());
+            assertEquals(11, copy.height());
+            assertFalse(copy.containsKey(-1));
+            Integer prev = -1;
+            for (Integer key : copy) {
+                assertEquals(prev + 1, key.intValue());
+                assertEquals("v" + key, copy.get(key));
+                prev = key;
+            }
+            copy.put(5000, "new");
+            assertEquals(2001, copy.size());
+
+            BSTMap<Integer, String> empty = new BSTMap<>();
+            empty.readFrom(channel, Codec.INTEGER, Codec.STRING);
+            assertEquals(0, empty.size());
+            assertEquals(end, channel.position());
+
+            try {
+                channel.position(0);
+                new BSTMap<String, String>().readFrom(channel, Codec.STRING, Codec.STRING);
+                fail();
+            } catch (IOException e) {
+                // the keys decode as Strings out of order
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
 }
@@ -0,0 +1,117 @@
+package bstmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Tests for Codec, SnapshotOutput and SnapshotInput, the byte layer under
+ * the snapshots. They are copies of lab8's hashmap classes, and these are
+ * copies of its tests.
+ */
+public class TestSnapshotIO {
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Ints, longs, nulls, empty, non-ASCII and huge strings come back as they
+     * were written, many of them straddling the end of the 64 KB buffers,
+     * and finish() leaves the channel right after them.
+     */
+    @Test
+    public void roundTripTest() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try (FileChannel channel = open(file)) {
+            StringBuilder huge = new StringBuilder();
+            for (int i = 0; i < 200000; i++) {
+                huge.append(i % 1000 == 0 ? '\u00e9' : (char) ('a' + i % 26));
+            }
+
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+            SnapshotOutput out = new SnapshotOutput(channel);
+            out.writeLong(Long.MIN_VALUE);
+            for (int i = 0; i < 10000; i++) {
+                out.write(Codec.STRING, "caf\u00e9" + i);
+                out.writeInt(i);
+            }
+            out.write(Codec.STRING, null);
+            out.write(Codec.STRING, huge.toString());
+            out.write(Codec.STRING, "");
+            out.write(Codec.LONG, 61L);
+            out.flush();
+            long end = channel.position();
+            channel.write(ByteBuffer.wrap(new byte[100]));
+
+            channel.position(3);
+            SnapshotInput in = new SnapshotInput(channel);
+            assertEquals(Long.MIN_VALUE, in.readLong());
+            for (int i = 0; i < 10000; i++) {
+                assertEquals("caf\u00e9" + i, in.read(Codec.STRING));
+                assertEquals(i, in.readInt());
+            }
+            assertNull(in.read(Codec.STRING));
+            assertEquals(huge.toString(), in.read(Codec.STRING));
+            assertEquals("", in.read(Codec.STRING));
+            assertEquals(Long.valueOf(61), in.read(Codec.LONG));
+            in.finish();
+            assertEquals(end, channel.position());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * A codec that does not read exactly what was written, a negative
+     * length and a file that ends early are all IOExceptions.
+     */
+    @Test
+    public void badInputTest() throws IOException {
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try (FileChannel channel = open(file)) {
+            SnapshotOutput out = new SnapshotOutput(channel);
+            out.write(Codec.LONG, 5L);
+            out.writeInt(-5);
+            out.flush();
+
+            channel.position(0);
+            try {
+                new SnapshotInput(channel).read(Codec.INTEGER);
+                fail();
+            } catch (IOException e) {
+                // four of the eight bytes were read
+            }
+
+            channel.position(0);
+            SnapshotInput in = new SnapshotInput(channel);
+            assertEquals(Long.valueOf(5), in.read(Codec.LONG));
+            try {
+                in.read(Codec.STRING);
+                fail();
+            } catch (IOException e) {
+                // a length of -5
+            }
+
+            channel.position(0);
+            in = new SnapshotInput(channel);
+            in.readLong();
+            in.readLong();
+            try {
+                in.readInt();
+                fail();
+            } catch (EOFException e) {
+                // all sixteen bytes were read
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
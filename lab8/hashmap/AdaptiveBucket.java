@@ -0,0 +1,120 @@
+package hashmap;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A hash table bucket that changes its representation with its length.
+ * Short buckets are kept in an ArrayList, which is the cheapest to build and
+ * scan. Once a bucket grows past TREEIFY_THRESHOLD items it is converted
+ * into a TreeMap ordered by key, so even a bucket full of colliding keys is
+ * searched in O(log n). It converts back once it shrinks to
+ * UNTREEIFY_THRESHOLD items. The gap between the two thresholds keeps a
+ * bucket near the limit from converting on every put and remove.
+ *
+ * @param <T> the item type, usually a hash table node
+ * @param <K> the key type used to order and find items
+ */
+public class AdaptiveBucket<T, K> extends AbstractCollection<T> {
+
+    static final int TREEIFY_THRESHOLD = 8;
+    static final int UNTREEIFY_THRESHOLD = 6;
+
+    private final Function<T, K> keyOf;
+    private final Comparator<? super K> comparator;
+
+    /* Exactly one of list and tree is non-null */
+    private ArrayList<T> list;
+    private TreeMap<K, T> tree;
+
+    /**
+     * Creates an empty bucket.
+     *
+     * @param keyOf      returns the key of an item
+     * @param comparator orders keys once the bucket is a tree, must be
+     *                   consistent with the keys' equals()
+     */
+    public AdaptiveBucket(Function<T, K> keyOf, Comparator<? super K> comparator) {
+        this.keyOf = keyOf;
+        this.comparator = comparator;
+        this.list = new ArrayList<>(2);
+        this.tree = null;
+    }
+
+    /** Returns true if this bucket is currently stored as a tree. */
+    public boolean isTree() {
+        return this.tree != null;
+    }
+
+    /** Returns the item whose key equals key, or null if there is none. */
+    public T find(K key) {
+        if (this.tree != null) {
+            return this.tree.get(key);
+        }
+
+        for (T item : this.list) {
+            if (this.keyOf.apply(item).equals(key)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds item to this bucket. The caller makes sure no other item with an
+     * equal key is present, as MyHashMap does.
+     */
+    @Override
+    public boolean add(T item) {
+        if (this.tree != null) {
+            this.tree.put(this.keyOf.apply(item), item);
+            return true;
+        }
+
+        this.list.add(item);
+        if (this.list.size() > TREEIFY_THRESHOLD) {
+            this.tree = new TreeMap<>(this.comparator);
+            for (T t : this.list) {
+                this.tree.put(this.keyOf.apply(t), t);
+            }
+            this.list = null;
+        }
+        return true;
+    }
+
+    /** Removes item from this bucket. Items are matched by identity. */
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object o) {
+        if (this.tree == null) {
+            for (int i = 0; i < this.list.size(); i++) {
+                if (this.list.get(i) == o) {
+                    this.list.remove(i);
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        K key = this.keyOf.apply((T) o);
+        if (this.tree.get(key) != o) {
+            return false;
+        }
+        this.tree.remove(key);
+        if (this.tree.size() <= UNTREEIFY_THRESHOLD) {
+            this.list = new ArrayList<>(this.tree.values());
+            this.tree = null;
+        }
+        return true;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return this.tree != null ? this.tree.values().iterator() : this.list.iterator();
+    }
+
+    @Override
+    public int size() {
+        return this.tree != null ? this.tree.size() : this.list.size();
+    }
+}
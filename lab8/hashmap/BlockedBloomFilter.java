@@ -0,0 +1,122 @@
+package hashmap;
+
+/**
+ * A blocked Bloom filter over key hash codes. The bits are split into blocks
+ * of 512 bits, one 64-byte cache line each. A key sets and tests its k bits
+ * inside a single block picked by its hash, so a lookup touches one cache
+ * line instead of k random ones. The price is a slightly higher false
+ * positive rate than a classic Bloom filter with the same bits per key.
+ * <p>
+ * Like any Bloom filter it has no false negatives and cannot forget a key;
+ * BloomFilteredMap rebuilds it to drop removed keys.
+ */
+public class BlockedBloomFilter {
+
+    private static final int WORDS_PER_BLOCK = 8;
+    private static final int BLOCK_BITS = WORDS_PER_BLOCK * 64;
+    /** 9 bits address a bit of a block, and 7 of those fit in a long. */
+    private static final int MAX_HASHES = 7;
+
+    /* Instance Variables */
+    private final long[] words;
+    private final int numBlocks;
+    private final int numHashes;
+    private final int capacity;
+    private int count;
+
+    /**
+     * Creates a filter sized for capacity keys at bitsPerKey bits each.
+     * 10 bits per key gives about 1% false positives.
+     */
+    public BlockedBloomFilter(int capacity, double bitsPerKey) {
+        if (capacity <= 0 || bitsPerKey <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.capacity = capacity;
+        long bits = (long) Math.ceil(capacity * bitsPerKey);
+        this.numBlocks = (int) Math.max(1, (bits + BLOCK_BITS - 1) / BLOCK_BITS);
+        this.words = new long[this.numBlocks * WORDS_PER_BLOCK];
+        this.numHashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(bitsPerKey * Math.log(2))));
+    }
+
+    /** The MurmurHash3 64-bit finalizer. */
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** Returns the first word of the block of a key with mixed hash h. */
+    private int blockOf(long h) {
+        return (int) (((h >>> 32) * this.numBlocks) >>> 32) * WORDS_PER_BLOCK;
+    }
+
+    /**
+     * Returns a second hash to take the bit positions from, so they are
+     * independent of the bits that picked the block.
+     */
+    private static long bitsOf(long h) {
+        return mix64(h ^ 0x9E3779B97F4A7C15L);
+    }
+
+    /** Sets the bits of a key with hashCode. */
+    public void add(int hashCode) {
+        long h = mix64(hashCode);
+        int block = this.blockOf(h);
+        long bits = bitsOf(h);
+        for (int i = 0; i < this.numHashes; i++) {
+            int bit = (int) (bits >>> (9 * i)) & (BLOCK_BITS - 1);
+            this.words[block + (bit >>> 6)] |= 1L << bit;
+        }
+        this.count += 1;
+    }
+
+    /**
+     * Returns false if no key with hashCode was ever added, and true if one
+     * may have been.
+     */
+    public boolean mightContain(int hashCode) {
+        long h = mix64(hashCode);
+        int block = this.blockOf(h);
+        long bits = bitsOf(h);
+        for (int i = 0; i < this.numHashes; i++) {
+            int bit = (int) (bits >>> (9 * i)) & (BLOCK_BITS - 1);
+            if ((this.words[block + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the number of add() calls so far. */
+    public int count() {
+        return this.count;
+    }
+
+    /** Returns the number of keys the filter was sized for. */
+    public int capacity() {
+        return this.capacity;
+    }
+
+    /** Returns the bytes used by the bits of the filter. */
+    public long memoryBytes() {
+        return this.words.length * 8L;
+    }
+
+    /**
+     * Returns the false positive rate expected from the bits set so far:
+     * the chance that all k bits a missing key tests are set, when bits are
+     * set as evenly as they are on average.
+     */
+    public double expectedFalsePositiveRate() {
+        long set = 0;
+        for (long word : this.words) {
+            set += Long.bitCount(word);
+        }
+        return Math.pow((double) set / (this.words.length * 64L), this.numHashes);
+    }
+}
@@ -0,0 +1,228 @@
+package hashmap;
+
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * A Map61B that puts a BlockedBloomFilter in front of another Map61B, so
+ * that most lookups of missing keys are answered from one cache line of the
+ * filter without touching the map. Worth it when misses are common and the
+ * map is slow to search: long chains, deep trees, or a MappedHashMap on disk.
+ * <p>
+ * Every put() adds the key to the filter. A Bloom filter cannot forget keys,
+ * so removed keys keep letting lookups through to the map until the filter
+ * is rebuilt from the map's keys. That happens when the map grows past what
+ * the filter was sized for (the filter then doubles), and when more than
+ * half of the keys ever added have been removed. clear() starts a new
+ * filter.
+ * <p>
+ * The map must only be changed through this BloomFilteredMap, or the filter
+ * may answer no for a key the map has.
+ */
+public class BloomFilteredMap<K, V> implements Map61B<K, V> {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+    private static final double DEFAULT_BITS_PER_KEY = 10;
+
+    /* Instance Variables */
+    private final Map61B<K, V> map;
+    private final double bitsPerKey;
+    private final int initialCapacity;
+    private BlockedBloomFilter filter;
+    private int removed;
+    private int rebuilds;
+    /* lookups the filter turned away, and those it let through for a missing key */
+    private long filterNegatives;
+    private long falsePositives;
+
+    /**
+     * Wraps map with a filter of 10 bits per key, sized for the map or
+     * DEFAULT_CAPACITY keys, whichever is larger.
+     */
+    public BloomFilteredMap(Map61B<K, V> map) {
+        this(map, Math.max(DEFAULT_CAPACITY, map.size()), DEFAULT_BITS_PER_KEY);
+    }
+
+    /**
+     * Wraps map with a filter sized for expectedSize keys at bitsPerKey
+     * bits each. Keys already in map are added to the filter.
+     */
+    public BloomFilteredMap(Map61B<K, V> map, int expectedSize, double bitsPerKey) {
+        if (map == null || expectedSize <= 0 || bitsPerKey <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.map = map;
+        this.bitsPerKey = bitsPerKey;
+        this.initialCapacity = expectedSize;
+        this.rebuild(Math.max(expectedSize, map.size()));
+        this.rebuilds = 0;
+    }
+
+    /** Replaces the filter with one of capacity keys that holds the map's keys. */
+    private void rebuild(int capacity) {
+        this.filter = new BlockedBloomFilter(capacity, this.bitsPerKey);
+        for (K key : this.map) {
+            this.filter.add(key.hashCode());
+        }
+        this.removed = 0;
+        this.rebuilds += 1;
+    }
+
+    /**
+     * Returns false if the filter is sure the map has no key, counting the
+     * lookup as a filter negative.
+     */
+    private boolean mightContain(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        if (this.filter.mightContain(key.hashCode())) {
+            return true;
+        }
+        this.filterNegatives += 1;
+        return false;
+    }
+
+    @Override
+    public void clear() {
+        this.map.clear();
+        this.filter = new BlockedBloomFilter(this.initialCapacity, this.bitsPerKey);
+        this.removed = 0;
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        if (!this.mightContain(key)) {
+            return false;
+        }
+        boolean found = this.map.containsKey(key);
+        if (!found) {
+            this.falsePositives += 1;
+        }
+        return found;
+    }
+
+    @Override
+    public V get(K key) {
+        if (!this.mightContain(key)) {
+            return null;
+        }
+        V value = this.map.get(key);
+        if (value == null) {
+            this.falsePositives += 1;
+        }
+        return value;
+    }
+
+    @Override
+    public int size() {
+        return this.map.size();
+    }
+
+    @Override
+    public void put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int before = this.map.size();
+        this.map.put(key, value);
+        if (this.map.size() == before) {
+            return;
+        }
+        this.filter.add(key.hashCode());
+        if (this.filter.count() > this.filter.capacity()) {
+            this.rebuild(this.filter.capacity() * 2);
+        }
+    }
+
+    @Override
+    public V remove(K key) {
+        if (!this.mightContain(key)) {
+            return null;
+        }
+        int before = this.map.size();
+        V value = this.map.remove(key);
+        this.afterRemove(before);
+        return value;
+    }
+
+    @Override
+    public V remove(K key, V value) {
+        if (!this.mightContain(key)) {
+            return null;
+        }
+        int before = this.map.size();
+        V result = this.map.remove(key, value);
+        this.afterRemove(before);
+        return result;
+    }
+
+    /** Rebuilds the filter once more than half the keys it holds are gone. */
+    private void afterRemove(int sizeBefore) {
+        if (this.map.size() == sizeBefore) {
+            return;
+        }
+        this.removed += 1;
+        if (this.removed > this.filter.count() / 2) {
+            this.rebuild(this.filter.capacity());
+        }
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return this.map.iterator();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return this.map.keySet();
+    }
+
+    /* ------------------------------- Statistics ------------------------------- */
+
+    /** Returns the number of lookups the filter answered without the map. */
+    public long filterNegatives() {
+        return this.filterNegatives;
+    }
+
+    /** Returns the number of lookups the filter let through for a missing key. */
+    public long falsePositives() {
+        return this.falsePositives;
+    }
+
+    /**
+     * Returns the fraction of lookups of missing keys that the filter let
+     * through to the map, or 0 before the first miss.
+     */
+    public double falsePositiveRate() {
+        long misses = this.filterNegatives + this.falsePositives;
+        return misses == 0 ? 0 : (double) this.falsePositives / misses;
+    }
+
+    /** Returns the false positive rate the filter's fill predicts. */
+    public double expectedFalsePositiveRate() {
+        return this.filter.expectedFalsePositiveRate();
+    }
+
+    /** Returns the bytes used by the filter, on top of the map. */
+    public long filterBytes() {
+        return this.filter.memoryBytes();
+    }
+
+    /** Returns how many times the filter was rebuilt after construction. */
+    public int rebuilds() {
+        return this.rebuilds;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d keys, filter %d bytes (%.1f bits per key), "
+                        + "false positives %.3f%% (expected %.3f%%), %d rebuilds",
+                this.size(), this.filterBytes(),
+                this.size() == 0 ? 0.0 : this.filterBytes() * 8.0 / this.size(),
+                this.falsePositiveRate() * 100, this.expectedFalsePositiveRate() * 100,
+                this.rebuilds);
+    }
+}
@@ -0,0 +1,71 @@
+package hashmap;
+
+/**
+ * A summary of how evenly a MyHashMap spreads its keys over its buckets,
+ * as returned by MyHashMap.stats().
+ */
+public class BucketStats {
+    private final int numBuckets;
+    private final int numItems;
+    private final int[] histogram;
+
+    /**
+     * @param histogram histogram[i] is the number of buckets holding i items
+     */
+    BucketStats(int numBuckets, int numItems, int[] histogram) {
+        this.numBuckets = numBuckets;
+        this.numItems = numItems;
+        this.histogram = histogram;
+    }
+
+    public int numBuckets() {
+        return this.numBuckets;
+    }
+
+    public int numItems() {
+        return this.numItems;
+    }
+
+    /** Returns the number of buckets that hold exactly length items. */
+    public int bucketsOfLength(int length) {
+        return length < this.histogram.length ? this.histogram[length] : 0;
+    }
+
+    /** Returns the number of items in the longest bucket. */
+    public int maxChain() {
+        return this.histogram.length - 1;
+    }
+
+    /** Returns the fraction of buckets that hold no item. */
+    public double emptyRatio() {
+        return this.numBuckets == 0 ? 0 : (double) this.bucketsOfLength(0) / this.numBuckets;
+    }
+
+    /**
+     * Returns the average number of items compared by a successful lookup,
+     * assuming every key is looked up equally often.
+     */
+    public double averageProbes() {
+        long probes = 0;
+        for (int length = 1; length < this.histogram.length; length++) {
+            // a bucket of n items costs 1 + 2 + ... + n over its n keys
+            probes += (long) this.histogram[length] * length * (length + 1) / 2;
+        }
+        return this.numItems == 0 ? 0 : (double) probes / this.numItems;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d items in %d buckets, max chain %d, %.1f%% empty, "
+                        + "%.2f avg probes\n", this.numItems, this.numBuckets, this.maxChain(),
+                100 * this.emptyRatio(), this.averageProbes()));
+        sb.append("  bucket length histogram:");
+        for (int length = 0; length < this.histogram.length; length++) {
+            if (this.histogram[length] > 0) {
+                sb.append(' ').append(length).append('=').append(this.histogram[length]);
+            }
+        }
+        return sb.toString();
+    }
+}
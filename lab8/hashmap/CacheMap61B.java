@@ -0,0 +1,331 @@
+package hashmap;
+
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A bounded cache built on MyHashMap. Every entry has a weight, 1 unless a
+ * weigher is given, and once the total weight goes over maxWeight entries
+ * are evicted until it fits again. The victim is picked by the Policy:
+ * <ul>
+ * <li>LRU evicts the least recently used entry.
+ * <li>LFU evicts the least frequently used entry, and among entries used
+ *     equally often, the least recently used one.
+ * </ul>
+ * The nodes are threaded onto intrusive doubly linked lists through the
+ * MyHashMap node hooks. LRU keeps one list in access order. LFU keeps one
+ * list per use count, and those lists are themselves linked in count order
+ * (the O(1) LFU scheme of Shah, Mitra and Matani). Every operation,
+ * evictions included, is O(1).
+ * <p>
+ * get() and computeIfAbsent() count hits and misses; containsKey() counts
+ * neither and does not count as a use of the key.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class CacheMap61B<K, V> extends MyHashMap<K, V> {
+
+    /** How CacheMap61B picks the entry to evict. */
+    public enum Policy {
+        LRU, LFU
+    }
+
+    /** Weighs every entry as 1, so maxWeight bounds the number of entries. */
+    private static final ToIntBiFunction<Object, Object> UNIT_WEIGHT = (k, v) -> 1;
+
+    /** A node that also sits on one of the use lists. */
+    private class CacheNode extends Node {
+        private CacheNode before;
+        private CacheNode after;
+        private UseList owner;
+        private int weight;
+
+        CacheNode(K key, V value) {
+            super(key, value);
+        }
+    }
+
+    /**
+     * A list of nodes that have been used count times, least recently used
+     * first. LRU only ever has one of these.
+     */
+    private class UseList {
+        private final long count;
+        private CacheNode head;
+        private CacheNode tail;
+        private UseList prev;
+        private UseList next;
+
+        UseList(long count) {
+            this.count = count;
+        }
+    }
+
+    /* Instance Variables */
+    private final Policy policy;
+    private final long maxWeight;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private long weight;
+    /* LRU uses only lowest, LFU links lists from the lowest count up */
+    private UseList lowest;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /**
+     * Creates a cache of at most maxSize entries that evicts by policy.
+     */
+    public CacheMap61B(long maxSize, Policy policy) {
+        this(maxSize, policy, UNIT_WEIGHT);
+    }
+
+    /**
+     * Creates a cache whose entries, weighed by weigher, weigh at most
+     * maxWeight in total, and that evicts by policy. weigher must return
+     * a non-negative weight and is called again when a value is replaced.
+     */
+    public CacheMap61B(long maxWeight, Policy policy, ToIntBiFunction<? super K, ? super V> weigher) {
+        super();
+        if (maxWeight < 0 || policy == null || weigher == null) {
+            throw new IllegalArgumentException();
+        }
+        this.maxWeight = maxWeight;
+        this.policy = policy;
+        this.weigher = weigher;
+    }
+
+    @Override
+    protected Node createNode(K key, V value) {
+        return new CacheNode(key, value);
+    }
+
+    /* ------------------------------- Use lists ------------------------------- */
+
+    private void append(UseList list, CacheNode node) {
+        node.owner = list;
+        node.before = list.tail;
+        node.after = null;
+        if (list.tail == null) {
+            list.head = node;
+        } else {
+            list.tail.after = node;
+        }
+        list.tail = node;
+    }
+
+    /** Takes node off its list, and drops the list if it is now empty under LFU. */
+    private void unlink(CacheNode node) {
+        UseList list = node.owner;
+        if (node.before == null) {
+            list.head = node.after;
+        } else {
+            node.before.after = node.after;
+        }
+        if (node.after == null) {
+            list.tail = node.before;
+        } else {
+            node.after.before = node.before;
+        }
+        node.before = null;
+        node.after = null;
+        node.owner = null;
+
+        if (list.head == null && this.policy == Policy.LFU) {
+            this.dropList(list);
+        }
+    }
+
+    /** Links a new list for count right after prev, or first if prev is null. */
+    private UseList insertList(UseList prev, long count) {
+        UseList list = new UseList(count);
+        list.prev = prev;
+        list.next = prev == null ? this.lowest : prev.next;
+        if (list.next != null) {
+            list.next.prev = list;
+        }
+        if (prev == null) {
+            this.lowest = list;
+        } else {
+            prev.next = list;
+        }
+        return list;
+    }
+
+    private void dropList(UseList list) {
+        if (list.prev == null) {
+            this.lowest = list.next;
+        } else {
+            list.prev.next = list.next;
+        }
+        if (list.next != null) {
+            list.next.prev = list.prev;
+        }
+    }
+
+    /* ------------------------------- Node hooks ------------------------------- */
+
+    @Override
+    protected void afterNodeInsertion(Node n) {
+        CacheNode node = (CacheNode) n;
+        if (this.policy == Policy.LRU) {
+            if (this.lowest == null) {
+                this.lowest = new UseList(0);
+            }
+            this.append(this.lowest, node);
+        } else {
+            UseList once = this.lowest;
+            if (once == null || once.count != 1) {
+                once = this.insertList(null, 1);
+            }
+            this.append(once, node);
+        }
+
+        node.weight = this.weigh(node);
+        this.weight += node.weight;
+        this.evictIfNeeded(node);
+    }
+
+    @Override
+    protected void afterNodeAccess(Node n) {
+        CacheNode node = (CacheNode) n;
+        if (this.policy == Policy.LRU) {
+            if (node != this.lowest.tail) {
+                this.unlink(node);
+                this.append(this.lowest, node);
+            }
+        } else {
+            UseList list = node.owner;
+            UseList next = list.next;
+            if (next == null || next.count != list.count + 1) {
+                next = this.insertList(list, list.count + 1);
+            }
+            // unlink may drop list, but next is already linked after it
+            this.unlink(node);
+            this.append(next, node);
+        }
+
+        if (this.weigher != UNIT_WEIGHT) {
+            int newWeight = this.weigh(node);
+            this.weight += newWeight - node.weight;
+            node.weight = newWeight;
+            this.evictIfNeeded(node);
+        }
+    }
+
+    @Override
+    protected void afterNodeRemoval(Node n) {
+        CacheNode node = (CacheNode) n;
+        this.unlink(node);
+        this.weight -= node.weight;
+    }
+
+    private int weigh(CacheNode node) {
+        int w = this.weigher.applyAsInt(node.key, node.value);
+        if (w < 0) {
+            throw new IllegalArgumentException("negative weight for key " + node.key);
+        }
+        return w;
+    }
+
+    /**
+     * Evicts from the front of the lowest list until the weight fits. The
+     * node that was just inserted or used goes last, so that under LFU a new
+     * entry is not evicted right away for having been used only once.
+     */
+    private void evictIfNeeded(CacheNode keep) {
+        while (this.weight > this.maxWeight) {
+            CacheNode victim = this.lowest.head;
+            if (victim == keep) {
+                victim = keep.after;
+                if (victim == null && this.lowest.next != null) {
+                    victim = this.lowest.next.head;
+                }
+                if (victim == null) {
+                    victim = keep;
+                }
+            }
+            this.remove(victim.key);
+            this.evictions += 1;
+        }
+    }
+
+    /* ------------------------------- Map61B ------------------------------- */
+
+    /**
+     * Returns the value cached for key, or null if there is none. Counts a
+     * hit or a miss.
+     */
+    @Override
+    public V get(K key) {
+        V value = super.get(key);
+        if (value == null) {
+            this.misses += 1;
+        } else {
+            this.hits += 1;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value cached for key, computing and caching it with
+     * mappingFunction on a miss. Counts a hit or a miss.
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        boolean[] loaded = {false};
+        V value = super.computeIfAbsent(key, k -> {
+            loaded[0] = true;
+            return mappingFunction.apply(k);
+        });
+        if (loaded[0]) {
+            this.misses += 1;
+        } else {
+            this.hits += 1;
+        }
+        return value;
+    }
+
+    /**
+     * Removes all of the entries. The hit, miss and eviction counters are kept.
+     */
+    @Override
+    public void clear() {
+        super.clear();
+        this.lowest = null;
+        this.weight = 0;
+    }
+
+    /* ------------------------------- Statistics ------------------------------- */
+
+    public Policy policy() {
+        return this.policy;
+    }
+
+    public long maxWeight() {
+        return this.maxWeight;
+    }
+
+    /** Returns the total weight of the cached entries. */
+    public long weight() {
+        return this.weight;
+    }
+
+    public long hits() {
+        return this.hits;
+    }
+
+    public long misses() {
+        return this.misses;
+    }
+
+    public long evictions() {
+        return this.evictions;
+    }
+
+    /** Returns hits / (hits + misses), or 0 before the first lookup. */
+    public double hitRate() {
+        long lookups = this.hits + this.misses;
+        return lookups == 0 ? 0 : (double) this.hits / lookups;
+    }
+}
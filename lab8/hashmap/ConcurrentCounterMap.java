@@ -0,0 +1,245 @@
+package hashmap;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts occurrences of keys from many threads at once. Counters are
+ * LongAdders kept in a LockFreeMyHashMap, so looking a counter up never
+ * blocks, and threads that bump the same hot key add to different cells of
+ * its LongAdder instead of fighting over one word.
+ * <p>
+ * In exact mode every key gets its own counter. In approximate mode, made
+ * with approximate(), keys are first counted in a count-min sketch of fixed
+ * size, and only a key whose estimate reaches heavyHitterCount is promoted
+ * to its own counter, seeded with that estimate. Memory then depends on the
+ * number of heavy hitters instead of the number of distinct keys, and the
+ * hot keys still count on LongAdders. An approximate count is never too low,
+ * and with probability 1 - delta it is too high by at most epsilon * total().
+ * <p>
+ * Counts read while other threads are counting are not a snapshot: count(),
+ * total() and topK() see some of the concurrent increments and not others.
+ * Assumes null keys will never be counted.
+ *
+ * @param <K> the type of keys
+ */
+public class ConcurrentCounterMap<K> {
+
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+
+    /* Instance Variables */
+    private final LockFreeMyHashMap<K, LongAdder> counters;
+    private final LongAdder total = new LongAdder();
+    /* count-min sketch, depth rows of width cells; null in exact mode */
+    private final AtomicLongArray sketch;
+    private final int width;
+    private final int depth;
+    private final long heavyHitterCount;
+
+    /**
+     * Creates an exact counter map.
+     */
+    public ConcurrentCounterMap() {
+        this.counters = new LockFreeMyHashMap<>();
+        this.sketch = null;
+        this.width = 0;
+        this.depth = 0;
+        this.heavyHitterCount = 0;
+    }
+
+    private ConcurrentCounterMap(int width, int depth, long heavyHitterCount) {
+        this.counters = new LockFreeMyHashMap<>();
+        this.sketch = new AtomicLongArray(width * depth);
+        this.width = width;
+        this.depth = depth;
+        this.heavyHitterCount = heavyHitterCount;
+    }
+
+    /**
+     * Creates an approximate counter map whose counts are too high by at
+     * most epsilon * total() with probability 1 - delta. Keys whose count
+     * reaches heavyHitterCount get counters of their own and show up in
+     * keySet() and topK().
+     *
+     * @param epsilon          the error bound, as a share of all counts
+     * @param delta            the chance of missing the error bound
+     * @param heavyHitterCount the estimate at which a key is promoted
+     */
+    public static <K> ConcurrentCounterMap<K> approximate(double epsilon, double delta,
+                                                          long heavyHitterCount) {
+        if (epsilon <= 0 || epsilon >= 1 || delta <= 0 || delta >= 1 || heavyHitterCount <= 0) {
+            throw new IllegalArgumentException();
+        }
+        int width = (int) Math.ceil(Math.E / epsilon);
+        int depth = (int) Math.ceil(Math.log(1 / delta));
+        return new ConcurrentCounterMap<>(width, depth, heavyHitterCount);
+    }
+
+    /** Returns true if this map counts with a count-min sketch. */
+    public boolean isApproximate() {
+        return this.sketch != null;
+    }
+
+    /** Adds one to the count of key. */
+    public void increment(K key) {
+        this.add(key, 1);
+    }
+
+    /**
+     * Adds n to the count of key. n must not be negative in approximate
+     * mode, where counts can only grow.
+     */
+    public void add(K key, long n) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        if (n < 0 && this.sketch != null) {
+            throw new IllegalArgumentException("approximate counts cannot go down");
+        }
+        this.total.add(n);
+
+        LongAdder counter = this.counters.get(key);
+        if (counter != null) {
+            counter.add(n);
+        } else if (this.sketch == null) {
+            // computeIfAbsent may build a spare LongAdder under a race, never two counters
+            this.counters.computeIfAbsent(key, k -> new LongAdder()).add(n);
+        } else {
+            this.addToSketch(key, n);
+        }
+    }
+
+    /** Returns the sketch cell of key in row. */
+    private int cellOf(int hashCode, int row) {
+        long h = hashCode + row * GOLDEN;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return row * this.width + (int) (((h >>> 32) * this.width) >>> 32);
+    }
+
+    /**
+     * Adds n to the sketch cells of key and promotes it once its estimate,
+     * the smallest of its cells, reaches heavyHitterCount.
+     */
+    private void addToSketch(K key, long n) {
+        int hashCode = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < this.depth; row++) {
+            estimate = Math.min(estimate, this.sketch.addAndGet(this.cellOf(hashCode, row), n));
+        }
+        if (estimate < this.heavyHitterCount) {
+            return;
+        }
+
+        LongAdder counter = new LongAdder();
+        counter.add(estimate);
+        LongAdder winner = this.counters.putIfAbsent(key, counter);
+        if (winner != null) {
+            // another thread promoted key first, maybe from before this add;
+            // adding again can only count too high, never too low
+            winner.add(n);
+        }
+    }
+
+    /** Returns the sketch estimate of key. */
+    private long estimate(K key) {
+        int hashCode = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < this.depth; row++) {
+            estimate = Math.min(estimate, this.sketch.get(this.cellOf(hashCode, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the count of key, 0 if it was never counted. In approximate
+     * mode this is an estimate that is never too low.
+     */
+    public long count(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        LongAdder counter = this.counters.get(key);
+        if (counter != null) {
+            return counter.sum();
+        }
+        return this.sketch == null ? 0 : this.estimate(key);
+    }
+
+    /** Returns the sum of all counts added so far. */
+    public long total() {
+        return this.total.sum();
+    }
+
+    /**
+     * Returns the number of keys with a counter of their own: every counted
+     * key in exact mode, the heavy hitters in approximate mode.
+     */
+    public int size() {
+        return this.counters.size();
+    }
+
+    /** Returns a snapshot of the keys that have counters of their own. */
+    public Set<K> keySet() {
+        return this.counters.keySet();
+    }
+
+    /**
+     * Returns the k keys with the highest counts and their counts, highest
+     * first. In approximate mode only heavy hitters are candidates. Takes
+     * O(size() log k) time with a bounded heap.
+     */
+    public List<Map.Entry<K, Long>> topK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException();
+        }
+        if (k == 0) {
+            return Collections.emptyList();
+        }
+
+        PriorityQueue<Map.Entry<K, Long>> lowest = new PriorityQueue<>(k + 1,
+                Map.Entry.comparingByValue());
+        for (K key : this.counters) {
+            LongAdder counter = this.counters.get(key);
+            if (counter == null) {
+                continue;
+            }
+            lowest.add(new AbstractMap.SimpleImmutableEntry<>(key, counter.sum()));
+            if (lowest.size() > k) {
+                lowest.poll();
+            }
+        }
+
+        List<Map.Entry<K, Long>> top = new ArrayList<>(lowest);
+        top.sort(Collections.reverseOrder(Map.Entry.comparingByValue()));
+        return top;
+    }
+
+    /**
+     * Forgets every count. Increments that race with clear() may survive it.
+     */
+    public void clear() {
+        this.counters.clear();
+        this.total.reset();
+        if (this.sketch != null) {
+            for (int i = 0; i < this.sketch.length(); i++) {
+                this.sketch.set(i, 0);
+            }
+        }
+    }
+
+    /** Returns the bytes used by the count-min sketch, 0 in exact mode. */
+    public long sketchBytes() {
+        return this.sketch == null ? 0 : this.sketch.length() * 8L;
+    }
+}
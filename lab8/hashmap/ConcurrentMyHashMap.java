@@ -0,0 +1,468 @@
+package hashmap;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A thread-safe hash table-backed Map implementation using lock striping.
+ * The table is split into a fixed number of segments. Each segment is a
+ * small chained hash table guarded by its own lock, so threads working on
+ * keys in different segments never wait for each other.
+ * <p>
+ * size() is kept in a LongAdder, so writers don't all contend on one counter.
+ * keySet() and iterator() return a snapshot taken one segment at a time, so
+ * they are weakly consistent with concurrent updates.
+ * <p>
+ * putIfAbsent(), computeIfAbsent(), compute() and merge() are atomic: the
+ * function runs under the segment lock, so it must be short and must not
+ * touch this map.
+ * <p>
+ * Assumes null keys and null values will never be inserted.
+ */
+public class ConcurrentMyHashMap<K, V> implements Map61B<K, V> {
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+    private static final int DEFAULT_SEGMENT_BUCKETS = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.75;
+    private static final int RESIZE_FACTOR = 2;
+
+    /** A node of a segment's bucket chain. */
+    private static class Node<K, V> {
+        final K key;
+        final int hash;
+        V value;
+        Node<K, V> next;
+
+        Node(K key, int hash, V value, Node<K, V> next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /**
+     * One stripe of the map. Every field is only touched while holding lock.
+     */
+    private class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+        /* The bucket count clear() starts over with */
+        private final int initialBuckets;
+        private Node<K, V>[] buckets;
+        private int numItems;
+
+        Segment(int numBuckets) {
+            this.initialBuckets = numBuckets;
+            this.buckets = newTable(numBuckets);
+            this.numItems = 0;
+        }
+
+        private int bucketOffset(int hash, int numBuckets) {
+            return hash & (numBuckets - 1);
+        }
+
+        private Node<K, V> getNode(K key, int hash) {
+            Node<K, V> node = this.buckets[this.bucketOffset(hash, this.buckets.length)];
+            while (node != null) {
+                if (node.hash == hash && node.key.equals(key)) {
+                    return node;
+                }
+                node = node.next;
+            }
+            return null;
+        }
+
+        V get(K key, int hash) {
+            this.lock.lock();
+            try {
+                Node<K, V> node = this.getNode(key, hash);
+                return node == null ? null : node.value;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        void put(K key, int hash, V value) {
+            this.lock.lock();
+            try {
+                Node<K, V> node = this.getNode(key, hash);
+                if (node != null) {
+                    node.value = value;
+                    return;
+                }
+
+                this.addNode(key, hash, value);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        V putIfAbsent(K key, int hash, V value) {
+            this.lock.lock();
+            try {
+                Node<K, V> node = this.getNode(key, hash);
+                if (node != null) {
+                    return node.value;
+                }
+
+                this.addNode(key, hash, value);
+                return null;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        /**
+         * Maps key to f(key, old value or null) with a single walk of its
+         * chain, or removes key if that is null. Returns the new value.
+         */
+        V compute(K key, int hash, BiFunction<? super K, ? super V, ? extends V> f) {
+            this.lock.lock();
+            try {
+                int offset = this.bucketOffset(hash, this.buckets.length);
+                Node<K, V> prev = null;
+                Node<K, V> node = this.buckets[offset];
+                while (node != null && !(node.hash == hash && node.key.equals(key))) {
+                    prev = node;
+                    node = node.next;
+                }
+
+                V value = f.apply(key, node == null ? null : node.value);
+                if (node == null) {
+                    if (value != null) {
+                        this.addNode(key, hash, value);
+                    }
+                } else if (value != null) {
+                    node.value = value;
+                } else {
+                    this.unlink(offset, prev, node);
+                }
+                return value;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        /** Adds a node for key, which must be absent. Holds the lock. */
+        private void addNode(K key, int hash, V value) {
+            if (this.numItems + 1 > loadFactor * this.buckets.length) {
+                this.resize();
+            }
+            int offset = this.bucketOffset(hash, this.buckets.length);
+            this.buckets[offset] = new Node<>(key, hash, value, this.buckets[offset]);
+            this.numItems += 1;
+            counter.increment();
+        }
+
+        /** Removes node, which follows prev in bucket offset. Holds the lock. */
+        private void unlink(int offset, Node<K, V> prev, Node<K, V> node) {
+            if (prev == null) {
+                this.buckets[offset] = node.next;
+            } else {
+                prev.next = node.next;
+            }
+            this.numItems -= 1;
+            counter.decrement();
+        }
+
+        private void resize() {
+            Node<K, V>[] newBuckets = newTable(this.buckets.length * RESIZE_FACTOR);
+            for (Node<K, V> node : this.buckets) {
+                while (node != null) {
+                    Node<K, V> next = node.next;
+                    int offset = this.bucketOffset(node.hash, newBuckets.length);
+                    node.next = newBuckets[offset];
+                    newBuckets[offset] = node;
+                    node = next;
+                }
+            }
+            this.buckets = newBuckets;
+        }
+
+        /**
+         * Removes key, only if it is mapped to expected when expected is not
+         * null. Returns the removed value, or null if nothing was removed.
+         */
+        V remove(K key, int hash, V expected) {
+            this.lock.lock();
+            try {
+                int offset = this.bucketOffset(hash, this.buckets.length);
+                Node<K, V> prev = null;
+                Node<K, V> node = this.buckets[offset];
+                while (node != null) {
+                    if (node.hash == hash && node.key.equals(key)) {
+                        if (expected != null && !expected.equals(node.value)) {
+                            return null;
+                        }
+                        this.unlink(offset, prev, node);
+                        return node.value;
+                    }
+                    prev = node;
+                    node = node.next;
+                }
+                return null;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        void clear() {
+            counter.add(-this.numItems);
+            this.buckets = newTable(this.initialBuckets);
+            this.numItems = 0;
+        }
+
+        void addKeysTo(Collection<K> keys) {
+            this.lock.lock();
+            try {
+                for (Node<K, V> node : this.buckets) {
+                    for (; node != null; node = node.next) {
+                        keys.add(node.key);
+                    }
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    /* Instance Variables */
+    private final Segment[] segments;
+    private final int segmentShift;
+    private final double loadFactor;
+    private final LongAdder counter = new LongAdder();
+
+    /**
+     * Constructors
+     */
+    public ConcurrentMyHashMap() {
+        this(DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    public ConcurrentMyHashMap(int concurrencyLevel) {
+        this(concurrencyLevel, DEFAULT_SEGMENT_BUCKETS * DEFAULT_CONCURRENCY_LEVEL,
+                DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * ConcurrentMyHashMap constructor that splits the table into at least
+     * concurrencyLevel segments, rounded up to a power of two.
+     *
+     * @param concurrencyLevel expected number of concurrently writing threads
+     * @param initialSize      initial number of buckets across all segments
+     * @param maxLoad          maximum load factor of each segment
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentMyHashMap(int concurrencyLevel, int initialSize, double maxLoad) {
+        if (concurrencyLevel <= 0 || initialSize <= 0 || maxLoad <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        int numSegments = powerOfTwoAtLeast(Math.min(concurrencyLevel, 1 << 16));
+        int segmentBuckets = powerOfTwoAtLeast(Math.max(initialSize / numSegments, 2));
+        this.loadFactor = maxLoad;
+        this.segmentShift = 32 - Integer.numberOfTrailingZeros(numSegments);
+        this.segments = (Segment[]) new ConcurrentMyHashMap.Segment[numSegments];
+        for (int i = 0; i < numSegments; i++) {
+            this.segments[i] = new Segment(segmentBuckets);
+        }
+    }
+
+    private static int powerOfTwoAtLeast(int n) {
+        return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <K, V> Node<K, V>[] newTable(int numBuckets) {
+        return (Node<K, V>[]) new Node[numBuckets];
+    }
+
+    /**
+     * Mixes the hash code so that the high bits pick the segment and the low
+     * bits pick the bucket inside it.
+     */
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private Segment segmentFor(int hash) {
+        // shifting an int by 32 is a no-op, so a single segment needs a special case
+        return this.segments.length == 1 ? this.segments[0] : this.segments[hash >>> this.segmentShift];
+    }
+
+    /**
+     * Removes all of the mappings from this map. All segment locks are held
+     * while clearing, so no update is half-applied.
+     */
+    @Override
+    public void clear() {
+        for (Segment segment : this.segments) {
+            segment.lock.lock();
+        }
+        try {
+            for (Segment segment : this.segments) {
+                segment.clear();
+            }
+        } finally {
+            for (Segment segment : this.segments) {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return this.get(key) != null;
+    }
+
+    /** Returns the number of buckets over all segments. */
+    int numBuckets() {
+        int total = 0;
+        for (Segment segment : this.segments) {
+            segment.lock.lock();
+            try {
+                total += segment.buckets.length;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     */
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = spread(key.hashCode());
+        return this.segmentFor(hash).get(key, hash);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map. The result may
+     * miss updates that are running concurrently.
+     */
+    @Override
+    public int size() {
+        long sum = this.counter.sum();
+        return (int) Math.max(0, Math.min(sum, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key,
+     * the old value is replaced.
+     */
+    @Override
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = spread(key.hashCode());
+        this.segmentFor(hash).put(key, hash, value);
+    }
+
+    /**
+     * Returns a snapshot of the keys contained in this map.
+     */
+    @Override
+    public Set<K> keySet() {
+        HashSet<K> keys = new HashSet<>();
+        for (Segment segment : this.segments) {
+            segment.addKeysTo(keys);
+        }
+
+        return keys;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     */
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = spread(key.hashCode());
+        return this.segmentFor(hash).remove(key, hash, null);
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to
+     * the specified value. Returns the removed value, or null if nothing was
+     * removed.
+     */
+    @Override
+    public V remove(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = spread(key.hashCode());
+        return this.segmentFor(hash).remove(key, hash, value);
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = spread(key.hashCode());
+        return this.segmentFor(hash).putIfAbsent(key, hash, value);
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = spread(key.hashCode());
+        return this.segmentFor(hash).compute(key, hash,
+            (k, old) -> old != null ? old : mappingFunction.apply(k));
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = spread(key.hashCode());
+        return this.segmentFor(hash).compute(key, hash, remappingFunction);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = spread(key.hashCode());
+        return this.segmentFor(hash).compute(key, hash,
+            (k, old) -> old == null ? value : remappingFunction.apply(old, value));
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the keys, see keySet().
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return this.keySet().iterator();
+    }
+}
@@ -0,0 +1,463 @@
+package hashmap;
+
+import java.util.*;
+
+/**
+ * A hash table-backed Map implementation that uses bucketized cuckoo hashing.
+ * Every key has two candidate buckets, picked by two independently seeded
+ * hash functions, and each bucket holds SLOTS_PER_BUCKET entries. A key is
+ * always in one of its two buckets or in a small stash, so get() looks at no
+ * more than 2 * SLOTS_PER_BUCKET slots plus the stash, however the keys
+ * collide.
+ * <p>
+ * put() places a new key in a free slot of either bucket. If both are full
+ * it kicks a random entry out of one of them and moves that entry to its
+ * other bucket, repeating for up to MAX_KICKS moves. An entry still homeless
+ * after that goes to the stash, and once the stash is full the table is
+ * rebuilt with new seeds, and with twice the buckets if it is not nearly
+ * empty.
+ * <p>
+ * Keys that share a hash code also share both buckets, and no seed can pull
+ * them apart. Once more of them than two buckets and the stash can hold are
+ * inserted, the stash is allowed to grow past STASH_SIZE, and lookups of
+ * those keys scan it like a list bucket.
+ * <p>
+ * Assumes null keys will never be inserted.
+ */
+public class CuckooHashMap<K, V> implements Map61B<K, V> {
+
+    public static final int SLOTS_PER_BUCKET = 4;
+    /** The stash size above which put() rebuilds the table. */
+    public static final int STASH_SIZE = 8;
+    private static final int MAX_KICKS = 256;
+    /** How many times a rebuild retries with new seeds before giving up on the stash. */
+    private static final int MAX_RESEEDS = 4;
+    /** Below this load a failed insert reseeds the table instead of growing it. */
+    private static final double MIN_GROW_LOAD = 0.5;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.9;
+
+    /* Instance Variables */
+    private K[] keys;
+    private V[] values;
+    private int numItems = 0;
+    private int bucketMask;
+    private int seed1;
+    private int seed2;
+    /* the xorshift state behind the seeds and the kicked slots */
+    private int random = 0x61B61B;
+    private K[] stashKeys;
+    private V[] stashValues;
+    private int stashSize;
+    private int stashLimit = STASH_SIZE;
+    /* the entry left homeless by the last failed place() */
+    private K homelessKey;
+    private V homelessValue;
+    private final double loadFactor;
+    private final int initialCapacity;
+
+    /**
+     * Constructors
+     */
+    public CuckooHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public CuckooHashMap(int initialSize) {
+        this(initialSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * CuckooHashMap constructor that creates a table of at least initialSize
+     * slots. The number of buckets is rounded up to a power of two.
+     * The load factor (# items / # slots) should always be <= maxLoad
+     *
+     * @param initialSize initial number of slots
+     * @param maxLoad     maximum load factor, must be in (0, 1)
+     */
+    public CuckooHashMap(int initialSize, double maxLoad) {
+        if (initialSize <= 0 || maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.loadFactor = maxLoad;
+        this.initialCapacity = bucketsFor(initialSize);
+        this.setupTable(this.initialCapacity);
+    }
+
+    private static int bucketsFor(int size) {
+        int buckets = (size + SLOTS_PER_BUCKET - 1) / SLOTS_PER_BUCKET;
+        int capacity = Integer.highestOneBit(Math.max(buckets, 2) - 1) << 1;
+        return capacity < 0 || capacity > (1 << 27) ? 1 << 27 : capacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setupTable(int numBuckets) {
+        this.keys = (K[]) new Object[numBuckets * SLOTS_PER_BUCKET];
+        this.values = (V[]) new Object[numBuckets * SLOTS_PER_BUCKET];
+        this.bucketMask = numBuckets - 1;
+        this.stashKeys = (K[]) new Object[STASH_SIZE];
+        this.stashValues = (V[]) new Object[STASH_SIZE];
+        this.stashSize = 0;
+        this.seed1 = this.nextRandom();
+        this.seed2 = this.nextRandom();
+    }
+
+    private int nextRandom() {
+        int x = this.random;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        this.random = x;
+        return x;
+    }
+
+    /** The MurmurHash3 32-bit finalizer of h mixed with seed. */
+    private static int mix(int h, int seed) {
+        h ^= seed;
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /** Returns the first slot of the first bucket of a key with hashCode. */
+    private int firstBucket(int hashCode) {
+        return (mix(hashCode, this.seed1) & this.bucketMask) * SLOTS_PER_BUCKET;
+    }
+
+    /** Returns the first slot of the second bucket of a key with hashCode. */
+    private int secondBucket(int hashCode) {
+        return (mix(hashCode, this.seed2) & this.bucketMask) * SLOTS_PER_BUCKET;
+    }
+
+    /**
+     * Returns the slot holding key, -2 - i if key is at index i of the stash,
+     * or -1 if the key is absent.
+     */
+    private int findSlot(K key) {
+        int h = key.hashCode();
+        int b = this.firstBucket(h);
+        for (int i = b; i < b + SLOTS_PER_BUCKET; i++) {
+            K k = this.keys[i];
+            if (k != null && k.equals(key)) {
+                return i;
+            }
+        }
+        b = this.secondBucket(h);
+        for (int i = b; i < b + SLOTS_PER_BUCKET; i++) {
+            K k = this.keys[i];
+            if (k != null && k.equals(key)) {
+                return i;
+            }
+        }
+        for (int i = 0; i < this.stashSize; i++) {
+            if (this.stashKeys[i].equals(key)) {
+                return -2 - i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    @Override
+    public void clear() {
+        this.numItems = 0;
+        this.stashLimit = STASH_SIZE;
+        this.setupTable(this.initialCapacity);
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        return this.findSlot(key) != -1;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     */
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = this.findSlot(key);
+        if (slot >= 0) {
+            return this.values[slot];
+        }
+        return slot == -1 ? null : this.stashValues[-2 - slot];
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return this.numItems;
+    }
+
+    /**
+     * Returns the number of entries that did not fit in either of their
+     * buckets.
+     */
+    public int stashSize() {
+        return this.stashSize;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key,
+     * the old value is replaced.
+     */
+    @Override
+    public void put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = this.findSlot(key);
+        if (slot >= 0) {
+            this.values[slot] = value;
+            return;
+        }
+        if (slot != -1) {
+            this.stashValues[-2 - slot] = value;
+            return;
+        }
+
+        this.numItems += 1;
+        if (this.numItems > this.loadFactor * this.keys.length) {
+            this.stash(key, value);
+            this.rebuild(this.numBuckets() * 2);
+        } else if (!this.place(key, value)) {
+            this.stash(this.homelessKey, this.homelessValue);
+            if (this.stashSize > this.stashLimit) {
+                this.rebuild(this.nextNumBuckets());
+            }
+        }
+    }
+
+    private int numBuckets() {
+        return this.bucketMask + 1;
+    }
+
+    /** Grows the table only if it is loaded enough for growing to help. */
+    private int nextNumBuckets() {
+        if (this.numItems < MIN_GROW_LOAD * this.keys.length) {
+            return this.numBuckets();
+        }
+        return this.numBuckets() * 2;
+    }
+
+    /**
+     * Puts a key that is not in the table into a free slot of one of its
+     * buckets, kicking other entries to their other buckets as needed.
+     * Returns false if some entry, not necessarily key, is left without a
+     * slot; it is then in homelessKey and homelessValue.
+     */
+    private boolean place(K key, V value) {
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            int h = key.hashCode();
+            int b1 = this.firstBucket(h);
+            int b2 = this.secondBucket(h);
+            if (this.placeInBucket(b1, key, value) || this.placeInBucket(b2, key, value)) {
+                return true;
+            }
+
+            int r = this.nextRandom();
+            int victim = ((r & 1) == 0 ? b1 : b2) + ((r >>> 1) & (SLOTS_PER_BUCKET - 1));
+            K k = this.keys[victim];
+            V v = this.values[victim];
+            this.keys[victim] = key;
+            this.values[victim] = value;
+            key = k;
+            value = v;
+        }
+
+        this.homelessKey = key;
+        this.homelessValue = value;
+        return false;
+    }
+
+    private boolean placeInBucket(int bucket, K key, V value) {
+        for (int i = bucket; i < bucket + SLOTS_PER_BUCKET; i++) {
+            if (this.keys[i] == null) {
+                this.keys[i] = key;
+                this.values[i] = value;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void stash(K key, V value) {
+        if (this.stashSize == this.stashKeys.length) {
+            this.stashKeys = Arrays.copyOf(this.stashKeys, this.stashSize * 2);
+            this.stashValues = Arrays.copyOf(this.stashValues, this.stashSize * 2);
+        }
+        this.stashKeys[this.stashSize] = key;
+        this.stashValues[this.stashSize] = value;
+        this.stashSize += 1;
+    }
+
+    /**
+     * Moves every entry into a new table of numBuckets buckets with new
+     * seeds, retrying with new seeds, and more buckets if the table is loaded
+     * enough, until the stash fits. If MAX_RESEEDS attempts do not get there,
+     * the keys share hash codes and the stash is left to hold them.
+     */
+    private void rebuild(int numBuckets) {
+        K[] oldKeys = this.keys;
+        V[] oldValues = this.values;
+        K[] oldStashKeys = this.stashKeys;
+        V[] oldStashValues = this.stashValues;
+        int oldStashSize = this.stashSize;
+
+        for (int attempt = 1; ; attempt++) {
+            this.setupTable(numBuckets);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null && !this.place(oldKeys[i], oldValues[i])) {
+                    this.stash(this.homelessKey, this.homelessValue);
+                }
+            }
+            for (int i = 0; i < oldStashSize; i++) {
+                if (!this.place(oldStashKeys[i], oldStashValues[i])) {
+                    this.stash(this.homelessKey, this.homelessValue);
+                }
+            }
+
+            if (this.stashSize <= STASH_SIZE || attempt == MAX_RESEEDS) {
+                break;
+            }
+            numBuckets = this.nextNumBuckets();
+        }
+
+        this.homelessKey = null;
+        this.homelessValue = null;
+        // an oversized stash has to double before the next rebuild is tried
+        this.stashLimit = Math.max(STASH_SIZE, this.stashSize * 2);
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     */
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = this.findSlot(key);
+        if (slot == -1) {
+            return null;
+        }
+
+        return this.removeSlot(slot);
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to
+     * the specified value. Returns the removed value, or null if nothing was
+     * removed.
+     */
+    @Override
+    public V remove(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = this.findSlot(key);
+        if (slot == -1) {
+            return null;
+        }
+        V oldValue = slot >= 0 ? this.values[slot] : this.stashValues[-2 - slot];
+        if (!Objects.equals(oldValue, value)) {
+            return null;
+        }
+
+        return this.removeSlot(slot);
+    }
+
+    /** Empties a slot as returned by findSlot() and returns its value. */
+    private V removeSlot(int slot) {
+        V oldValue;
+        if (slot >= 0) {
+            oldValue = this.values[slot];
+            this.keys[slot] = null;
+            this.values[slot] = null;
+        } else {
+            int i = -2 - slot;
+            oldValue = this.stashValues[i];
+            this.stashSize -= 1;
+            this.stashKeys[i] = this.stashKeys[this.stashSize];
+            this.stashValues[i] = this.stashValues[this.stashSize];
+            this.stashKeys[this.stashSize] = null;
+            this.stashValues[this.stashSize] = null;
+        }
+        this.numItems -= 1;
+        return oldValue;
+    }
+
+    private class CuckooIterator implements Iterator<K> {
+        private int slot;
+        private int remaining;
+
+        CuckooIterator() {
+            this.slot = 0;
+            this.remaining = numItems;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        @Override
+        public K next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            this.remaining -= 1;
+            while (this.slot < keys.length && keys[this.slot] == null) {
+                this.slot += 1;
+            }
+            if (this.slot < keys.length) {
+                return keys[this.slot++];
+            }
+            // the stash comes after the table
+            return stashKeys[this.slot++ - keys.length];
+        }
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new CuckooIterator();
+    }
+
+    /**
+     * Returns a Set view of the keys contained in this map.
+     */
+    @Override
+    public Set<K> keySet() {
+        HashSet<K> keySet = new HashSet<>();
+        for (K key : this) {
+            keySet.add(key);
+        }
+
+        return keySet;
+    }
+}
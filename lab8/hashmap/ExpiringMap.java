@@ -0,0 +1,426 @@
+package hashmap;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * A Map61B whose entries can expire. put(key, value, ttl) maps key to value
+ * for ttl milliseconds; after that the entry is gone from get(),
+ * containsKey(), size() and keySet(). put(key, value) keeps the deadline of
+ * a key that is already there, and a new key it adds never expires.
+ * <p>
+ * Deadlines are kept in a hierarchical timing wheel: LEVELS wheels of
+ * SLOTS slots each, where a slot of level l spans SLOTS^l ticks. An entry is
+ * put in the slot of the lowest level whose span reaches its deadline, and
+ * each slot is a doubly linked list, so scheduling and cancelling are O(1).
+ * Advancing the clock by a tick expires the entries of one level-0 slot,
+ * and every SLOTS^l ticks the next slot of level l is emptied into the
+ * levels below (a cascade). Each entry cascades at most LEVELS - 1 times,
+ * so expiring costs O(1) amortized per entry plus O(1) per elapsed tick.
+ * Deadlines past the reach of the top wheel wait in its last slot and are
+ * scheduled again when it cascades.
+ * <p>
+ * Expired entries are removed lazily, by every operation before it runs,
+ * or in the background by a sweeper started with startSweeper(). The clock
+ * is a LongSupplier of milliseconds, which tests can replace. All methods
+ * are synchronized, so the sweeper may run while other threads use the map.
+ * The upsert defaults of Map61B are not atomic.
+ * Assumes null keys and null values will never be inserted.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class ExpiringMap<K, V> implements Map61B<K, V> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;
+    private static final long NEVER = Long.MAX_VALUE;
+    /** The index into heads of the entries that expire during currentTick. */
+    private static final int PENDING = LEVELS * SLOTS;
+    /** Reads System.nanoTime() in milliseconds. */
+    private static final LongSupplier SYSTEM_CLOCK = () -> System.nanoTime() / 1_000_000;
+
+    /** An entry of the map, linked into a wheel slot unless it never expires. */
+    private static class Entry<K, V> {
+        private final K key;
+        private V value;
+        private long expiresAt;
+        private long expireTick;
+        /* the index into heads of the slot holding this entry, -1 if none */
+        private int slot = -1;
+        private Entry<K, V> prev;
+        private Entry<K, V> next;
+
+        Entry(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /* Instance Variables */
+    private final MyHashMap<K, Entry<K, V>> entries = new MyHashMap<>();
+    private final LongSupplier clock;
+    private final long tickMillis;
+    /* LEVELS * SLOTS list heads, level by level, then the pending list */
+    private final Entry<K, V>[] heads;
+    /* the tick the wheel is in; every earlier tick has been expired */
+    private long currentTick;
+    private int scheduled;
+    private long expirations;
+    private ScheduledExecutorService sweeper;
+
+    /**
+     * Creates a map with 1 millisecond ticks on the system clock.
+     */
+    public ExpiringMap() {
+        this(1, SYSTEM_CLOCK);
+    }
+
+    /**
+     * Creates a map with ticks of tickMillis on clock. Longer ticks mean
+     * fewer ticks to step through, but every operation checks the entries
+     * due in the running tick one by one.
+     *
+     * @param tickMillis the length of a tick of the wheel, in milliseconds
+     * @param clock      returns the current time in milliseconds
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ExpiringMap(long tickMillis, LongSupplier clock) {
+        if (tickMillis <= 0 || clock == null) {
+            throw new IllegalArgumentException();
+        }
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        this.heads = (Entry<K, V>[]) new Entry[LEVELS * SLOTS + 1];
+        this.currentTick = Math.floorDiv(clock.getAsLong(), tickMillis);
+    }
+
+    /* ------------------------------- Timing wheel ------------------------------- */
+
+    /** Links entry into the slot its expireTick belongs to. */
+    private void schedule(Entry<K, V> entry) {
+        long delta = entry.expireTick - this.currentTick;
+        int slot;
+        if (delta <= 0) {
+            slot = PENDING;
+        } else {
+            int level = 0;
+            while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+                level += 1;
+            }
+            long tick = entry.expireTick;
+            if (delta >= 1L << (SLOT_BITS * LEVELS)) {
+                // beyond the top wheel: wait in its last slot and be scheduled again
+                tick = this.currentTick + ((long) (SLOTS - 1) << (SLOT_BITS * level));
+            }
+            slot = level * SLOTS + (int) ((tick >> (SLOT_BITS * level)) & (SLOTS - 1));
+        }
+        this.link(entry, slot);
+    }
+
+    private void link(Entry<K, V> entry, int slot) {
+        entry.slot = slot;
+        entry.prev = null;
+        entry.next = this.heads[slot];
+        if (entry.next != null) {
+            entry.next.prev = entry;
+        }
+        this.heads[slot] = entry;
+        this.scheduled += 1;
+    }
+
+    private void unschedule(Entry<K, V> entry) {
+        if (entry.slot < 0) {
+            return;
+        }
+        if (entry.prev == null) {
+            this.heads[entry.slot] = entry.next;
+        } else {
+            entry.prev.next = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.slot = -1;
+        entry.prev = null;
+        entry.next = null;
+        this.scheduled -= 1;
+    }
+
+    /** Unlinks every entry of slot and returns them as a list through next. */
+    private Entry<K, V> takeSlot(int slot) {
+        Entry<K, V> list = this.heads[slot];
+        this.heads[slot] = null;
+        for (Entry<K, V> e = list; e != null; e = e.next) {
+            e.slot = -1;
+            this.scheduled -= 1;
+        }
+        return list;
+    }
+
+    /** Moves the entries of level's current slot into the levels below. */
+    private void cascade(int level) {
+        int slot = level * SLOTS
+                + (int) ((this.currentTick >> (SLOT_BITS * level)) & (SLOTS - 1));
+        Entry<K, V> e = this.takeSlot(slot);
+        while (e != null) {
+            Entry<K, V> next = e.next;
+            this.schedule(e);
+            e = next;
+        }
+    }
+
+    /**
+     * Moves the wheel forward tick by tick to nowTick. Entering a tick
+     * expires everything left pending from the tick before, whose deadlines
+     * have all passed, runs the cascades that are due, and makes the tick's
+     * level-0 slot the new pending list.
+     */
+    private void advance(long nowTick) {
+        while (this.currentTick < nowTick) {
+            if (this.scheduled == 0) {
+                this.currentTick = nowTick;
+                return;
+            }
+            this.expireAll(this.takeSlot(PENDING));
+            this.currentTick += 1;
+            for (int level = 1; level < LEVELS; level++) {
+                long mask = (1L << (SLOT_BITS * level)) - 1;
+                if ((this.currentTick & mask) != 0) {
+                    break;
+                }
+                this.cascade(level);
+            }
+            Entry<K, V> e = this.takeSlot((int) (this.currentTick & (SLOTS - 1)));
+            while (e != null) {
+                Entry<K, V> next = e.next;
+                this.link(e, PENDING);
+                e = next;
+            }
+        }
+    }
+
+    private void expireAll(Entry<K, V> list) {
+        Entry<K, V> e = list;
+        while (e != null) {
+            Entry<K, V> next = e.next;
+            this.expire(e);
+            e = next;
+        }
+    }
+
+    private void expire(Entry<K, V> entry) {
+        entry.prev = null;
+        entry.next = null;
+        this.entries.remove(entry.key);
+        this.expirations += 1;
+    }
+
+    /**
+     * Expires every entry whose deadline has passed. The wheel takes care of
+     * whole ticks; the pending entries, whose deadlines fall inside the tick
+     * that is still running, are checked one by one.
+     */
+    private void expireDue() {
+        long now = this.clock.getAsLong();
+        this.advance(Math.floorDiv(now, this.tickMillis));
+        Entry<K, V> e = this.heads[PENDING];
+        while (e != null) {
+            Entry<K, V> next = e.next;
+            if (e.expiresAt <= now) {
+                this.unschedule(e);
+                this.expire(e);
+            }
+            e = next;
+        }
+    }
+
+    /* ------------------------------- Map61B ------------------------------- */
+
+    /**
+     * Associates value with key for ttlMillis milliseconds, replacing any
+     * value and deadline key had.
+     */
+    public synchronized void put(K key, V value, long ttlMillis) {
+        if (key == null || value == null || ttlMillis <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.expireDue();
+        long now = this.clock.getAsLong();
+        long expiresAt = now + ttlMillis < now ? NEVER : now + ttlMillis;
+        this.putEntry(key, value, expiresAt);
+    }
+
+    /**
+     * Associates value with key. A key that is already in the map keeps its
+     * deadline; a new key never expires.
+     */
+    @Override
+    public synchronized void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+        this.expireDue();
+        Entry<K, V> entry = this.entries.get(key);
+        if (entry != null) {
+            entry.value = value;
+            return;
+        }
+        this.putEntry(key, value, NEVER);
+    }
+
+    private void putEntry(K key, V value, long expiresAt) {
+        Entry<K, V> entry = this.entries.get(key);
+        if (entry == null) {
+            entry = new Entry<>(key, value, expiresAt);
+            this.entries.put(key, entry);
+        } else {
+            this.unschedule(entry);
+            entry.value = value;
+            entry.expiresAt = expiresAt;
+        }
+        if (expiresAt != NEVER) {
+            entry.expireTick = Math.floorDiv(expiresAt, this.tickMillis);
+            this.schedule(entry);
+        }
+    }
+
+    @Override
+    public synchronized V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        this.expireDue();
+        Entry<K, V> entry = this.entries.get(key);
+        return entry == null ? null : entry.value;
+    }
+
+    @Override
+    public synchronized boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        this.expireDue();
+        return this.entries.containsKey(key);
+    }
+
+    /**
+     * Returns the milliseconds key has left before it expires, Long.MAX_VALUE
+     * if it never does, or -1 if it is absent.
+     */
+    public synchronized long timeToLive(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        this.expireDue();
+        Entry<K, V> entry = this.entries.get(key);
+        if (entry == null) {
+            return -1;
+        }
+        return entry.expiresAt == NEVER ? NEVER : entry.expiresAt - this.clock.getAsLong();
+    }
+
+    @Override
+    public synchronized int size() {
+        this.expireDue();
+        return this.entries.size();
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.entries.clear();
+        for (int i = 0; i < this.heads.length; i++) {
+            this.heads[i] = null;
+        }
+        this.scheduled = 0;
+    }
+
+    @Override
+    public synchronized V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        this.expireDue();
+        Entry<K, V> entry = this.entries.remove(key);
+        if (entry == null) {
+            return null;
+        }
+        this.unschedule(entry);
+        return entry.value;
+    }
+
+    @Override
+    public synchronized V remove(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        this.expireDue();
+        Entry<K, V> entry = this.entries.get(key);
+        if (entry == null || !entry.value.equals(value)) {
+            return null;
+        }
+        this.entries.remove(key);
+        this.unschedule(entry);
+        return entry.value;
+    }
+
+    /** Returns a snapshot of the keys that have not expired. */
+    @Override
+    public synchronized Set<K> keySet() {
+        this.expireDue();
+        return new HashSet<>(this.entries.keySet());
+    }
+
+    /** Returns an iterator over a snapshot of the keys, see keySet(). */
+    @Override
+    public Iterator<K> iterator() {
+        return this.keySet().iterator();
+    }
+
+    /** Returns the number of entries that have expired so far. */
+    public synchronized long expirations() {
+        return this.expirations;
+    }
+
+    /* ------------------------------- Sweeper ------------------------------- */
+
+    /**
+     * Starts a daemon thread that expires due entries every periodMillis,
+     * so that entries nobody looks at again do not hold memory. Does nothing
+     * if a sweeper is already running.
+     */
+    public synchronized void startSweeper(long periodMillis) {
+        if (periodMillis <= 0) {
+            throw new IllegalArgumentException();
+        }
+        if (this.sweeper != null) {
+            return;
+        }
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ExpiringMap sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sweeper.scheduleWithFixedDelay(this::sweep, periodMillis, periodMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /** Stops the sweeper, if one is running. */
+    public synchronized void stopSweeper() {
+        if (this.sweeper != null) {
+            this.sweeper.shutdownNow();
+            this.sweeper = null;
+        }
+    }
+
+    private synchronized void sweep() {
+        this.expireDue();
+    }
+}
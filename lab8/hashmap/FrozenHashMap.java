@@ -0,0 +1,486 @@
+package hashmap;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable map over a minimal perfect hash of its keys. The n entries
+ * sit in dense arrays of n slots, and the perfect hash sends every key to its
+ * own slot, so get() costs one hash, one slot and one equals(), however the
+ * keys would have collided in a hash table.
+ * <p>
+ * The perfect hash is built the PTHash way. The keys are split into
+ * partitions of about PARTITION_SIZE keys, by the high bits of their hash,
+ * and each partition gets its own function. That function puts every key
+ * into a bucket of about LAMBDA keys and stores one pilot per bucket. A key
+ * goes to the position given by hashing its hash with the pilot of its
+ * bucket. The pilots are found by trying 0, 1, 2, ... for each bucket,
+ * biggest bucket first, until no key of the bucket lands on a taken
+ * position. The positions range over n / ALPHA slots, a little more than n,
+ * so the search stays short. The few keys that land past n are then remapped
+ * to the free slots below n. The partitions are independent, so they are
+ * built in parallel.
+ * <p>
+ * A perfect hash cannot separate keys with equal hash codes. The first key
+ * of such a group gets the slot, and the others are kept in a small overflow
+ * MyHashMap that is only looked at when a lookup finds the right hash code
+ * but the wrong key.
+ * <p>
+ * put(), remove() and clear() throw UnsupportedOperationException. Use
+ * MyHashMap.freeze() to make one.
+ */
+public class FrozenHashMap<K, V> implements Map61B<K, V> {
+
+    /** The number of keys each partition aims for. */
+    private static final int PARTITION_SIZE = 4096;
+    /** The average number of keys per bucket, so 16 / LAMBDA bits of pilot per key. */
+    private static final double LAMBDA = 4.0;
+    /** The fraction of positions that keys fill before the remap. */
+    private static final double ALPHA = 0.97;
+    /** Pilots tried per bucket before the partition is retried with a new seed. */
+    private static final int MAX_PILOT = 1 << 16;
+    private static final long GOLDEN = 0x9E3779B97F4A7C15L;
+    private static final long MASK32 = 0xFFFFFFFFL;
+
+    /*
+     * The fields of a partition in layout, so a lookup finds them all in one
+     * cache line instead of one array each.
+     */
+    private static final int SLOT_BASE = 0;
+    private static final int NUM_SLOTS = 1;
+    private static final int BUCKET_BASE = 2;
+    private static final int NUM_BUCKETS = 3;
+    private static final int TABLE_SIZE = 4;
+    private static final int REMAP_BASE = 5;
+    private static final int SEED_LOW = 6;
+    private static final int SEED_HIGH = 7;
+    private static final int STRIDE = 8;
+
+    /* Instance Variables */
+    private final int numItems;
+    private final int numPartitions;
+    private final int[] layout;
+    /* pilots are below MAX_PILOT, so they fit in a char */
+    private final char[] pilots;
+    private final int[] remap;
+    /* the dense entries, key of slot i at 2 * i and its value at 2 * i + 1 */
+    private final Object[] entries;
+    /* the hash of the key in every slot, to turn most misses away without equals() */
+    private final int[] hashes;
+    /* the keys whose hash codes were already taken, or null if there were none */
+    private final MyHashMap<K, V> overflow;
+
+    /**
+     * Builds a frozen copy of the entries of map. Entries with null values
+     * are left out.
+     */
+    @SuppressWarnings("unchecked")
+    public FrozenHashMap(Map61B<K, V> map) {
+        List<K> keyList = new ArrayList<>(map.size());
+        List<V> valueList = new ArrayList<>(map.size());
+        map.forEach((k, v) -> {
+            if (v != null) {
+                keyList.add(k);
+                valueList.add(v);
+            }
+        });
+        K[] inKeys = (K[]) keyList.toArray();
+        V[] inValues = (V[]) valueList.toArray();
+        int n = inKeys.length;
+
+        // scatter the keys into partitions, keeping each with its hash
+        this.numPartitions = Math.max(1, n / PARTITION_SIZE);
+        int[] inHashes = new int[n];
+        int[] partitionStart = new int[this.numPartitions + 1];
+        for (int i = 0; i < n; i++) {
+            inHashes[i] = hash(inKeys[i]);
+            partitionStart[this.partitionOf(inHashes[i]) + 1] += 1;
+        }
+        for (int p = 0; p < this.numPartitions; p++) {
+            partitionStart[p + 1] += partitionStart[p];
+        }
+        long[] packed = new long[n];
+        int[] fill = Arrays.copyOf(partitionStart, this.numPartitions);
+        for (int i = 0; i < n; i++) {
+            packed[fill[this.partitionOf(inHashes[i])]++] = ((long) inHashes[i] << 32) | i;
+        }
+
+        // sort each partition by hash, so equal hash codes sit together
+        int[] distinct = new int[this.numPartitions];
+        IntStream.range(0, this.numPartitions).parallel().forEach(p -> {
+            int from = partitionStart[p];
+            int to = partitionStart[p + 1];
+            Arrays.sort(packed, from, to);
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (i == from || (packed[i] >>> 32) != (packed[i - 1] >>> 32)) {
+                    count += 1;
+                }
+            }
+            distinct[p] = count;
+        });
+
+        this.layout = new int[this.numPartitions * STRIDE];
+        int numSlots = 0;
+        int numBuckets = 0;
+        int numRemapped = 0;
+        for (int p = 0; p < this.numPartitions; p++) {
+            int np = distinct[p];
+            int at = p * STRIDE;
+            this.layout[at + SLOT_BASE] = numSlots;
+            this.layout[at + NUM_SLOTS] = np;
+            this.layout[at + BUCKET_BASE] = numBuckets;
+            this.layout[at + NUM_BUCKETS] = bucketsFor(np);
+            this.layout[at + TABLE_SIZE] = tableSizeFor(np);
+            this.layout[at + REMAP_BASE] = numRemapped;
+            numSlots += np;
+            numBuckets += bucketsFor(np);
+            numRemapped += tableSizeFor(np) - np;
+        }
+
+        this.numItems = n;
+        this.pilots = new char[numBuckets];
+        this.remap = new int[numRemapped];
+        this.entries = new Object[numSlots * 2];
+        this.hashes = new int[numSlots];
+
+        IntStream.range(0, this.numPartitions).parallel().forEach(p ->
+                this.buildPartition(p, packed, partitionStart[p], partitionStart[p + 1],
+                        inKeys, inValues));
+
+        // keys whose hash code was already taken by another key
+        MyHashMap<K, V> dups = null;
+        for (int i = 1; i < n; i++) {
+            if ((packed[i] >>> 32) == (packed[i - 1] >>> 32)) {
+                if (dups == null) {
+                    dups = new MyHashMap<>();
+                }
+                int index = (int) packed[i];
+                dups.put(inKeys[index], inValues[index]);
+            }
+        }
+        this.overflow = dups;
+    }
+
+    /** The MurmurHash3 32-bit finalizer; a bijection, so distinct hash codes stay distinct. */
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /** The MurmurHash3 64-bit finalizer. */
+    private static long mix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /** Maps the 32 bits of x uniformly onto [0, n) with a multiply and shift. */
+    private static int range(long x, int n) {
+        return (int) (((x & MASK32) * n) >>> 32);
+    }
+
+    private static int tableSizeFor(int np) {
+        return np == 0 ? 0 : Math.max(np, (int) Math.ceil(np / ALPHA));
+    }
+
+    private static int bucketsFor(int np) {
+        return np == 0 ? 0 : (int) Math.ceil(np / LAMBDA);
+    }
+
+    private int partitionOf(int h) {
+        return range(h, this.numPartitions);
+    }
+
+    private static long keyHash(int h, long seed) {
+        return mix64((h & MASK32) ^ seed);
+    }
+
+    /** Returns the position in [0, tableSize) of a key with keyHash in a bucket with pilot. */
+    private static int position(long keyHash, int pilot, int tableSize) {
+        return range(mix64(keyHash ^ (pilot * GOLDEN)) >>> 32, tableSize);
+    }
+
+    /**
+     * Finds the seed, pilots and remap of partition p, whose keys are
+     * packed[from, to) sorted by hash, and moves its entries into their slots.
+     * Only the first key of every run of equal hashes gets a slot.
+     */
+    private void buildPartition(int p, long[] packed, int from, int to, K[] inKeys, V[] inValues) {
+        int at = p * STRIDE;
+        int np = this.layout[at + NUM_SLOTS];
+        if (np == 0) {
+            return;
+        }
+        int[] hs = new int[np];
+        int[] index = new int[np];
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (i == from || (packed[i] >>> 32) != (packed[i - 1] >>> 32)) {
+                hs[count] = (int) (packed[i] >>> 32);
+                index[count] = (int) packed[i];
+                count += 1;
+            }
+        }
+
+        int tableSize = this.layout[at + TABLE_SIZE];
+        int numBuckets = this.layout[at + NUM_BUCKETS];
+        int remapBase = this.layout[at + REMAP_BASE];
+        char[] partPilots = new char[numBuckets];
+        int[] pos = new int[np];
+        long seed = p * GOLDEN;
+        while (!searchPilots(hs, seed, numBuckets, tableSize, partPilots, pos)) {
+            seed = mix64(seed + 1);
+        }
+        this.layout[at + SEED_LOW] = (int) seed;
+        this.layout[at + SEED_HIGH] = (int) (seed >>> 32);
+        System.arraycopy(partPilots, 0, this.pilots, this.layout[at + BUCKET_BASE], numBuckets);
+
+        // hand the positions past np the free slots below np, in order
+        boolean[] taken = new boolean[tableSize];
+        for (int position : pos) {
+            taken[position] = true;
+        }
+        int free = 0;
+        for (int position = np; position < tableSize; position++) {
+            if (taken[position]) {
+                while (taken[free]) {
+                    free += 1;
+                }
+                this.remap[remapBase + position - np] = free;
+                free += 1;
+            }
+        }
+
+        for (int i = 0; i < np; i++) {
+            int slot = pos[i] < np ? pos[i] : this.remap[remapBase + pos[i] - np];
+            slot += this.layout[at + SLOT_BASE];
+            this.hashes[slot] = hs[i];
+            this.entries[2 * slot] = inKeys[index[i]];
+            this.entries[2 * slot + 1] = inValues[index[i]];
+        }
+    }
+
+    /**
+     * Tries to find a pilot for every bucket of the distinct hashes hs under
+     * seed. On success fills pilots and the position of every key, and
+     * returns true; returns false if some bucket ran out of pilots.
+     */
+    private static boolean searchPilots(int[] hs, long seed, int numBuckets, int tableSize,
+                                        char[] pilots, int[] pos) {
+        int np = hs.length;
+        long[] kh = new long[np];
+        int[] bucketStart = new int[numBuckets + 1];
+        for (int i = 0; i < np; i++) {
+            kh[i] = keyHash(hs[i], seed);
+            bucketStart[range(kh[i] >>> 32, numBuckets) + 1] += 1;
+        }
+        int maxSize = 0;
+        for (int b = 0; b < numBuckets; b++) {
+            maxSize = Math.max(maxSize, bucketStart[b + 1]);
+            bucketStart[b + 1] += bucketStart[b];
+        }
+        int[] members = new int[np];
+        int[] fill = Arrays.copyOf(bucketStart, numBuckets);
+        for (int i = 0; i < np; i++) {
+            members[fill[range(kh[i] >>> 32, numBuckets)]++] = i;
+        }
+
+        // visit the buckets biggest first, by a counting sort on their sizes
+        int[] sizeStart = new int[maxSize + 2];
+        for (int b = 0; b < numBuckets; b++) {
+            sizeStart[maxSize - (bucketStart[b + 1] - bucketStart[b]) + 1] += 1;
+        }
+        for (int s = 0; s <= maxSize; s++) {
+            sizeStart[s + 1] += sizeStart[s];
+        }
+        int[] order = new int[numBuckets];
+        for (int b = 0; b < numBuckets; b++) {
+            order[sizeStart[maxSize - (bucketStart[b + 1] - bucketStart[b])]++] = b;
+        }
+
+        boolean[] taken = new boolean[tableSize];
+        int[] tried = new int[maxSize];
+        for (int b : order) {
+            int from = bucketStart[b];
+            int size = bucketStart[b + 1] - from;
+            int pilot = 0;
+            search:
+            for (; pilot < MAX_PILOT; pilot++) {
+                for (int j = 0; j < size; j++) {
+                    int position = position(kh[members[from + j]], pilot, tableSize);
+                    if (taken[position]) {
+                        for (int k = 0; k < j; k++) {
+                            taken[tried[k]] = false;
+                        }
+                        continue search;
+                    }
+                    taken[position] = true;
+                    tried[j] = position;
+                }
+                break;
+            }
+            if (pilot == MAX_PILOT) {
+                return false;
+            }
+            pilots[b] = (char) pilot;
+            for (int j = 0; j < size; j++) {
+                pos[members[from + j]] = tried[j];
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the slot that a key with hash h would be in, or -1 if its
+     * partition is empty.
+     */
+    private int slotOf(int h) {
+        int at = this.partitionOf(h) * STRIDE;
+        int np = this.layout[at + NUM_SLOTS];
+        if (np == 0) {
+            return -1;
+        }
+
+        long seed = ((long) this.layout[at + SEED_HIGH] << 32) | (this.layout[at + SEED_LOW] & MASK32);
+        long kh = keyHash(h, seed);
+        int bucket = this.layout[at + BUCKET_BASE] + range(kh >>> 32, this.layout[at + NUM_BUCKETS]);
+        int position = position(kh, this.pilots[bucket], this.layout[at + TABLE_SIZE]);
+        if (position >= np) {
+            position = this.remap[this.layout[at + REMAP_BASE] + position - np];
+        }
+        return this.layout[at + SLOT_BASE] + position;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int h = hash(key);
+        int slot = this.slotOf(h);
+        if (slot < 0) {
+            return null;
+        }
+        // the same key object is the common hit, and needs no equals()
+        if (this.entries[2 * slot] == key) {
+            return (V) this.entries[2 * slot + 1];
+        }
+        if (this.hashes[slot] != h) {
+            return null;
+        }
+        if (key.equals(this.entries[2 * slot])) {
+            return (V) this.entries[2 * slot + 1];
+        }
+        return this.overflow == null ? null : this.overflow.get(key);
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return this.numItems;
+    }
+
+    /**
+     * Returns the number of bits the perfect hash uses per key, for its
+     * pilots, seeds, offsets and remap table.
+     */
+    public double bitsPerKey() {
+        if (this.numItems == 0) {
+            return 0;
+        }
+        long ints = this.remap.length + (long) this.layout.length;
+        return (ints * 32.0 + this.pilots.length * 16.0) / this.numItems;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(K key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    private class FrozenIterator implements Iterator<K> {
+        private int slot;
+        private Iterator<K> overflowIter;
+
+        FrozenIterator() {
+            this.slot = 0;
+            this.overflowIter = overflow == null ? null : overflow.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return 2 * this.slot < entries.length
+                    || (this.overflowIter != null && this.overflowIter.hasNext());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (2 * this.slot < entries.length) {
+                return (K) entries[2 * this.slot++];
+            }
+            return this.overflowIter.next();
+        }
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new FrozenIterator();
+    }
+
+    /**
+     * Returns a Set of the keys contained in this map.
+     */
+    @Override
+    public Set<K> keySet() {
+        HashSet<K> keySet = new HashSet<>();
+        for (K key : this) {
+            keySet.add(key);
+        }
+
+        return keySet;
+    }
+}
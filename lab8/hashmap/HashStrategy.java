@@ -0,0 +1,58 @@
+package hashmap;
+
+/**
+ * Maps a key's hash code to a bucket of a table. MyHashMap and its bucket
+ * subclasses take a HashStrategy in their constructors; the default is
+ * MODULO, which uses the raw hash code.
+ * <p>
+ * Strategies that mix the bits of the hash code first keep keys with
+ * regular hash codes, like sequential strings, from piling into a few
+ * buckets. Use MyHashMap.stats() to compare them on a workload.
+ */
+public interface HashStrategy {
+
+    /** Returns the bucket in [0, numBuckets) that a key with hashCode goes to. */
+    int bucketOf(int hashCode, int numBuckets);
+
+    /** floorMod of the raw hash code. */
+    HashStrategy MODULO = Standard.MODULO;
+
+    /** floorMod of the hash code after the MurmurHash3 32-bit finalizer. */
+    HashStrategy MURMUR3 = Standard.MURMUR3;
+
+    /**
+     * Fibonacci (multiplicative) hashing. On power-of-two tables this takes
+     * the top bits of hashCode * 2^32 / phi; on other sizes those 32 bits are
+     * scaled into the table with a multiply and shift instead of a division.
+     */
+    HashStrategy FIBONACCI = Standard.FIBONACCI;
+
+    /** The strategies that ship with the hashmap package. */
+    enum Standard implements HashStrategy {
+        MODULO {
+            @Override
+            public int bucketOf(int hashCode, int numBuckets) {
+                return Math.floorMod(hashCode, numBuckets);
+            }
+        },
+        MURMUR3 {
+            @Override
+            public int bucketOf(int hashCode, int numBuckets) {
+                int h = hashCode;
+                h ^= h >>> 16;
+                h *= 0x85EBCA6B;
+                h ^= h >>> 13;
+                h *= 0xC2B2AE35;
+                h ^= h >>> 16;
+                return Math.floorMod(h, numBuckets);
+            }
+        },
+        FIBONACCI {
+            @Override
+            public int bucketOf(int hashCode, int numBuckets) {
+                long mixed = (hashCode * 0x9E3779B9) & 0xFFFFFFFFL;
+                return (int) ((mixed * numBuckets) >>> 32);
+            }
+        }
+    }
+}
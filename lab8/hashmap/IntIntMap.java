@@ -0,0 +1,257 @@
+package hashmap;
+
+/**
+ * A hash map from primitive int keys to primitive int values, backed by two
+ * int[] arrays probed with linear probing. Nothing is boxed and nothing is
+ * allocated per put. Missing keys read as 0; use containsKey() to tell them
+ * apart.
+ * <p>
+ * Key 0 marks an empty slot in the key array, so a mapping for key 0 is kept
+ * in separate fields instead.
+ */
+public class IntIntMap {
+
+    private static final int RESIZE_FACTOR = 2;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.5;
+    private static final int FREE_KEY = 0;
+
+    /* Instance Variables */
+    private int[] keys;
+    private int[] values;
+    private int numItems = 0;
+    private int mask;
+    private boolean hasFreeKey = false;
+    private int freeKeyValue = 0;
+    private final double loadFactor;
+    private final int initialCapacity;
+
+    /**
+     * Constructors
+     */
+    public IntIntMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public IntIntMap(int initialSize) {
+        this(initialSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * IntIntMap constructor that creates backing arrays of at least
+     * initialSize slots, rounded up to a power of two.
+     *
+     * @param initialSize initial size of backing arrays
+     * @param maxLoad     maximum load factor, must be in (0, 1)
+     */
+    public IntIntMap(int initialSize, double maxLoad) {
+        if (initialSize <= 0 || maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.loadFactor = maxLoad;
+        this.initialCapacity = tableSizeFor(initialSize);
+        this.setupTable(this.initialCapacity);
+    }
+
+    private static int tableSizeFor(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size, 2) - 1) << 1;
+        return capacity < 0 ? 1 << 30 : capacity;
+    }
+
+    private void setupTable(int capacity) {
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private int slotOf(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & this.mask;
+    }
+
+    /**
+     * Returns the slot holding key if present, otherwise the bitwise
+     * complement of the empty slot where it would be inserted.
+     */
+    private int probe(int key) {
+        int slot = this.slotOf(key);
+        int k;
+        while ((k = this.keys[slot]) != FREE_KEY) {
+            if (k == key) {
+                return slot;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+
+        return ~slot;
+    }
+
+    /** Removes all of the mappings from this map. */
+    public void clear() {
+        this.numItems = 0;
+        this.hasFreeKey = false;
+        this.freeKeyValue = 0;
+        this.setupTable(this.initialCapacity);
+    }
+
+    /** Returns the number of key-value mappings in this map. */
+    public int size() {
+        return this.numItems;
+    }
+
+    /** Returns true if this map contains a mapping for the specified key. */
+    public boolean containsKey(int key) {
+        if (key == FREE_KEY) {
+            return this.hasFreeKey;
+        }
+
+        return this.probe(key) >= 0;
+    }
+
+    /** Returns the value mapped to key, or 0 if there is no mapping. */
+    public int getInt(int key) {
+        if (key == FREE_KEY) {
+            return this.freeKeyValue;
+        }
+
+        int slot = this.probe(key);
+        return slot < 0 ? 0 : this.values[slot];
+    }
+
+    /**
+     * Maps key to value and returns the previous value, or 0 if the key
+     * was absent.
+     */
+    public int putInt(int key, int value) {
+        if (key == FREE_KEY) {
+            int oldValue = this.freeKeyValue;
+            this.setFreeKey(value);
+            return oldValue;
+        }
+
+        int slot = this.probe(key);
+        if (slot >= 0) {
+            int oldValue = this.values[slot];
+            this.values[slot] = value;
+            return oldValue;
+        }
+
+        this.insertAt(~slot, key, value);
+        return 0;
+    }
+
+    /**
+     * Adds increment to the value mapped to key, treating a missing key as 0,
+     * and returns the new value.
+     */
+    public int addTo(int key, int increment) {
+        if (key == FREE_KEY) {
+            this.setFreeKey(this.freeKeyValue + increment);
+            return this.freeKeyValue;
+        }
+
+        int slot = this.probe(key);
+        if (slot >= 0) {
+            this.values[slot] += increment;
+            return this.values[slot];
+        }
+
+        this.insertAt(~slot, key, increment);
+        return increment;
+    }
+
+    private void setFreeKey(int value) {
+        if (!this.hasFreeKey) {
+            this.hasFreeKey = true;
+            this.numItems += 1;
+        }
+        this.freeKeyValue = value;
+    }
+
+    private void insertAt(int slot, int key, int value) {
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        this.numItems += 1;
+
+        if (this.numItems > this.loadFactor * this.keys.length) {
+            this.resize(this.keys.length * RESIZE_FACTOR);
+        }
+    }
+
+    private void resize(int newCapacity) {
+        int[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.setupTable(newCapacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key == FREE_KEY) {
+                continue;
+            }
+
+            int slot = this.slotOf(key);
+            while (this.keys[slot] != FREE_KEY) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.keys[slot] = key;
+            this.values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Removes the mapping for key and returns its value, or 0 if the key
+     * was absent.
+     */
+    public int removeInt(int key) {
+        if (key == FREE_KEY) {
+            int oldValue = this.freeKeyValue;
+            if (this.hasFreeKey) {
+                this.hasFreeKey = false;
+                this.freeKeyValue = 0;
+                this.numItems -= 1;
+            }
+            return oldValue;
+        }
+
+        int slot = this.probe(key);
+        if (slot < 0) {
+            return 0;
+        }
+
+        int oldValue = this.values[slot];
+        int gap = slot;
+        int curr = (gap + 1) & this.mask;
+        int k;
+        while ((k = this.keys[curr]) != FREE_KEY) {
+            int home = this.slotOf(k);
+            if (((curr - home) & this.mask) >= ((curr - gap) & this.mask)) {
+                this.keys[gap] = k;
+                this.values[gap] = this.values[curr];
+                gap = curr;
+            }
+            curr = (curr + 1) & this.mask;
+        }
+
+        this.keys[gap] = FREE_KEY;
+        this.values[gap] = 0;
+        this.numItems -= 1;
+        return oldValue;
+    }
+
+    /** Returns a new array holding every key in this map. */
+    public int[] keys() {
+        int[] result = new int[this.numItems];
+        int i = 0;
+        if (this.hasFreeKey) {
+            result[i++] = FREE_KEY;
+        }
+        for (int key : this.keys) {
+            if (key != FREE_KEY) {
+                result[i++] = key;
+            }
+        }
+
+        return result;
+    }
+}
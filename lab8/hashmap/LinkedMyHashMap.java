@@ -0,0 +1,222 @@
+package hashmap;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+
+/**
+ * A MyHashMap that also threads its entries onto a doubly linked list,
+ * through the MyHashMap node hooks. Iteration, keySet(), forEach() and the
+ * key streams follow the list, so they take time in the number of entries
+ * and not in the number of buckets, which stays large after a map grows and
+ * is then emptied with remove(). Taking an entry off the list is O(1).
+ * <p>
+ * The list is in insertion order, where putting a key that is already in
+ * the map does not move it. In access order every get() and every put()
+ * or upsert of an existing key moves that key to the end, so the list runs
+ * from the least to the most recently used entry. containsKey() never
+ * moves a key.
+ * <p>
+ * cursor(), entryStream() and parallelEntryStream() still walk the buckets.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+public class LinkedMyHashMap<K, V> extends MyHashMap<K, V> {
+
+    /** A node that also sits on the list of all entries. */
+    private class LinkedNode extends Node {
+        private LinkedNode before;
+        private LinkedNode after;
+
+        LinkedNode(K key, V value) {
+            super(key, value);
+        }
+    }
+
+    /* Instance Variables */
+    private final boolean accessOrder;
+    private LinkedNode head;
+    private LinkedNode tail;
+    /* bumped on every change to the list, so iterators can fail fast */
+    private int modCount;
+
+    /**
+     * Constructors
+     */
+    public LinkedMyHashMap() {
+        super();
+        this.accessOrder = false;
+    }
+
+    public LinkedMyHashMap(int initialSize, double maxLoad) {
+        this(initialSize, maxLoad, false);
+    }
+
+    /**
+     * LinkedMyHashMap constructor that can keep the entries in access order.
+     *
+     * @param initialSize initial size of backing array
+     * @param maxLoad     maximum load factor
+     * @param accessOrder true for access order, false for insertion order
+     */
+    public LinkedMyHashMap(int initialSize, double maxLoad, boolean accessOrder) {
+        super(initialSize, maxLoad);
+        this.accessOrder = accessOrder;
+    }
+
+    /** Returns true if the entries are kept in access order. */
+    public boolean accessOrder() {
+        return this.accessOrder;
+    }
+
+    @Override
+    protected Node createNode(K key, V value) {
+        return new LinkedNode(key, value);
+    }
+
+    /* ------------------------------- List ------------------------------- */
+
+    private void append(LinkedNode node) {
+        node.before = this.tail;
+        node.after = null;
+        if (this.tail == null) {
+            this.head = node;
+        } else {
+            this.tail.after = node;
+        }
+        this.tail = node;
+        this.modCount += 1;
+    }
+
+    private void unlink(LinkedNode node) {
+        if (node.before == null) {
+            this.head = node.after;
+        } else {
+            node.before.after = node.after;
+        }
+        if (node.after == null) {
+            this.tail = node.before;
+        } else {
+            node.after.before = node.before;
+        }
+        node.before = null;
+        node.after = null;
+        this.modCount += 1;
+    }
+
+    /* ------------------------------- Node hooks ------------------------------- */
+
+    @Override
+    protected void afterNodeInsertion(Node node) {
+        this.append((LinkedNode) node);
+    }
+
+    @Override
+    protected void afterNodeAccess(Node n) {
+        LinkedNode node = (LinkedNode) n;
+        if (this.accessOrder && node != this.tail) {
+            this.unlink(node);
+            this.append(node);
+        }
+    }
+
+    @Override
+    protected void afterNodeRemoval(Node node) {
+        this.unlink((LinkedNode) node);
+    }
+
+    /* ------------------------------- Map61B ------------------------------- */
+
+    @Override
+    public void clear() {
+        super.clear();
+        this.head = null;
+        this.tail = null;
+        this.modCount += 1;
+    }
+
+    /** Returns the first key of the list, or null if the map is empty. */
+    public K firstKey() {
+        return this.head == null ? null : this.head.key;
+    }
+
+    /** Returns the last key of the list, or null if the map is empty. */
+    public K lastKey() {
+        return this.tail == null ? null : this.tail.key;
+    }
+
+    /**
+     * Walks the list from head to tail. Fails fast if the map is changed
+     * other than through this iterator, which access-order get() also does.
+     */
+    private class LinkedIterator implements Iterator<K> {
+        private LinkedNode next;
+        private LinkedNode lastNode;
+        private int expectedModCount;
+
+        LinkedIterator() {
+            this.next = head;
+            this.expectedModCount = modCount;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public K next() {
+            if (modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (this.next == null) {
+                throw new NoSuchElementException();
+            }
+            this.lastNode = this.next;
+            this.next = this.next.after;
+            return this.lastNode.key;
+        }
+
+        @Override
+        public void remove() {
+            if (this.lastNode == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            LinkedMyHashMap.this.remove(this.lastNode.key);
+            this.lastNode = null;
+            this.expectedModCount = modCount;
+        }
+    }
+
+    /** Returns an iterator over the keys in list order, in O(size) time. */
+    @Override
+    public Iterator<K> iterator() {
+        return new LinkedIterator();
+    }
+
+    /** Performs action on every entry in list order. */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        for (LinkedNode node = this.head; node != null; node = node.after) {
+            action.accept(node.key, node.value);
+        }
+    }
+
+    /**
+     * Returns an ordered Spliterator over the keys in list order. It splits
+     * by copying batches of keys, so parallel streams gain less here than
+     * on MyHashMap.
+     */
+    @Override
+    public Spliterator<K> spliterator() {
+        return Spliterators.spliterator(this.iterator(), this.size(),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+    }
+}
@@ -0,0 +1,612 @@
+package hashmap;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * A non-blocking hash table-backed Map implementation. Bucket chains are made
+ * of immutable nodes. A writer builds a new chain that shares the unchanged
+ * suffix of the old one and publishes it with a single compare-and-set on the
+ * bucket, retrying if another writer got there first. Readers never write
+ * and never retry, so get() and containsKey() are wait-free.
+ * <p>
+ * Resizing is cooperative. The thread that starts a resize only allocates
+ * the next table; every writer that sees a resize in progress claims a
+ * stride of old buckets and moves them. Moving a bucket first freezes it by
+ * swapping its chain for a ForwardingNode that keeps the frozen chain and
+ * points at the next table. The chain is then split into the two new buckets
+ * it maps to. Until a new bucket is filled it holds PLACEHOLDER, and lookups
+ * that land on it read the frozen chain instead.
+ * <p>
+ * keySet() and iterator() work on a snapshot and are weakly consistent.
+ * <p>
+ * putIfAbsent(), computeIfAbsent(), compute() and merge() are atomic. They
+ * retry their compare-and-set like put() does, so the function may run more
+ * than once when writers race and must not have side effects.
+ * Assumes null keys and null values will never be inserted.
+ */
+public class LockFreeMyHashMap<K, V> implements Map61B<K, V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.75;
+    private static final int TRANSFER_STRIDE = 16;
+
+    /** An immutable node of a bucket chain. */
+    private static class Node<K, V> {
+        final K key;
+        final int hash;
+        final V value;
+        final Node<K, V> next;
+
+        Node(K key, int hash, V value, Node<K, V> next) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    /** Replaces a bucket of an old table once its chain has been frozen. */
+    private static final class ForwardingNode<K, V> extends Node<K, V> {
+        final Node<K, V> chain;
+        final Table<K, V> nextTable;
+
+        ForwardingNode(Node<K, V> chain, Table<K, V> nextTable) {
+            super(null, 0, null, null);
+            this.chain = chain;
+            this.nextTable = nextTable;
+        }
+    }
+
+    /** Fills every bucket of a next table until it is copied from the old table. */
+    private static final Node<?, ?> PLACEHOLDER = new Node<>(null, 0, null, null);
+
+    private static final class Table<K, V> {
+        final AtomicReferenceArray<Node<K, V>> buckets;
+        final int mask;
+        final long threshold;
+        /* the table being copied into this one; null once every bucket is filled */
+        volatile Table<K, V> prev;
+        final AtomicReference<Table<K, V>> next = new AtomicReference<>();
+        final AtomicInteger transferIndex = new AtomicInteger();
+        final AtomicInteger filledHalves = new AtomicInteger();
+
+        Table(int capacity, double loadFactor, Table<K, V> prev) {
+            this.buckets = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+            this.threshold = (long) (capacity * loadFactor);
+            this.prev = prev;
+            if (prev != null) {
+                for (int i = 0; i < capacity; i++) {
+                    this.buckets.set(i, placeholder());
+                }
+            }
+        }
+
+        int length() {
+            return this.mask + 1;
+        }
+    }
+
+    /* Instance Variables */
+    private final AtomicReference<Table<K, V>> table;
+    private final LongAdder counter = new LongAdder();
+    private final double loadFactor;
+
+    /**
+     * Constructors
+     */
+    public LockFreeMyHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public LockFreeMyHashMap(int initialSize) {
+        this(initialSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * LockFreeMyHashMap constructor that creates a backing array of at least
+     * initialSize buckets, rounded up to a power of two.
+     *
+     * @param initialSize initial size of backing array
+     * @param maxLoad     maximum load factor
+     */
+    public LockFreeMyHashMap(int initialSize, double maxLoad) {
+        if (initialSize <= 0 || maxLoad <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        int capacity = initialSize <= 2 ? 2 : Integer.highestOneBit(initialSize - 1) << 1;
+        this.loadFactor = maxLoad;
+        this.table = new AtomicReference<>(new Table<>(capacity, maxLoad, null));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V> placeholder() {
+        return (Node<K, V>) PLACEHOLDER;
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the frozen chain that a PLACEHOLDER bucket of t will be filled
+     * from, or null if the bucket has been filled in the meantime.
+     */
+    private static <K, V> ForwardingNode<K, V> sourceOf(Table<K, V> t, int offset) {
+        Table<K, V> prev = t.prev;
+        if (prev == null) {
+            return null;
+        }
+        Node<K, V> head = prev.buckets.get(offset & prev.mask);
+        return head instanceof ForwardingNode ? (ForwardingNode<K, V>) head : null;
+    }
+
+    private static <K, V> Node<K, V> findInChain(Node<K, V> node, Object key, int hash) {
+        for (; node != null; node = node.next) {
+            if (node.hash == hash && node.key.equals(key)) {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the node holding key, or null. Never writes and never retries;
+     * it only follows forwarding nodes, once per resize in flight.
+     */
+    private Node<K, V> findNode(K key) {
+        int hash = spread(key.hashCode());
+        Table<K, V> t = this.table.get();
+        while (true) {
+            int offset = hash & t.mask;
+            Node<K, V> head = t.buckets.get(offset);
+            if (head instanceof ForwardingNode) {
+                t = ((ForwardingNode<K, V>) head).nextTable;
+                continue;
+            }
+            if (head == PLACEHOLDER) {
+                ForwardingNode<K, V> source = sourceOf(t, offset);
+                if (source != null) {
+                    return findInChain(source.chain, key, hash);
+                }
+                // the bucket was filled after we read it
+                continue;
+            }
+            return findInChain(head, key, hash);
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map. Buckets are emptied one at
+     * a time, so updates that run concurrently may survive the clear.
+     */
+    @Override
+    public void clear() {
+        Table<K, V> t = this.table.get();
+        for (int offset = 0; offset < t.length(); offset++) {
+            this.clearBucket(t, offset);
+        }
+    }
+
+    /** Empties bucket offset of t, following it into the next table if it moved. */
+    private void clearBucket(Table<K, V> t, int offset) {
+        while (true) {
+            Node<K, V> head = t.buckets.get(offset);
+            if (head == null) {
+                return;
+            }
+            if (head instanceof ForwardingNode) {
+                Table<K, V> next = ((ForwardingNode<K, V>) head).nextTable;
+                this.clearBucket(next, offset);
+                this.clearBucket(next, offset + t.length());
+                return;
+            }
+            if (head == PLACEHOLDER) {
+                this.fillBucket(t, offset);
+                continue;
+            }
+            if (t.buckets.compareAndSet(offset, head, null)) {
+                int removed = 0;
+                for (Node<K, V> node = head; node != null; node = node.next) {
+                    removed += 1;
+                }
+                this.counter.add(-removed);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        return this.findNode(key) != null;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     */
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        Node<K, V> node = this.findNode(key);
+        return node == null ? null : node.value;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map. The result may
+     * miss updates that are running concurrently.
+     */
+    @Override
+    public int size() {
+        long sum = this.counter.sum();
+        return (int) Math.max(0, Math.min(sum, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns a copy of the chain starting at head with target replaced by
+     * replacement, which may be null to drop target. Nodes after target are
+     * shared with the old chain.
+     */
+    private static <K, V> Node<K, V> replaceInChain(Node<K, V> head, Node<K, V> target,
+                                                    Node<K, V> replacement) {
+        if (head == target) {
+            return replacement;
+        }
+        return new Node<>(head.key, head.hash, head.value,
+                replaceInChain(head.next, target, replacement));
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key,
+     * the old value is replaced.
+     */
+    @Override
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = spread(key.hashCode());
+        Table<K, V> t = this.table.get();
+        while (true) {
+            int offset = hash & t.mask;
+            Node<K, V> head = t.buckets.get(offset);
+            if (head instanceof ForwardingNode) {
+                this.helpTransfer(t);
+                t = ((ForwardingNode<K, V>) head).nextTable;
+                continue;
+            }
+            if (head == PLACEHOLDER) {
+                this.fillBucket(t, offset);
+                continue;
+            }
+
+            Node<K, V> node = findInChain(head, key, hash);
+            Node<K, V> newHead;
+            if (node == null) {
+                newHead = new Node<>(key, hash, value, head);
+            } else if (node.value.equals(value)) {
+                return;
+            } else {
+                newHead = replaceInChain(head, node, new Node<>(key, hash, value, node.next));
+            }
+
+            if (t.buckets.compareAndSet(offset, head, newHead)) {
+                if (node == null) {
+                    this.counter.increment();
+                    this.afterInsert(t);
+                }
+                return;
+            }
+        }
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = spread(key.hashCode());
+        Table<K, V> t = this.table.get();
+        while (true) {
+            int offset = hash & t.mask;
+            Node<K, V> head = t.buckets.get(offset);
+            if (head instanceof ForwardingNode) {
+                this.helpTransfer(t);
+                t = ((ForwardingNode<K, V>) head).nextTable;
+                continue;
+            }
+            if (head == PLACEHOLDER) {
+                this.fillBucket(t, offset);
+                continue;
+            }
+
+            Node<K, V> node = findInChain(head, key, hash);
+            if (node != null) {
+                return node.value;
+            }
+            if (t.buckets.compareAndSet(offset, head, new Node<>(key, hash, value, head))) {
+                this.counter.increment();
+                this.afterInsert(t);
+                return null;
+            }
+        }
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        V value = this.get(key);
+        if (value != null) {
+            return value;
+        }
+
+        return this.compute(key, (k, old) -> old != null ? old : mappingFunction.apply(k));
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int hash = spread(key.hashCode());
+        Table<K, V> t = this.table.get();
+        while (true) {
+            int offset = hash & t.mask;
+            Node<K, V> head = t.buckets.get(offset);
+            if (head instanceof ForwardingNode) {
+                this.helpTransfer(t);
+                t = ((ForwardingNode<K, V>) head).nextTable;
+                continue;
+            }
+            if (head == PLACEHOLDER) {
+                this.fillBucket(t, offset);
+                continue;
+            }
+
+            Node<K, V> node = findInChain(head, key, hash);
+            V value = remappingFunction.apply(key, node == null ? null : node.value);
+            Node<K, V> newHead;
+            if (node == null) {
+                if (value == null) {
+                    return null;
+                }
+                newHead = new Node<>(key, hash, value, head);
+            } else if (value == null) {
+                newHead = replaceInChain(head, node, node.next);
+            } else if (value == node.value) {
+                return value;
+            } else {
+                newHead = replaceInChain(head, node, new Node<>(key, hash, value, node.next));
+            }
+
+            if (t.buckets.compareAndSet(offset, head, newHead)) {
+                if (node == null) {
+                    this.counter.increment();
+                    this.afterInsert(t);
+                } else if (value == null) {
+                    this.counter.decrement();
+                }
+                return value;
+            }
+        }
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        return this.compute(key, (k, old) -> old == null ? value : remappingFunction.apply(old, value));
+    }
+
+    private void afterInsert(Table<K, V> t) {
+        if (t.next.get() != null) {
+            this.helpTransfer(t);
+        } else if (t == this.table.get() && this.counter.sum() > t.threshold) {
+            this.startResize(t);
+        }
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     */
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        return this.removeIf(key, null);
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to
+     * the specified value. Returns the removed value, or null if nothing was
+     * removed.
+     */
+    @Override
+    public V remove(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        return this.removeIf(key, value);
+    }
+
+    private V removeIf(K key, V expected) {
+        int hash = spread(key.hashCode());
+        Table<K, V> t = this.table.get();
+        while (true) {
+            int offset = hash & t.mask;
+            Node<K, V> head = t.buckets.get(offset);
+            if (head instanceof ForwardingNode) {
+                this.helpTransfer(t);
+                t = ((ForwardingNode<K, V>) head).nextTable;
+                continue;
+            }
+            if (head == PLACEHOLDER) {
+                this.fillBucket(t, offset);
+                continue;
+            }
+
+            Node<K, V> node = findInChain(head, key, hash);
+            if (node == null || (expected != null && !expected.equals(node.value))) {
+                return null;
+            }
+
+            if (t.buckets.compareAndSet(offset, head, replaceInChain(head, node, node.next))) {
+                this.counter.decrement();
+                return node.value;
+            }
+        }
+    }
+
+    /* ------------------------------- Resizing ------------------------------- */
+
+    private void startResize(Table<K, V> t) {
+        Table<K, V> next = new Table<>(t.length() * 2, this.loadFactor, t);
+        if (t.next.compareAndSet(null, next)) {
+            this.helpTransfer(t);
+        }
+    }
+
+    /**
+     * Claims strides of t's buckets and moves them to the next table until
+     * every bucket has been claimed.
+     */
+    private void helpTransfer(Table<K, V> t) {
+        Table<K, V> next = t.next.get();
+        if (next == null) {
+            return;
+        }
+
+        int start;
+        while ((start = t.transferIndex.getAndAdd(TRANSFER_STRIDE)) < t.length()) {
+            int end = Math.min(start + TRANSFER_STRIDE, t.length());
+            for (int offset = start; offset < end; offset++) {
+                this.transferBucket(t, next, offset);
+            }
+        }
+    }
+
+    private void transferBucket(Table<K, V> t, Table<K, V> next, int offset) {
+        ForwardingNode<K, V> forward;
+        while (true) {
+            Node<K, V> head = t.buckets.get(offset);
+            if (head instanceof ForwardingNode) {
+                forward = (ForwardingNode<K, V>) head;
+                break;
+            }
+            if (head == PLACEHOLDER) {
+                this.fillBucket(t, offset);
+                continue;
+            }
+            forward = new ForwardingNode<>(head, next);
+            if (t.buckets.compareAndSet(offset, head, forward)) {
+                break;
+            }
+        }
+
+        this.fillBucket(next, offset);
+        this.fillBucket(next, offset + t.length());
+    }
+
+    /**
+     * Fills a PLACEHOLDER bucket of t with its half of the frozen chain from
+     * the previous table. Every thread computes the same chain, and only the
+     * first compare-and-set wins, so a filled bucket is never overwritten.
+     */
+    private void fillBucket(Table<K, V> t, int offset) {
+        if (t.buckets.get(offset) != PLACEHOLDER) {
+            return;
+        }
+        ForwardingNode<K, V> source = sourceOf(t, offset);
+        if (source == null) {
+            return;
+        }
+
+        Node<K, V> half = null;
+        for (Node<K, V> node = source.chain; node != null; node = node.next) {
+            if ((node.hash & t.mask) == offset) {
+                half = new Node<>(node.key, node.hash, node.value, half);
+            }
+        }
+
+        if (t.buckets.compareAndSet(offset, placeholder(), half)
+                && t.filledHalves.incrementAndGet() == t.length()) {
+            Table<K, V> prev = t.prev;
+            t.prev = null;
+            this.table.compareAndSet(prev, t);
+        }
+    }
+
+    /* ------------------------------- Iteration ------------------------------- */
+
+    /** Adds the keys that bucket offset of t holds, following forwarding nodes. */
+    private void collectKeys(Table<K, V> t, int offset, Collection<K> keys) {
+        Node<K, V> head = t.buckets.get(offset);
+        if (head instanceof ForwardingNode) {
+            Table<K, V> next = ((ForwardingNode<K, V>) head).nextTable;
+            this.collectKeys(next, offset, keys);
+            this.collectKeys(next, offset + t.length(), keys);
+            return;
+        }
+        if (head == PLACEHOLDER) {
+            ForwardingNode<K, V> source = sourceOf(t, offset);
+            if (source == null) {
+                this.collectKeys(t, offset, keys);
+                return;
+            }
+            head = source.chain;
+        }
+        for (Node<K, V> node = head; node != null; node = node.next) {
+            if ((node.hash & t.mask) == offset) {
+                keys.add(node.key);
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the keys contained in this map.
+     */
+    @Override
+    public Set<K> keySet() {
+        HashSet<K> keys = new HashSet<>();
+        Table<K, V> t = this.table.get();
+        for (int offset = 0; offset < t.length(); offset++) {
+            this.collectKeys(t, offset, keys);
+        }
+
+        return keys;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the keys, see keySet().
+     */
+    @Override
+    public Iterator<K> iterator() {
+        return this.keySet().iterator();
+    }
+}
@@ -0,0 +1,36 @@
+package hashmap;
+
+/**
+ * Receives an event for every operation on a MyHashMap, see
+ * MyHashMap.setMetrics(). Every method does nothing by default, so an
+ * implementation only overrides the events it cares about.
+ * <p>
+ * probes is the number of keys the operation compared against before it
+ * found its key or gave up.
+ */
+public interface MapMetrics {
+
+    /** Records nothing. Maps use this until they are given other metrics. */
+    MapMetrics NOOP = new MapMetrics() { };
+
+    /** Called after each get() and containsKey(). */
+    default void onGet(int probes) {
+    }
+
+    /** Called after each put(), whether it added a key or replaced a value. */
+    default void onPut(int probes) {
+    }
+
+    /** Called after each remove(), whether or not the key was there. */
+    default void onRemove(int probes) {
+    }
+
+    /**
+     * Called after the table grows from oldNumBuckets to newNumBuckets.
+     * nanos is the time the resize took. In incremental resize mode that is
+     * only the time to allocate the new table, the rehashing is spread
+     * over later operations.
+     */
+    default void onResize(int oldNumBuckets, int newNumBuckets, long nanos) {
+    }
+}
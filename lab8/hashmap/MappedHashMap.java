@@ -0,0 +1,482 @@
+package hashmap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * A disk-backed String to Integer map that lives in a memory-mapped file.
+ * Every change is made directly in the mapping, so reopening the file after
+ * a restart only maps it and reads a fixed-size header; nothing is re-inserted.
+ * <p>
+ * File layout:
+ * <pre>
+ *   header     64 bytes: magic, version, # buckets, size, log end, dead bytes
+ *   directory  # buckets longs, the file offset of each bucket's first entry
+ *   entry log  entries appended one after another:
+ *              [long next][int hash][int value][int key length][UTF-8 key]
+ * </pre>
+ * Each bucket is a chain of log entries linked through their next offsets.
+ * A new key is appended to the log and linked in at the head of its chain.
+ * Updating a value overwrites it in place. Removing a key unlinks its entry,
+ * which becomes dead space. compact() rewrites the live entries into a fresh
+ * file. It runs on its own when too much of the log is dead or when the
+ * chains grow too long for the directory.
+ * <p>
+ * A single mapping is used, so the file is limited to 2GB. Writes reach the
+ * disk when the OS flushes the mapping, or on flush() and close().
+ * Assumes null keys and null values will never be inserted.
+ */
+public class MappedHashMap implements Map61B<String, Integer>, Closeable {
+
+    private static final long MAGIC = 0x3631424D41505044L;
+    private static final int VERSION = 1;
+    private static final int DEFAULT_BUCKETS = 1 << 10;
+    private static final int MAX_LOAD = 2;
+
+    /* Header layout */
+    private static final int HEADER_BYTES = 64;
+    private static final int MAGIC_AT = 0;
+    private static final int VERSION_AT = 8;
+    private static final int BUCKETS_AT = 12;
+    private static final int SIZE_AT = 16;
+    private static final int LOG_END_AT = 24;
+    private static final int DEAD_BYTES_AT = 32;
+
+    /* Entry layout */
+    private static final int NEXT_AT = 0;
+    private static final int HASH_AT = 8;
+    private static final int VALUE_AT = 12;
+    private static final int KEY_LENGTH_AT = 16;
+    private static final int ENTRY_HEADER_BYTES = 20;
+    private static final long NO_ENTRY = 0;
+
+    /* Instance Variables */
+    private final Path path;
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int numBuckets;
+    /* The bucket count clear() starts over with */
+    private final int initialBuckets;
+
+    /**
+     * Opens the map stored at path, or creates an empty one if the file does
+     * not exist yet.
+     */
+    public MappedHashMap(Path path) throws IOException {
+        this(path, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * Opens the map stored at path, or creates an empty one with numBuckets
+     * directory entries, rounded up to a power of two, if the file does not
+     * exist yet. clear() always starts over with numBuckets buckets.
+     */
+    public MappedHashMap(Path path, int numBuckets) throws IOException {
+        if (numBuckets <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.path = path;
+        this.initialBuckets = numBuckets <= 1 ? 1 : Integer.highestOneBit(numBuckets - 1) << 1;
+        if (!Files.exists(path) || Files.size(path) == 0) {
+            MappedHashMap.create(path, this.initialBuckets);
+        }
+        this.open();
+    }
+
+    /** Writes an empty map with numBuckets buckets to target. */
+    private static void create(Path target, int numBuckets) throws IOException {
+        long logStart = HEADER_BYTES + (long) numBuckets * 8;
+        try (RandomAccessFile raf = new RandomAccessFile(target.toFile(), "rw")) {
+            raf.setLength(0);
+            raf.setLength(logStart * 2);
+            MappedByteBuffer mapped = raf.getChannel().map(FileChannel.MapMode.READ_WRITE,
+                    0, HEADER_BYTES);
+            mapped.putLong(MAGIC_AT, MAGIC);
+            mapped.putInt(VERSION_AT, VERSION);
+            mapped.putInt(BUCKETS_AT, numBuckets);
+            mapped.putInt(SIZE_AT, 0);
+            mapped.putLong(LOG_END_AT, logStart);
+            mapped.putLong(DEAD_BYTES_AT, 0);
+            mapped.force();
+            DirectBuffers.free(mapped);
+        }
+    }
+
+    private void open() throws IOException {
+        this.file = new RandomAccessFile(this.path.toFile(), "rw");
+        this.channel = this.file.getChannel();
+        this.map(this.channel.size());
+
+        if (this.buffer.getLong(MAGIC_AT) != MAGIC || this.buffer.getInt(VERSION_AT) != VERSION) {
+            this.close();
+            throw new IOException(this.path + " is not a MappedHashMap file");
+        }
+        this.numBuckets = this.buffer.getInt(BUCKETS_AT);
+    }
+
+    private void map(long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("MappedHashMap files are limited to 2GB");
+        }
+        DirectBuffers.free(this.buffer);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, length);
+    }
+
+    private void checkOpen() {
+        if (this.buffer == null) {
+            throw new IllegalStateException("map is closed");
+        }
+    }
+
+    /* ------------------------------- Layout helpers ------------------------------- */
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int directoryAt(int hash) {
+        return HEADER_BYTES + (spread(hash) & (this.numBuckets - 1)) * 8;
+    }
+
+    private long logStart() {
+        return HEADER_BYTES + (long) this.numBuckets * 8;
+    }
+
+    private long logEnd() {
+        return this.buffer.getLong(LOG_END_AT);
+    }
+
+    private static int entryBytes(int keyLength) {
+        return ENTRY_HEADER_BYTES + keyLength;
+    }
+
+    private boolean keyEquals(int entry, byte[] key) {
+        if (this.buffer.getInt(entry + KEY_LENGTH_AT) != key.length) {
+            return false;
+        }
+        int start = entry + ENTRY_HEADER_BYTES;
+        for (int i = 0; i < key.length; i++) {
+            if (this.buffer.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String keyAt(int entry) {
+        byte[] bytes = new byte[this.buffer.getInt(entry + KEY_LENGTH_AT)];
+        int start = entry + ENTRY_HEADER_BYTES;
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = this.buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the file offset of the slot that points at key's entry: either
+     * its directory slot or the next field of the entry before it. If the
+     * key is absent, returns the negated offset of its directory slot.
+     */
+    private int findLink(byte[] key, int hash) {
+        int directory = this.directoryAt(hash);
+        int link = directory;
+        int entry;
+        while ((entry = (int) this.buffer.getLong(link)) != NO_ENTRY) {
+            if (this.buffer.getInt(entry + HASH_AT) == hash && this.keyEquals(entry, key)) {
+                return link;
+            }
+            link = entry + NEXT_AT;
+        }
+        return -directory;
+    }
+
+    /** Appends an entry to the log, growing the file if needed, and returns its offset. */
+    private int appendEntry(byte[] key, int hash, int value, long next) {
+        long at = this.logEnd();
+        long end = at + entryBytes(key.length);
+        if (end > this.buffer.capacity()) {
+            long newLength = Math.max(end, Math.min((long) this.buffer.capacity() * 2,
+                    Integer.MAX_VALUE));
+            try {
+                this.file.setLength(newLength);
+                this.map(newLength);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        int entry = (int) at;
+        this.buffer.putLong(entry + NEXT_AT, next);
+        this.buffer.putInt(entry + HASH_AT, hash);
+        this.buffer.putInt(entry + VALUE_AT, value);
+        this.buffer.putInt(entry + KEY_LENGTH_AT, key.length);
+        for (int i = 0; i < key.length; i++) {
+            this.buffer.put(entry + ENTRY_HEADER_BYTES + i, key[i]);
+        }
+        this.buffer.putLong(LOG_END_AT, end);
+        return entry;
+    }
+
+    private static byte[] encode(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /* ------------------------------- Map61B ------------------------------- */
+
+    /**
+     * Removes all of the mappings from this map and truncates the file,
+     * going back to the bucket count given to the constructor.
+     */
+    @Override
+    public void clear() {
+        this.checkOpen();
+        try {
+            this.rewrite(this.initialBuckets, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(String key) {
+        this.checkOpen();
+        return this.findLink(encode(key), key.hashCode()) > 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     */
+    @Override
+    public Integer get(String key) {
+        this.checkOpen();
+        int link = this.findLink(encode(key), key.hashCode());
+        if (link < 0) {
+            return null;
+        }
+        int entry = (int) this.buffer.getLong(link);
+        return this.buffer.getInt(entry + VALUE_AT);
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        this.checkOpen();
+        return this.buffer.getInt(SIZE_AT);
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key,
+     * the old value is replaced.
+     */
+    @Override
+    public void put(String key, Integer value) {
+        this.checkOpen();
+        if (value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        byte[] bytes = encode(key);
+        int hash = key.hashCode();
+        int link = this.findLink(bytes, hash);
+        if (link > 0) {
+            int entry = (int) this.buffer.getLong(link);
+            this.buffer.putInt(entry + VALUE_AT, value);
+            return;
+        }
+
+        int directory = -link;
+        long head = this.buffer.getLong(directory);
+        // appendEntry may remap, so only write through this.buffer afterwards
+        int entry = this.appendEntry(bytes, hash, value, head);
+        this.buffer.putLong(directory, entry);
+        int size = this.buffer.getInt(SIZE_AT) + 1;
+        this.buffer.putInt(SIZE_AT, size);
+
+        if (size > (long) this.numBuckets * MAX_LOAD) {
+            this.compact(this.numBuckets * 2);
+        }
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     */
+    @Override
+    public Integer remove(String key) {
+        this.checkOpen();
+        int link = this.findLink(encode(key), key.hashCode());
+        if (link < 0) {
+            return null;
+        }
+
+        return this.unlink(link);
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to
+     * the specified value. Returns the removed value, or null if nothing was
+     * removed.
+     */
+    @Override
+    public Integer remove(String key, Integer value) {
+        this.checkOpen();
+        int link = this.findLink(encode(key), key.hashCode());
+        if (link < 0 || value == null) {
+            return null;
+        }
+        int entry = (int) this.buffer.getLong(link);
+        if (this.buffer.getInt(entry + VALUE_AT) != value) {
+            return null;
+        }
+
+        return this.unlink(link);
+    }
+
+    private int unlink(int link) {
+        int entry = (int) this.buffer.getLong(link);
+        int value = this.buffer.getInt(entry + VALUE_AT);
+        this.buffer.putLong(link, this.buffer.getLong(entry + NEXT_AT));
+        this.buffer.putInt(SIZE_AT, this.buffer.getInt(SIZE_AT) - 1);
+
+        long dead = this.buffer.getLong(DEAD_BYTES_AT)
+                + entryBytes(this.buffer.getInt(entry + KEY_LENGTH_AT));
+        this.buffer.putLong(DEAD_BYTES_AT, dead);
+        if (dead > 1 << 16 && dead > (this.logEnd() - this.logStart()) / 2) {
+            this.compact(this.numBuckets);
+        }
+        return value;
+    }
+
+    /** Calls action on the offset of every live entry. */
+    private void forEachEntry(java.util.function.IntConsumer action) {
+        for (int b = 0; b < this.numBuckets; b++) {
+            int entry = (int) this.buffer.getLong(HEADER_BYTES + b * 8);
+            while (entry != NO_ENTRY) {
+                action.accept(entry);
+                entry = (int) this.buffer.getLong(entry + NEXT_AT);
+            }
+        }
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return this.keySet().iterator();
+    }
+
+    /**
+     * Returns a Set of the keys contained in this map, decoded onto the heap.
+     */
+    @Override
+    public Set<String> keySet() {
+        this.checkOpen();
+        HashSet<String> keys = new HashSet<>();
+        this.forEachEntry(entry -> keys.add(this.keyAt(entry)));
+        return keys;
+    }
+
+    /* ------------------------------- Maintenance ------------------------------- */
+
+    /**
+     * Rewrites the file with only the live entries, dropping the space left
+     * by removed keys.
+     */
+    public void compact() {
+        this.checkOpen();
+        this.compact(this.numBuckets);
+    }
+
+    private void compact(int newNumBuckets) {
+        try {
+            this.rewrite(newNumBuckets, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Builds a new file with newNumBuckets buckets next to the current one,
+     * copies the live entries into it if keepEntries is set, and swaps it in.
+     */
+    private void rewrite(int newNumBuckets, boolean keepEntries) throws IOException {
+        Path temp = this.path.resolveSibling(this.path.getFileName() + ".compact");
+        create(temp, newNumBuckets);
+
+        MappedHashMap target = new MappedHashMap(temp);
+        if (keepEntries) {
+            this.forEachEntry(entry -> {
+                int keyLength = this.buffer.getInt(entry + KEY_LENGTH_AT);
+                byte[] key = new byte[keyLength];
+                for (int i = 0; i < keyLength; i++) {
+                    key[i] = this.buffer.get(entry + ENTRY_HEADER_BYTES + i);
+                }
+                int hash = this.buffer.getInt(entry + HASH_AT);
+                int directory = target.directoryAt(hash);
+                int copy = target.appendEntry(key, hash, this.buffer.getInt(entry + VALUE_AT),
+                        target.buffer.getLong(directory));
+                target.buffer.putLong(directory, copy);
+            });
+            target.buffer.putInt(SIZE_AT, this.buffer.getInt(SIZE_AT));
+        }
+        target.close();
+
+        this.close();
+        Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        this.open();
+    }
+
+    /** Returns the number of bytes of the log taken by removed entries. */
+    public long deadBytes() {
+        this.checkOpen();
+        return this.buffer.getLong(DEAD_BYTES_AT);
+    }
+
+    /** Returns the number of bytes of the file that are in use. */
+    public long usedBytes() {
+        this.checkOpen();
+        return this.logEnd();
+    }
+
+    /** Forces every change made so far out to the disk. */
+    public void flush() {
+        this.checkOpen();
+        this.buffer.force();
+    }
+
+    /**
+     * Flushes the map, unmaps the file and closes it. The map cannot be used
+     * afterwards.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.buffer == null) {
+            return;
+        }
+        this.buffer.force();
+        DirectBuffers.free(this.buffer);
+        this.buffer = null;
+        this.channel.close();
+        this.file.close();
+    }
+}
@@ -0,0 +1,133 @@
+package hashmap;
+
+/**
+ * A MapMetrics that counts operations and resizes and keeps a histogram of
+ * the probes made by each kind of lookup. Not thread safe, like MyHashMap.
+ */
+public class MetricsRecorder implements MapMetrics {
+
+    /**
+     * A histogram of probe counts. Lookups that make more than MAX_PROBES
+     * probes are all counted in the last slot.
+     */
+    public static class ProbeHistogram {
+        public static final int MAX_PROBES = 64;
+
+        private final long[] counts = new long[MAX_PROBES + 1];
+        private long total;
+        private long sum;
+        private int max;
+
+        void record(int probes) {
+            this.counts[Math.min(probes, MAX_PROBES)] += 1;
+            this.total += 1;
+            this.sum += probes;
+            this.max = Math.max(this.max, probes);
+        }
+
+        /** Returns the number of lookups recorded. */
+        public long count() {
+            return this.total;
+        }
+
+        /** Returns the number of lookups that made exactly probes probes. */
+        public long countOf(int probes) {
+            return probes <= MAX_PROBES ? this.counts[probes] : 0;
+        }
+
+        public double mean() {
+            return this.total == 0 ? 0 : (double) this.sum / this.total;
+        }
+
+        /** Returns the most probes made by a single lookup. */
+        public int max() {
+            return this.max;
+        }
+
+        /**
+         * Returns the smallest probe count that at least the fraction p of
+         * the lookups stayed within, capped at MAX_PROBES.
+         */
+        public int percentile(double p) {
+            long rank = (long) Math.ceil(p * this.total);
+            long seen = 0;
+            for (int probes = 0; probes < this.counts.length; probes++) {
+                seen += this.counts[probes];
+                if (seen >= rank && seen > 0) {
+                    return probes;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d ops, %.2f avg probes, p50 %d, p99 %d, max %d",
+                    this.total, this.mean(), this.percentile(0.5), this.percentile(0.99),
+                    this.max);
+        }
+    }
+
+    private final ProbeHistogram gets = new ProbeHistogram();
+    private final ProbeHistogram puts = new ProbeHistogram();
+    private final ProbeHistogram removes = new ProbeHistogram();
+    private int resizes;
+    private long resizeNanos;
+    private long maxResizeNanos;
+
+    @Override
+    public void onGet(int probes) {
+        this.gets.record(probes);
+    }
+
+    @Override
+    public void onPut(int probes) {
+        this.puts.record(probes);
+    }
+
+    @Override
+    public void onRemove(int probes) {
+        this.removes.record(probes);
+    }
+
+    @Override
+    public void onResize(int oldNumBuckets, int newNumBuckets, long nanos) {
+        this.resizes += 1;
+        this.resizeNanos += nanos;
+        this.maxResizeNanos = Math.max(this.maxResizeNanos, nanos);
+    }
+
+    public ProbeHistogram gets() {
+        return this.gets;
+    }
+
+    public ProbeHistogram puts() {
+        return this.puts;
+    }
+
+    public ProbeHistogram removes() {
+        return this.removes;
+    }
+
+    public int resizes() {
+        return this.resizes;
+    }
+
+    /** Returns the total time spent in resizes. */
+    public long resizeNanos() {
+        return this.resizeNanos;
+    }
+
+    /** Returns the time taken by the slowest resize. */
+    public long maxResizeNanos() {
+        return this.maxResizeNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("  get:    %s\n  put:    %s\n  remove: %s\n"
+                        + "  resize: %d times, %.2f ms total, %.2f ms max",
+                this.gets, this.puts, this.removes, this.resizes,
+                this.resizeNanos / 1e6, this.maxResizeNanos / 1e6);
+    }
+}
@@ -1,12 +1,45 @@
 package hashmap;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * A hash table-backed Map implementation. Provides amortized constant time
  * access to elements via get(), remove(), and put() in the best case.
  * <p>
- * Assumes null keys will never be inserted, and does not resize down upon remove().
+ * Assumes null keys will never be inserted.
+ * <p>
+ * Buckets are only created when a key is first put in them, so the slots of
+ * a sparse or fresh table hold no empty bucket objects. By default the
+ * table never shrinks. setShrinkLoadFactor() makes remove() halve the table
+ * whenever the load factor falls below a threshold, never below the initial
+ * size, and trimToSize() shrinks it to fit the current items on demand.
+ * <p>
+ * By default a resize rehashes the whole table at once. In incremental resize
+ * mode the old table is kept alive after a resize and a few of its buckets are
+ * moved to the new table on every get(), put() and remove(), so no single
+ * operation pays for rehashing all the items.
+ * <p>
+ * The bucket of a key is picked by a HashStrategy, MODULO of the raw hash
+ * code unless another one is passed to the constructor.
+ * <p>
+ * Operations and resizes can be reported to a MapMetrics with setMetrics().
+ * No probes are counted and no clock is read while the map has no metrics.
+ * <p>
+ * stream(), parallelStream(), entryStream() and parallelEntryStream() run
+ * over a Spliterator that splits the bucket array into ranges, so parallel
+ * streams divide the table between fork-join workers without copying it.
+ * <p>
+ * writeTo() saves the map to a FileChannel bucket by bucket, and readFrom()
+ * loads it back into buckets at the same offsets, only checking each key's
+ * hash code against its saved bucket instead of looking the key up.
  *
  * @author YOUR NAME HERE
  */
@@ -29,13 +62,31 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
     private final int RESIZE_FACTOR = 2;
     private final int NUM_DEFAULT_BUCKET = 16;
     private final double DEFAULT_LOAD_FACTOR = 0.75;
+    private final int MIGRATE_BUCKETS_PER_OP = 8;
+
+    /* Snapshot format, see writeTo() */
+    private static final long SNAPSHOT_MAGIC = 0x3631424D59484D53L;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int NO_STRATEGY = -1;
 
     /* Instance Variables */
     private Collection<Node>[] buckets;
     private int numItems = 0;
     private int numBuckets = NUM_DEFAULT_BUCKET;
     private double loadFactor = DEFAULT_LOAD_FACTOR;
-    // You should probably define some more!
+    /* remove() shrinks the table below this load factor; 0 never shrinks */
+    private double shrinkLoadFactor = 0;
+    /* the initial size, which shrinking does not go below */
+    private int minBuckets = NUM_DEFAULT_BUCKET;
+    private HashStrategy hashStrategy = HashStrategy.MODULO;
+    private MapMetrics metrics = MapMetrics.NOOP;
+    private Set<K> keySetView;
+
+    /* Incremental resize state. oldBuckets is null unless a migration is running */
+    private boolean incrementalResize = false;
+    private Collection<Node>[] oldBuckets;
+    private int oldNumBuckets;
+    private int migrateIndex;
 
     /**
      * Constructors
@@ -46,6 +97,7 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
 
     public MyHashMap(int initialSize) {
         this.numBuckets = initialSize;
+        this.minBuckets = initialSize;
         this.buckets = this.setupBuckets(initialSize);
     }
 
@@ -58,26 +110,107 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
      */
     public MyHashMap(int initialSize, double maxLoad) {
         this.numBuckets = initialSize;
+        this.minBuckets = initialSize;
         this.loadFactor = maxLoad;
         this.buckets = this.setupBuckets(initialSize);
     }
 
-    private Collection[] setupBuckets(int numBuckets) {
-        Collection<Node>[] buckets = new Collection[numBuckets];
-        for (int i = 0; i < numBuckets; i++) {
-            buckets[i] = this.createBucket();
+    /**
+     * MyHashMap constructor that can turn on incremental resizing. In that
+     * mode a resize only allocates the new table, and the items are moved
+     * over a few buckets at a time by the following operations.
+     *
+     * @param initialSize       initial size of backing array
+     * @param maxLoad           maximum load factor
+     * @param incrementalResize whether to spread rehashing over later operations
+     */
+    public MyHashMap(int initialSize, double maxLoad, boolean incrementalResize) {
+        this(initialSize, maxLoad);
+        this.incrementalResize = incrementalResize;
+    }
+
+    /**
+     * MyHashMap constructor that picks buckets with the given HashStrategy.
+     *
+     * @param initialSize  initial size of backing array
+     * @param maxLoad      maximum load factor
+     * @param hashStrategy maps key hash codes to buckets
+     */
+    public MyHashMap(int initialSize, double maxLoad, HashStrategy hashStrategy) {
+        this(initialSize, maxLoad);
+        if (hashStrategy == null) {
+            throw new IllegalArgumentException();
         }
+        this.hashStrategy = hashStrategy;
+    }
 
-        return buckets;
+    /**
+     * Reports every following operation and resize to metrics.
+     * Pass MapMetrics.NOOP to stop recording.
+     */
+    public void setMetrics(MapMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException();
+        }
+        this.metrics = metrics;
+    }
+
+    /**
+     * Makes remove() halve the table whenever the load factor drops below
+     * minLoad, down to the initial size at most. minLoad must be at most a
+     * quarter of the maximum load factor, so that a table that was just
+     * halved is still at most half full and does not grow straight back.
+     * Pass 0 to never shrink, the default.
+     */
+    public void setShrinkLoadFactor(double minLoad) {
+        if (minLoad < 0 || minLoad > this.loadFactor / (2 * RESIZE_FACTOR)) {
+            throw new IllegalArgumentException("minLoad must be in [0, maxLoad / 4]");
+        }
+        this.shrinkLoadFactor = minLoad;
+    }
+
+    /**
+     * Returns a table of numBuckets empty slots. Buckets are created by
+     * bucketAddNode() when a key first lands in them.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Collection<Node>[] setupBuckets(int numBuckets) {
+        return (Collection<Node>[]) new Collection[numBuckets];
     }
 
     /**
      * Returns a new node to be placed in a hash table bucket
+     * <p>
+     * Override this together with the afterNode hooks below to keep extra
+     * state in every node, like the links of a linked or cache map.
      */
-    private Node createNode(K key, V value) {
+    protected Node createNode(K key, V value) {
         return new Node(key, value);
     }
 
+    /**
+     * Called after a lookup or update finds node: get() hits, put() of an
+     * existing key, the upserts that keep the key, and Cursor.setValue().
+     * Does nothing by default.
+     */
+    protected void afterNodeAccess(Node node) {
+    }
+
+    /**
+     * Called after node is added to the table by put() or an upsert.
+     * Subclasses may remove entries from here, for example to evict one.
+     * Does nothing by default.
+     */
+    protected void afterNodeInsertion(Node node) {
+    }
+
+    /**
+     * Called after node is taken out of the table by a remove, an upsert
+     * or an iterator. Not called by clear(). Does nothing by default.
+     */
+    protected void afterNodeRemoval(Node node) {
+    }
+
     /**
      * Returns a data structure to be a hash table bucket
      * <p>
@@ -126,10 +259,11 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
         this.numItems = 0;
         this.numBuckets = NUM_DEFAULT_BUCKET;
         this.buckets = this.setupBuckets(this.numBuckets);
+        this.oldBuckets = null;
     }
 
     private int getBucketOffset(int keyHashCode, int numBuckets) {
-        return Math.floorMod(keyHashCode, numBuckets);
+        return this.hashStrategy.bucketOf(keyHashCode, numBuckets);
     }
 
     /**
@@ -141,9 +275,13 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
             throw new IllegalArgumentException();
         }
 
-        V val = this.get(key);
+        this.migrateStep();
+        Node node = this.findNode(key);
+        if (this.metrics != MapMetrics.NOOP) {
+            this.metrics.onGet(this.probesFor(key));
+        }
 
-        return val != null;
+        return node != null && node.value != null;
     }
 
     /**
@@ -156,13 +294,95 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
             throw new IllegalArgumentException();
         }
 
-        int bucketOffset = this.getBucketOffset(key.hashCode(), this.numBuckets);
-        Node keyNode = this.getNode(key, this.buckets[bucketOffset]);
+        this.migrateStep();
+        Node keyNode = this.findNode(key);
+        if (this.metrics != MapMetrics.NOOP) {
+            this.metrics.onGet(this.probesFor(key));
+        }
+        if (keyNode == null) {
+            return null;
+        }
+
+        this.afterNodeAccess(keyNode);
+        return keyNode.value;
+    }
+
+    /**
+     * Returns the node holding key, looking in the old table as well while
+     * a migration is running.
+     */
+    private Node findNode(K key) {
+        int hashCode = key.hashCode();
+        if (this.oldBuckets != null) {
+            Collection<Node> oldBucket = this.oldBucketFor(hashCode);
+            if (oldBucket != null) {
+                Node node = this.getNode(key, oldBucket);
+                if (node != null) {
+                    return node;
+                }
+            }
+        }
+
+        int bucketOffset = this.getBucketOffset(hashCode, this.numBuckets);
+        return this.getNode(key, this.buckets[bucketOffset]);
+    }
+
+    /** A node together with the bucket that holds it. */
+    private final class Found {
+        private final Node node;
+        private final Collection<Node> bucket;
 
-        return keyNode == null ? null : keyNode.value;
+        private Found(Node node, Collection<Node> bucket) {
+            this.node = node;
+            this.bucket = bucket;
+        }
+    }
+
+    /**
+     * Like findNode(), but also returns the bucket holding the node, so that
+     * removing it does not search again. Returns null if key is absent.
+     */
+    private Found locate(K key) {
+        int hashCode = key.hashCode();
+        Collection<Node> bucket;
+        Node node;
+        if (this.oldBuckets != null) {
+            bucket = this.oldBucketFor(hashCode);
+            node = this.getNode(key, bucket);
+            if (node != null) {
+                return new Found(node, bucket);
+            }
+        }
+
+        bucket = this.buckets[this.getBucketOffset(hashCode, this.numBuckets)];
+        node = this.getNode(key, bucket);
+        return node == null ? null : new Found(node, bucket);
+    }
+
+    /**
+     * Returns the old-table bucket for hashCode if it has not been migrated
+     * yet, otherwise null.
+     */
+    private Collection<Node> oldBucketFor(int hashCode) {
+        int oldOffset = this.getBucketOffset(hashCode, this.oldNumBuckets);
+        return oldOffset < this.migrateIndex ? null : this.oldBuckets[oldOffset];
     }
 
     private Node getNode(K key, Collection<Node> bucket) {
+        if (bucket == null) {
+            return null;
+        }
+
+        return this.findInBucket(bucket, key);
+    }
+
+    /**
+     * Returns the node holding key in bucket, or null if there is none.
+     * <p>
+     * The default scans the whole bucket. Override this together with
+     * createBucket() when the bucket type can find a key faster than that.
+     */
+    protected Node findInBucket(Collection<Node> bucket, K key) {
         for (Node n : bucket) {
             if (n.key.equals(key)) {
                 return n;
@@ -172,6 +392,46 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
         return null;
     }
 
+    /**
+     * Returns the number of keys a lookup of key compares against, counting
+     * the old table as well while a migration is running. Only used for
+     * metrics, so it can afford to search the buckets a second time.
+     */
+    private int probesFor(K key) {
+        int hashCode = key.hashCode();
+        int probes = 0;
+        if (this.oldBuckets != null) {
+            Collection<Node> oldBucket = this.oldBucketFor(hashCode);
+            if (oldBucket != null) {
+                probes += this.probesInBucket(oldBucket, key);
+                if (this.findInBucket(oldBucket, key) != null) {
+                    return probes;
+                }
+            }
+        }
+
+        Collection<Node> bucket = this.buckets[this.getBucketOffset(hashCode, this.numBuckets)];
+        return bucket == null ? probes : probes + this.probesInBucket(bucket, key);
+    }
+
+    /**
+     * Returns the number of keys findInBucket() compares key against.
+     * <p>
+     * The default matches the default findInBucket(), which scans the
+     * bucket in order. Override both together.
+     */
+    protected int probesInBucket(Collection<Node> bucket, K key) {
+        int probes = 0;
+        for (Node n : bucket) {
+            probes += 1;
+            if (n.key.equals(key)) {
+                break;
+            }
+        }
+
+        return probes;
+    }
+
     /**
      * Returns the number of key-value mappings in this map.
      */
@@ -185,29 +445,153 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
     }
 
     private void resize() {
-        int newNumBuckets = this.numBuckets * this.RESIZE_FACTOR;
-        Collection<Node>[] newBuckets = this.setupBuckets(newNumBuckets);
+        if (this.metrics == MapMetrics.NOOP) {
+            this.growTable();
+            return;
+        }
+
+        int oldNumBuckets = this.numBuckets;
+        long start = System.nanoTime();
+        this.growTable();
+        this.metrics.onResize(oldNumBuckets, this.numBuckets, System.nanoTime() - start);
+    }
+
+    /**
+     * Rehashes into a table of newNumBuckets at once, reporting it to the
+     * metrics like a resize. Shrinking never runs incrementally.
+     */
+    private void resizeTo(int newNumBuckets) {
+        this.completeMigration();
+        if (this.metrics == MapMetrics.NOOP) {
+            this.rehash(newNumBuckets);
+            return;
+        }
+
+        int oldNumBuckets = this.numBuckets;
+        long start = System.nanoTime();
+        this.rehash(newNumBuckets);
+        this.metrics.onResize(oldNumBuckets, this.numBuckets, System.nanoTime() - start);
+    }
 
-        Iterator<K> iter = new HashIterator();
-        while (iter.hasNext()) {
-            K key = iter.next();
-            V val = this.get(key);
+    /** Halves the table if shrinking is on and the load factor is below it. */
+    private void shrinkIfSparse() {
+        if (this.shrinkLoadFactor > 0 && this.numBuckets > this.minBuckets
+                && this.calculateCurrentLoadFactor() < this.shrinkLoadFactor) {
+            this.resizeTo(Math.max(this.minBuckets, this.numBuckets / RESIZE_FACTOR));
+        }
+    }
 
-            int newBucketOffset = this.getBucketOffset(key.hashCode(), newNumBuckets);
-            this.bucketAddNode(newBuckets[newBucketOffset], new Node(key, val));
+    /**
+     * Shrinks the table to the fewest buckets that hold the current items
+     * within the maximum load factor, drops every empty bucket object, and
+     * trims ArrayList buckets to their length. Later puts grow the table
+     * again as usual.
+     */
+    public void trimToSize() {
+        int newNumBuckets = Math.max(1, (int) Math.ceil(this.numItems / this.loadFactor));
+        this.resizeTo(Math.min(newNumBuckets, this.numBuckets));
+        for (Collection<Node> bucket : this.buckets) {
+            if (bucket instanceof ArrayList) {
+                ((ArrayList<Node>) bucket).trimToSize();
+            }
         }
+    }
 
-        this.buckets = newBuckets;
+    /**
+     * Grows the table by RESIZE_FACTOR. Nodes are moved into the new table as
+     * they are, without being looked up or copied again.
+     */
+    private void growTable() {
+        int newNumBuckets = this.numBuckets * this.RESIZE_FACTOR;
+
+        if (this.incrementalResize) {
+            // a new resize can only start once the previous one is done
+            this.completeMigration();
+            this.oldBuckets = this.buckets;
+            this.oldNumBuckets = this.numBuckets;
+            this.migrateIndex = 0;
+            // new buckets are created on first use, see bucketAddNode()
+            this.buckets = this.setupBuckets(newNumBuckets);
+            this.numBuckets = newNumBuckets;
+            return;
+        }
+
+        this.rehash(newNumBuckets);
+    }
+
+    /**
+     * Moves every node into a new table of newNumBuckets, creating only the
+     * buckets that get a node. Nodes are moved as they are, without being
+     * looked up or copied again.
+     */
+    private void rehash(int newNumBuckets) {
+        Collection<Node>[] oldBuckets = this.buckets;
+        this.buckets = this.setupBuckets(newNumBuckets);
         this.numBuckets = newNumBuckets;
+        for (Collection<Node> bucket : oldBuckets) {
+            if (bucket == null) {
+                continue;
+            }
+            for (Node node : bucket) {
+                this.myPut(node);
+            }
+        }
+    }
+
+    /**
+     * Moves up to MIGRATE_BUCKETS_PER_OP buckets of the old table into the
+     * new one. Does nothing unless a migration is running.
+     */
+    private void migrateStep() {
+        if (this.oldBuckets == null) {
+            return;
+        }
+
+        int end = Math.min(this.migrateIndex + MIGRATE_BUCKETS_PER_OP, this.oldNumBuckets);
+        this.migrateBuckets(end);
+    }
+
+    /** Moves every remaining bucket of the old table into the new one. */
+    private void completeMigration() {
+        if (this.oldBuckets == null) {
+            return;
+        }
+
+        this.migrateBuckets(this.oldNumBuckets);
     }
 
-    private void bucketAddNode(Collection<Node> bucket, Node node) {
-        bucket.add(node);
+    /** Returns true while an incremental resize has buckets left to move. */
+    boolean isMigrating() {
+        return this.oldBuckets != null;
+    }
+
+    private void migrateBuckets(int end) {
+        for (; this.migrateIndex < end; this.migrateIndex++) {
+            Collection<Node> bucket = this.oldBuckets[this.migrateIndex];
+            if (bucket == null) {
+                continue;
+            }
+            for (Node node : bucket) {
+                this.myPut(node);
+            }
+            this.oldBuckets[this.migrateIndex] = null;
+        }
+
+        if (this.migrateIndex == this.oldNumBuckets) {
+            this.oldBuckets = null;
+        }
+    }
+
+    private void bucketAddNode(int bucketOffset, Node node) {
+        if (this.buckets[bucketOffset] == null) {
+            this.buckets[bucketOffset] = this.createBucket();
+        }
+        this.buckets[bucketOffset].add(node);
     }
 
     private void myPut(Node node) {
         int bucketOffset = this.getBucketOffset(node.key.hashCode(), this.numBuckets);
-        this.bucketAddNode(this.buckets[bucketOffset], node);
+        this.bucketAddNode(bucketOffset, node);
     }
 
     /**
@@ -221,29 +605,159 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
             throw new IllegalArgumentException();
         }
 
-        // this kv has already exists
-        V oldValue = this.get(key);
-        if (oldValue != null) {
-            // put different value, update
-            if (!oldValue.equals(value)) {
-                int bucketOffset = this.getBucketOffset(key.hashCode(), this.numBuckets);
-                for (Node node : this.buckets[bucketOffset]) {
-                    if (node.key.equals(key)) {
-                        node.value = value;
-                        return;
-                    }
-                }
-            }
+        this.migrateStep();
+        this.recordPut(key);
+
+        // this kv has already exists, update
+        Node node = this.findNode(key);
+        if (node != null) {
+            node.value = value;
+            this.afterNodeAccess(node);
             return;
         }
 
+        this.addNode(key, value);
+    }
+
+    private void recordPut(K key) {
+        if (this.metrics != MapMetrics.NOOP) {
+            this.metrics.onPut(this.probesFor(key));
+        }
+    }
+
+    /** Adds a node for key, which must be absent, resizing first if needed. */
+    private void addNode(K key, V value) {
         double newLoadFactor = this.calculateCurrentLoadFactor();
         if (newLoadFactor > this.loadFactor) {
             this.resize();
         }
 
-        this.myPut(new Node(key, value));
+        Node node = this.createNode(key, value);
+        this.myPut(node);
         this.numItems += 1;
+        this.afterNodeInsertion(node);
+    }
+
+    /*
+     * The upserts below look the key up once with findNode(), or locate()
+     * when they may remove it, and then work on that node, or add a new one,
+     * without searching again. The functions they are given must not modify
+     * this map.
+     */
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.migrateStep();
+        this.recordPut(key);
+        Node node = this.findNode(key);
+        if (node == null) {
+            this.addNode(key, value);
+            return null;
+        }
+        if (node.value == null) {
+            node.value = value;
+            this.afterNodeAccess(node);
+            return null;
+        }
+        this.afterNodeAccess(node);
+        return node.value;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.migrateStep();
+        this.recordPut(key);
+        Node node = this.findNode(key);
+        if (node != null && node.value != null) {
+            this.afterNodeAccess(node);
+            return node.value;
+        }
+
+        V value = mappingFunction.apply(key);
+        if (value == null) {
+            return null;
+        }
+        if (node != null) {
+            node.value = value;
+            this.afterNodeAccess(node);
+        } else {
+            this.addNode(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.migrateStep();
+        this.recordPut(key);
+        Found found = this.locate(key);
+        V value = remappingFunction.apply(key, found == null ? null : found.node.value);
+        this.setOrRemove(key, found, value);
+        return value;
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.migrateStep();
+        this.recordPut(key);
+        Found found = this.locate(key);
+        V newValue = found == null || found.node.value == null
+                ? value : remappingFunction.apply(found.node.value, value);
+        this.setOrRemove(key, found, newValue);
+        return newValue;
+    }
+
+    /**
+     * Maps key, located at found or absent if found is null, to value,
+     * or removes it if value is null.
+     */
+    private void setOrRemove(K key, Found found, V value) {
+        if (found == null) {
+            if (value != null) {
+                this.addNode(key, value);
+            }
+        } else if (value != null) {
+            found.node.value = value;
+            this.afterNodeAccess(found.node);
+        } else {
+            this.removeNode(found.node, found.bucket);
+        }
+    }
+
+    /**
+     * Returns statistics about how the keys are spread over the buckets:
+     * a histogram of bucket lengths, the longest chain and the share of
+     * empty buckets. Finishes any pending incremental resize first.
+     */
+    public BucketStats stats() {
+        this.completeMigration();
+
+        int[] histogram = new int[1];
+        for (Collection<Node> bucket : this.buckets) {
+            int length = bucket == null ? 0 : bucket.size();
+            if (length >= histogram.length) {
+                histogram = Arrays.copyOf(histogram, length + 1);
+            }
+            histogram[length] += 1;
+        }
+
+        return new BucketStats(this.numBuckets, this.numItems, histogram);
     }
 
     private class HashIterator implements Iterator<K> {
@@ -251,12 +765,14 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
         private int bucketOffset;
         private int iterNumItems;
         private Iterator<Node> bucketIter;
+        private Node lastNode;
 
         public HashIterator() {
+            completeMigration();
             this.currCount = 0;
-            this.bucketOffset = 0;
+            this.bucketOffset = -1;
             this.iterNumItems = numItems;
-            this.bucketIter = buckets[this.bucketOffset].iterator();
+            this.bucketIter = Collections.emptyIterator();
         }
 
         @Override
@@ -266,17 +782,321 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
 
         @Override
         public K next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
             this.currCount += 1;
-            if (this.bucketIter.hasNext()) {
-                return bucketIter.next().key;
+            if (!this.bucketIter.hasNext()) {
+                do {
+                    bucketOffset += 1;
+                } while (buckets[this.bucketOffset] == null || buckets[this.bucketOffset].isEmpty());
+
+                bucketIter = buckets[this.bucketOffset].iterator();
+            }
+
+            this.lastNode = bucketIter.next();
+            return this.lastNode.key;
+        }
+
+        @Override
+        public void remove() {
+            if (this.lastNode == null) {
+                throw new IllegalStateException();
+            }
+            this.bucketIter.remove();
+            numItems -= 1;
+            this.iterNumItems -= 1;
+            this.currCount -= 1;
+            afterNodeRemoval(this.lastNode);
+            this.lastNode = null;
+        }
+    }
+
+    /**
+     * Walks the nodes of the buckets in [index, fence). List buckets with
+     * random access are read by index, so walking the default ArrayList
+     * buckets allocates no iterator; other buckets are iterated. Shared by
+     * forEach(), Cursor and BucketSpliterator.
+     */
+    private class BucketWalk {
+        private int index;
+        private int fence;
+        private List<Node> list;
+        private int pos;
+        private Iterator<Node> bucketIter;
+
+        BucketWalk(int index, int fence) {
+            this.reset(index, fence);
+        }
+
+        /** Starts over at bucket index, forgetting the open bucket. */
+        void reset(int index, int fence) {
+            this.index = index;
+            this.fence = fence;
+            this.list = null;
+            this.bucketIter = null;
+        }
+
+        /** Returns the next node, or null once the range is done. */
+        Node next() {
+            while (true) {
+                if (this.list != null && this.pos < this.list.size()) {
+                    return this.list.get(this.pos++);
+                }
+                if (this.bucketIter != null && this.bucketIter.hasNext()) {
+                    return this.bucketIter.next();
+                }
+                if (this.index >= this.fence) {
+                    return null;
+                }
+                this.openBucket(buckets[this.index++]);
+            }
+        }
+
+        private void openBucket(Collection<Node> bucket) {
+            this.list = null;
+            this.bucketIter = null;
+            this.pos = 0;
+            if (bucket instanceof RandomAccess && bucket instanceof List) {
+                this.list = (List<Node>) bucket;
+            } else if (bucket != null && !bucket.isEmpty()) {
+                this.bucketIter = bucket.iterator();
+            }
+        }
+    }
+
+    /**
+     * A reusable position in the map for walking over its entries without
+     * allocating a Map.Entry, or a bucket iterator for list buckets, per item:
+     * <pre>
+     *     MyHashMap&lt;K, V&gt;.Cursor c = map.cursor();
+     *     while (c.next()) {
+     *         use(c.key(), c.value());
+     *     }
+     *     c.reset();  // walk again with the same cursor
+     * </pre>
+     * The map must not be structurally modified while a walk is in progress,
+     * but setValue() may be used to update the current entry. Like put(), it
+     * counts as an access, so a map that evicts, like CacheMap61B, may remove
+     * entries from it; the walk must then be restarted with reset().
+     */
+    public class Cursor {
+        private final BucketWalk walk = new BucketWalk(0, 0);
+        private Node node;
+
+        private Cursor() {
+            this.reset();
+        }
+
+        /** Moves back to before the first entry. */
+        public void reset() {
+            completeMigration();
+            this.walk.reset(0, numBuckets);
+            this.node = null;
+        }
+
+        /** Moves to the next entry, returning false once there are none left. */
+        public boolean next() {
+            this.node = this.walk.next();
+            return this.node != null;
+        }
+
+        private Node current() {
+            if (this.node == null) {
+                throw new IllegalStateException("cursor is not on an entry");
+            }
+            return this.node;
+        }
+
+        public K key() {
+            return this.current().key;
+        }
+
+        public V value() {
+            return this.current().value;
+        }
+
+        /** Replaces the value of the current entry. */
+        public void setValue(V value) {
+            Node current = this.current();
+            current.value = value;
+            afterNodeAccess(current);
+        }
+    }
+
+    /**
+     * Returns a new Cursor before the first entry of this map.
+     * Finishes any pending incremental resize first.
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Returns an immutable copy of this map built on a minimal perfect hash
+     * of its keys (see FrozenHashMap), for maps that are built once and then
+     * only read. Later changes to this map do not show in the copy.
+     */
+    public FrozenHashMap<K, V> freeze() {
+        return new FrozenHashMap<>(this);
+    }
+
+    /**
+     * Writes every entry to channel, from its position on, with the given
+     * codecs. The format is
+     * <pre>
+     *   header   long magic, int version, int # buckets, int size,
+     *            int hash strategy (the Standard ordinal, or -1)
+     *   buckets  for every non-empty bucket, in order:
+     *            int bucket offset, int # entries,
+     *            then per entry [int length][key] [int length][value]
+     *   end      int -1
+     * </pre>
+     * A null value is written as a length of -1. Finishes any pending
+     * incremental resize first. The channel is left right after the snapshot.
+     */
+    public void writeTo(FileChannel channel, Codec<K> keyCodec, Codec<V> valueCodec)
+            throws IOException {
+        if (channel == null || keyCodec == null || valueCodec == null) {
+            throw new IllegalArgumentException();
+        }
+
+        this.completeMigration();
+        SnapshotOutput out = new SnapshotOutput(channel);
+        out.writeLong(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeInt(this.numBuckets);
+        out.writeInt(this.numItems);
+        out.writeInt(this.hashStrategy instanceof HashStrategy.Standard
+                ? ((HashStrategy.Standard) this.hashStrategy).ordinal() : NO_STRATEGY);
+        for (int offset = 0; offset < this.numBuckets; offset++) {
+            Collection<Node> bucket = this.buckets[offset];
+            if (bucket == null || bucket.isEmpty()) {
+                continue;
+            }
+            out.writeInt(offset);
+            out.writeInt(bucket.size());
+            for (Node node : bucket) {
+                out.write(keyCodec, node.key);
+                out.write(valueCodec, node.value);
+            }
+        }
+        out.writeInt(-1);
+        out.flush();
+    }
+
+    /**
+     * Replaces the contents of this map with a snapshot that writeTo() wrote
+     * to channel, read from its position on with the given codecs.
+     * <p>
+     * When the snapshot used the same hash strategy as this map and fits
+     * its maximum load factor, the table is made as large as the one that
+     * was saved and every entry goes straight into the bucket it was saved
+     * from: no key is compared or looked up. Each key's hash code is still
+     * checked against its saved bucket, and if one differs, as enum and
+     * identity hash codes do from one JVM run to the next, or the strategy
+     * or load factor does not match, the table is sized for the entries up
+     * front and they are put() one by one.
+     * <p>
+     * The whole snapshot is read before this map is touched, so an
+     * exception leaves it as it was. The node hooks then see every
+     * insertion in snapshot order, after all the entries are in place. The
+     * channel is left right after the snapshot.
+     *
+     * @throws IOException if the channel fails or does not hold a snapshot
+     */
+    public void readFrom(FileChannel channel, Codec<K> keyCodec, Codec<V> valueCodec)
+            throws IOException {
+        if (channel == null || keyCodec == null || valueCodec == null) {
+            throw new IllegalArgumentException();
+        }
+
+        SnapshotInput in = new SnapshotInput(channel);
+        if (in.readLong() != SNAPSHOT_MAGIC) {
+            throw new IOException("not a MyHashMap snapshot");
+        }
+        int version = in.readInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IOException("unknown snapshot version " + version);
+        }
+        int savedBuckets = in.readInt();
+        int savedItems = in.readInt();
+        int strategy = in.readInt();
+        if (savedBuckets <= 0 || savedItems < 0) {
+            throw new IOException("corrupt snapshot header");
+        }
+
+        boolean sameBuckets = strategy != NO_STRATEGY
+                && this.hashStrategy instanceof HashStrategy.Standard
+                && ((HashStrategy.Standard) this.hashStrategy).ordinal() == strategy
+                && (double) savedItems / savedBuckets <= this.loadFactor;
+        // a table that fits the snapshot's load can also take the entries by put()
+        int tableSize = sameBuckets ? savedBuckets
+                : Math.max(NUM_DEFAULT_BUCKET, (int) Math.ceil(savedItems / this.loadFactor));
+        Collection<Node>[] table = this.setupBuckets(tableSize);
+        boolean placed = sameBuckets;
+        List<Node> nodes = new ArrayList<>(savedItems);
+
+        int read = 0;
+        for (int offset = in.readInt(); offset != -1; offset = in.readInt()) {
+            int count = in.readInt();
+            if (offset < 0 || offset >= savedBuckets || count <= 0 || count > savedItems - read) {
+                throw new IOException("corrupt snapshot: bucket " + offset + " of " + count);
             }
+            for (int i = 0; i < count; i++) {
+                K key = in.read(keyCodec);
+                V value = in.read(valueCodec);
+                if (key == null) {
+                    throw new IOException("corrupt snapshot: null key");
+                }
+                Node node = this.createNode(key, value);
+                nodes.add(node);
+                if (!placed) {
+                    continue;
+                }
+                if (this.getBucketOffset(key.hashCode(), savedBuckets) != offset) {
+                    placed = false;
+                    Arrays.fill(table, null);
+                    continue;
+                }
+                if (table[offset] == null) {
+                    table[offset] = this.createBucket();
+                }
+                table[offset].add(node);
+            }
+            read += count;
+        }
+        if (read != savedItems) {
+            throw new IOException("corrupt snapshot: " + read + " of " + savedItems + " entries");
+        }
+        in.finish();
 
-            do {
-                bucketOffset += 1;
-            } while (buckets[this.bucketOffset].isEmpty());
+        this.clear();
+        this.numBuckets = tableSize;
+        this.buckets = table;
+        if (placed) {
+            this.numItems = nodes.size();
+            for (Node node : nodes) {
+                this.afterNodeInsertion(node);
+            }
+        } else {
+            for (Node node : nodes) {
+                this.put(node.key, node.value);
+            }
+        }
+    }
 
-            bucketIter = buckets[this.bucketOffset].iterator();
-            return bucketIter.next().key;
+    /**
+     * Performs action on every entry in a single pass over the buckets,
+     * without looking any key up again. Finishes any pending incremental
+     * resize first.
+     */
+    @Override
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        this.completeMigration();
+        BucketWalk walk = new BucketWalk(0, this.numBuckets);
+        for (Node node = walk.next(); node != null; node = walk.next()) {
+            action.accept(node.key, node.value);
         }
     }
 
@@ -286,18 +1106,162 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
     }
 
     /**
-     * Returns a Set view of the keys contained in this map.
+     * A Spliterator over the buckets in [index, fence) that hands out
+     * extract(node) for every node. Splitting gives away the upper half of
+     * the remaining buckets. Only the unsplit top-level spliterator knows its
+     * exact size; the halves estimate theirs as half of their parent's.
+     * The map must not be modified while a spliterator is in use.
+     */
+    private class BucketSpliterator<T> implements Spliterator<T> {
+        private final Function<Node, T> extract;
+        private final BucketWalk walk;
+        private long estimate;
+        private boolean exact;
+
+        BucketSpliterator(Function<Node, T> extract, int index, int fence, long estimate,
+                          boolean exact) {
+            this.extract = extract;
+            this.walk = new BucketWalk(index, fence);
+            this.estimate = estimate;
+            this.exact = exact;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Node node = this.walk.next();
+            if (node == null) {
+                return false;
+            }
+            action.accept(this.extract.apply(node));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            for (Node node = this.walk.next(); node != null; node = this.walk.next()) {
+                action.accept(this.extract.apply(node));
+            }
+        }
+
+        /** Gives away the upper half of the buckets that are left. */
+        @Override
+        public Spliterator<T> trySplit() {
+            int mid = (this.walk.index + this.walk.fence) >>> 1;
+            if (mid <= this.walk.index) {
+                return null;
+            }
+
+            int upperFence = this.walk.fence;
+            this.walk.fence = mid;
+            this.estimate >>>= 1;
+            this.exact = false;
+            return new BucketSpliterator<>(this.extract, mid, upperFence, this.estimate, false);
+        }
+
+        @Override
+        public long estimateSize() {
+            return this.estimate;
+        }
+
+        @Override
+        public int characteristics() {
+            return (this.exact ? Spliterator.SIZED : 0) | Spliterator.DISTINCT
+                    | Spliterator.NONNULL;
+        }
+    }
+
+    /**
+     * Returns a Spliterator over the keys that splits by bucket ranges.
+     * Finishes any pending incremental resize first.
      */
     @Override
-    public Set<K> keySet() {
-        HashSet<K> keys = new HashSet<>();
-        Iterator<K> iter = new HashIterator();
+    public Spliterator<K> spliterator() {
+        this.completeMigration();
+        return new BucketSpliterator<>(node -> node.key, 0, this.numBuckets, this.numItems, true);
+    }
+
+    private Spliterator<Map.Entry<K, V>> entrySpliterator() {
+        this.completeMigration();
+        return new BucketSpliterator<>(
+            node -> new AbstractMap.SimpleImmutableEntry<>(node.key, node.value),
+            0, this.numBuckets, this.numItems, true);
+    }
+
+    /** Returns a sequential Stream over the keys. */
+    public Stream<K> stream() {
+        return StreamSupport.stream(this.spliterator(), false);
+    }
+
+    /** Returns a parallel Stream over the keys, split by bucket ranges. */
+    public Stream<K> parallelStream() {
+        return StreamSupport.stream(this.spliterator(), true);
+    }
 
-        while (iter.hasNext()) {
-            keys.add(iter.next());
+    /** Returns a sequential Stream over immutable snapshots of the entries. */
+    public Stream<Map.Entry<K, V>> entryStream() {
+        return StreamSupport.stream(this.entrySpliterator(), false);
+    }
+
+    /**
+     * Returns a parallel Stream over immutable snapshots of the entries,
+     * split by bucket ranges.
+     */
+    public Stream<Map.Entry<K, V>> parallelEntryStream() {
+        return StreamSupport.stream(this.entrySpliterator(), true);
+    }
+
+    /**
+     * A live view of the keys. Changes to the map show through it, and
+     * removing keys from it removes them from the map.
+     */
+    private class KeySet extends AbstractSet<K> {
+        @Override
+        public int size() {
+            return numItems;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return MyHashMap.this.iterator();
         }
 
-        return keys;
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            try {
+                return o != null && containsKey((K) o);
+            } catch (ClassCastException e) {
+                return false;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean remove(Object o) {
+            if (!this.contains(o)) {
+                return false;
+            }
+            MyHashMap.this.remove((K) o);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            MyHashMap.this.clear();
+        }
+    }
+
+    /**
+     * Returns a Set view of the keys contained in this map. The view is live
+     * and is created once, so calling keySet() copies nothing.
+     */
+    @Override
+    public Set<K> keySet() {
+        if (this.keySetView == null) {
+            this.keySetView = new KeySet();
+        }
+
+        return this.keySetView;
     }
 
     /**
@@ -311,15 +1275,18 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
             throw new IllegalArgumentException();
         }
 
-        int bucketOffset = this.getBucketOffset(key.hashCode(), this.numBuckets);
-        Node node = this.getNode(key, this.buckets[bucketOffset]);
-        if (node == null) {
+        this.migrateStep();
+        if (this.metrics != MapMetrics.NOOP) {
+            this.metrics.onRemove(this.probesFor(key));
+        }
+        Found found = this.locate(key);
+        if (found == null) {
             return null;
         }
 
-        this.removeNode(node, bucketOffset);
+        this.removeNode(found.node, found.bucket);
 
-        return node.value;
+        return found.node.value;
     }
 
     /**
@@ -333,20 +1300,25 @@ public class MyHashMap<K, V> implements Map61B<K, V> {
             throw new IllegalArgumentException();
         }
 
-        int bucketOffset = this.getBucketOffset(key.hashCode(), this.numBuckets);
-        Node node = this.getNode(key, this.buckets[bucketOffset]);
-        if (node == null) {
+        this.migrateStep();
+        if (this.metrics != MapMetrics.NOOP) {
+            this.metrics.onRemove(this.probesFor(key));
+        }
+        Found found = this.locate(key);
+        if (found == null) {
             return value;
         }
-        if (node.value.equals(value)) {
-            this.removeNode(node, bucketOffset);
+        if (found.node.value.equals(value)) {
+            this.removeNode(found.node, found.bucket);
         }
 
         return value;
     }
 
-    private void removeNode(Node node, int bucketOffset) {
-        this.buckets[bucketOffset].remove(node);
+    private void removeNode(Node node, Collection<Node> bucket) {
+        bucket.remove(node);
         this.numItems -= 1;
+        this.afterNodeRemoval(node);
+        this.shrinkIfSparse();
     }
 }
@@ -38,6 +38,18 @@ public class MyHashMapALBuckets<K, V> extends MyHashMap<K, V> {
         super(initialSize, maxLoad);
     }
 
+    /**
+     * Constructor that creates a backing array of initialSize
+     * and picks buckets with hashStrategy
+     *
+     * @param initialSize initial size of backing array
+     * @param maxLoad maximum load factor
+     * @param hashStrategy maps key hash codes to buckets
+     */
+    public MyHashMapALBuckets(int initialSize, double maxLoad, HashStrategy hashStrategy) {
+        super(initialSize, maxLoad, hashStrategy);
+    }
+
     @Override
     protected Collection<Node> createBucket() {
         return new ArrayList<>();
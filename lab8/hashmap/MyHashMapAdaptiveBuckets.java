@@ -0,0 +1,75 @@
+package hashmap;
+
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Hash Table with adaptive buckets that start as array lists and turn into
+ * trees once a bucket holds too many colliding keys (see AdaptiveBucket).
+ * Trees need comparable keys, so we restrict our map to only allow
+ * comparable keys
+ */
+public class MyHashMapAdaptiveBuckets<K extends Comparable<K>, V> extends MyHashMap<K, V> {
+
+    /**
+     * Constructor that creates a backing array with default
+     * initial size and load factor
+     */
+    public MyHashMapAdaptiveBuckets() {
+        super();
+    }
+
+    /**
+     * Constructor that creates a backing array of initialSize
+     * and default load factor
+     *
+     * @param initialSize initial size of backing array
+     */
+    public MyHashMapAdaptiveBuckets(int initialSize) {
+        super(initialSize);
+    }
+
+    /**
+     * Constructor that creates a backing array of initialSize.
+     * The load factor (# items / # buckets) should always be <= loadFactor
+     *
+     * @param initialSize initial size of backing array
+     * @param maxLoad maximum load factor
+     */
+    public MyHashMapAdaptiveBuckets(int initialSize, double maxLoad) {
+        super(initialSize, maxLoad);
+    }
+
+    /**
+     * Constructor that creates a backing array of initialSize
+     * and picks buckets with hashStrategy
+     *
+     * @param initialSize initial size of backing array
+     * @param maxLoad maximum load factor
+     * @param hashStrategy maps key hash codes to buckets
+     */
+    public MyHashMapAdaptiveBuckets(int initialSize, double maxLoad, HashStrategy hashStrategy) {
+        super(initialSize, maxLoad, hashStrategy);
+    }
+
+    @Override
+    protected Collection<Node> createBucket() {
+        return new AdaptiveBucket<Node, K>(n -> n.key, Comparator.naturalOrder());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected Node findInBucket(Collection<Node> bucket, K key) {
+        return ((AdaptiveBucket<Node, K>) bucket).find(key);
+    }
+
+    /** A tree bucket compares about log2(size) keys, the depth of the tree. */
+    @Override
+    @SuppressWarnings("unchecked")
+    protected int probesInBucket(Collection<Node> bucket, K key) {
+        if (((AdaptiveBucket<Node, K>) bucket).isTree()) {
+            return 32 - Integer.numberOfLeadingZeros(bucket.size());
+        }
+        return super.probesInBucket(bucket, key);
+    }
+}
@@ -42,6 +42,18 @@ public class MyHashMapPQBuckets<K extends Comparable<K>, V> extends MyHashMap<K,
         super(initialSize, maxLoad);
     }
 
+    /**
+     * Constructor that creates a backing array of initialSize
+     * and picks buckets with hashStrategy
+     *
+     * @param initialSize initial size of backing array
+     * @param maxLoad maximum load factor
+     * @param hashStrategy maps key hash codes to buckets
+     */
+    public MyHashMapPQBuckets(int initialSize, double maxLoad, HashStrategy hashStrategy) {
+        super(initialSize, maxLoad, hashStrategy);
+    }
+
     @Override
     protected Collection<Node> createBucket() {
         // This is fancy new-fangled Java that says in plain English:
@@ -0,0 +1,241 @@
+package hashmap;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash map from object keys to primitive int values. Keys live in a K[]
+ * and values in an int[] that are probed together with linear probing, so
+ * neither putInt() nor addTo() allocates anything once the table is big
+ * enough. Missing keys read as 0; use containsKey() to tell them apart.
+ * <p>
+ * Removal uses the same backward-shift deletion as OpenAddressingHashMap.
+ * Assumes null keys will never be inserted.
+ */
+public class ObjectIntMap<K> implements Iterable<K> {
+
+    private static final int RESIZE_FACTOR = 2;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.5;
+
+    /* Instance Variables */
+    private K[] keys;
+    private int[] values;
+    private int numItems = 0;
+    private int mask;
+    private final double loadFactor;
+    private final int initialCapacity;
+
+    /**
+     * Constructors
+     */
+    public ObjectIntMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public ObjectIntMap(int initialSize) {
+        this(initialSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * ObjectIntMap constructor that creates backing arrays of at least
+     * initialSize slots, rounded up to a power of two.
+     *
+     * @param initialSize initial size of backing arrays
+     * @param maxLoad     maximum load factor, must be in (0, 1)
+     */
+    public ObjectIntMap(int initialSize, double maxLoad) {
+        if (initialSize <= 0 || maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.loadFactor = maxLoad;
+        this.initialCapacity = tableSizeFor(initialSize);
+        this.setupTable(this.initialCapacity);
+    }
+
+    private static int tableSizeFor(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size, 2) - 1) << 1;
+        return capacity < 0 ? 1 << 30 : capacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setupTable(int capacity) {
+        this.keys = (K[]) new Object[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slotOf(Object key) {
+        return spread(key.hashCode()) & this.mask;
+    }
+
+    /**
+     * Returns the slot holding key if present, otherwise the bitwise
+     * complement of the empty slot where it would be inserted.
+     */
+    private int probe(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = this.slotOf(key);
+        K k;
+        while ((k = this.keys[slot]) != null) {
+            if (k.equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+
+        return ~slot;
+    }
+
+    /** Removes all of the mappings from this map. */
+    public void clear() {
+        this.numItems = 0;
+        this.setupTable(this.initialCapacity);
+    }
+
+    /** Returns the number of key-value mappings in this map. */
+    public int size() {
+        return this.numItems;
+    }
+
+    /** Returns true if this map contains a mapping for the specified key. */
+    public boolean containsKey(K key) {
+        return this.probe(key) >= 0;
+    }
+
+    /** Returns the value mapped to key, or 0 if there is no mapping. */
+    public int getInt(K key) {
+        int slot = this.probe(key);
+        return slot < 0 ? 0 : this.values[slot];
+    }
+
+    /**
+     * Maps key to value and returns the previous value, or 0 if the key
+     * was absent.
+     */
+    public int putInt(K key, int value) {
+        int slot = this.probe(key);
+        if (slot >= 0) {
+            int oldValue = this.values[slot];
+            this.values[slot] = value;
+            return oldValue;
+        }
+
+        this.insertAt(~slot, key, value);
+        return 0;
+    }
+
+    /**
+     * Adds increment to the value mapped to key, treating a missing key as 0,
+     * and returns the new value. This is the single-probe word-count update.
+     */
+    public int addTo(K key, int increment) {
+        int slot = this.probe(key);
+        if (slot >= 0) {
+            this.values[slot] += increment;
+            return this.values[slot];
+        }
+
+        this.insertAt(~slot, key, increment);
+        return increment;
+    }
+
+    private void insertAt(int slot, K key, int value) {
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        this.numItems += 1;
+
+        if (this.numItems > this.loadFactor * this.keys.length) {
+            this.resize(this.keys.length * RESIZE_FACTOR);
+        }
+    }
+
+    private void resize(int newCapacity) {
+        K[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        this.setupTable(newCapacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            K key = oldKeys[i];
+            if (key == null) {
+                continue;
+            }
+
+            int slot = this.slotOf(key);
+            while (this.keys[slot] != null) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.keys[slot] = key;
+            this.values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Removes the mapping for key and returns its value, or 0 if the key
+     * was absent.
+     */
+    public int removeInt(K key) {
+        int slot = this.probe(key);
+        if (slot < 0) {
+            return 0;
+        }
+
+        int oldValue = this.values[slot];
+        this.removeSlot(slot);
+        return oldValue;
+    }
+
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int curr = (gap + 1) & this.mask;
+        K k;
+        while ((k = this.keys[curr]) != null) {
+            int home = this.slotOf(k);
+            if (((curr - home) & this.mask) >= ((curr - gap) & this.mask)) {
+                this.keys[gap] = k;
+                this.values[gap] = this.values[curr];
+                gap = curr;
+            }
+            curr = (curr + 1) & this.mask;
+        }
+
+        this.keys[gap] = null;
+        this.values[gap] = 0;
+        this.numItems -= 1;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new Iterator<K>() {
+            private int slot = 0;
+            private int remaining = numItems;
+
+            @Override
+            public boolean hasNext() {
+                return this.remaining > 0;
+            }
+
+            @Override
+            public K next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                while (keys[this.slot] == null) {
+                    this.slot += 1;
+                }
+                this.remaining -= 1;
+                return keys[this.slot++];
+            }
+        };
+    }
+}
@@ -0,0 +1,443 @@
+package hashmap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * A String to Integer map that keeps its keys and values outside the Java
+ * heap, so tens of millions of entries cost the garbage collector almost
+ * nothing.
+ * <p>
+ * Entries are appended to direct ByteBuffer slabs as [int value][int key
+ * length][UTF-8 key bytes]. An open-addressing index, itself a direct
+ * buffer, maps hash codes to entries. Each index slot holds the entry's
+ * reference and the key's hash code, so probing and resizing never decode
+ * a key. Updating a value overwrites it in place. Removing a key shifts the
+ * index back, like OpenAddressingHashMap, and leaves the entry bytes as dead
+ * space that is counted in deadBytes().
+ * <p>
+ * Memory is only given back by clear() and close(). After close() every
+ * method throws IllegalStateException. Assumes null keys and null values
+ * will never be inserted.
+ */
+public class OffHeapStringIntMap implements Map61B<String, Integer>, AutoCloseable {
+
+    private static final int DEFAULT_SLAB_SIZE = 1 << 26;
+    private static final int DEFAULT_INDEX_CAPACITY = 1 << 10;
+    private static final double LOAD_FACTOR = 0.6;
+    private static final int MAX_INDEX_CAPACITY = 1 << 27;
+
+    /* An index slot is an 8-byte entry reference followed by a 4-byte hash code */
+    private static final int SLOT_BYTES = 12;
+    private static final long EMPTY = 0;
+
+    /* An entry is a 4-byte value, a 4-byte key length and the key bytes */
+    private static final int ENTRY_HEADER_BYTES = 8;
+
+    /* Instance Variables */
+    private final int slabSize;
+    private final int maxIndexCapacity;
+    private final ArrayList<ByteBuffer> slabs = new ArrayList<>();
+    private int slabPosition;
+    private ByteBuffer index;
+    private int indexMask;
+    private int numItems;
+    private long deadBytes;
+    private boolean closed = false;
+
+    /**
+     * Constructors
+     */
+    public OffHeapStringIntMap() {
+        this(DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * OffHeapStringIntMap constructor that allocates entry memory in slabs of
+     * slabSize bytes. Every entry must fit in one slab.
+     *
+     * @param slabSize size in bytes of each off-heap slab
+     */
+    public OffHeapStringIntMap(int slabSize) {
+        this(slabSize, MAX_INDEX_CAPACITY);
+    }
+
+    /**
+     * OffHeapStringIntMap constructor whose index never grows past
+     * maxIndexCapacity slots, a power of two. Lets tests fill the index
+     * without allocating gigabytes.
+     */
+    OffHeapStringIntMap(int slabSize, int maxIndexCapacity) {
+        if (slabSize < 64 || maxIndexCapacity < DEFAULT_INDEX_CAPACITY
+                || Integer.bitCount(maxIndexCapacity) != 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.slabSize = slabSize;
+        this.maxIndexCapacity = maxIndexCapacity;
+        this.setup();
+    }
+
+    private void setup() {
+        this.slabs.add(ByteBuffer.allocateDirect(this.slabSize));
+        this.slabPosition = 0;
+        this.index = newIndex(DEFAULT_INDEX_CAPACITY);
+        this.indexMask = DEFAULT_INDEX_CAPACITY - 1;
+        this.numItems = 0;
+        this.deadBytes = 0;
+    }
+
+    private static ByteBuffer newIndex(int capacity) {
+        // allocateDirect zeroes the memory, so every slot starts EMPTY
+        return ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+    }
+
+    private void checkOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("map is closed");
+        }
+    }
+
+    /* ------------------------------- Entry memory ------------------------------- */
+
+    /* References are offset by one so that the first entry is not EMPTY */
+    private static long ref(int slab, int offset) {
+        return ((long) slab << 32 | offset) + 1;
+    }
+
+    private ByteBuffer slabOf(long ref) {
+        return this.slabs.get((int) ((ref - 1) >>> 32));
+    }
+
+    private static int offsetOf(long ref) {
+        return (int) (ref - 1);
+    }
+
+    private long appendEntry(byte[] key, int value) {
+        int size = ENTRY_HEADER_BYTES + key.length;
+        if (size > this.slabSize) {
+            throw new IllegalArgumentException("key does not fit in a slab");
+        }
+        if (this.slabPosition + size > this.slabSize) {
+            this.slabs.add(ByteBuffer.allocateDirect(this.slabSize));
+            this.slabPosition = 0;
+        }
+
+        int slab = this.slabs.size() - 1;
+        ByteBuffer buffer = this.slabs.get(slab);
+        int offset = this.slabPosition;
+        buffer.putInt(offset, value);
+        buffer.putInt(offset + 4, key.length);
+        for (int i = 0; i < key.length; i++) {
+            buffer.put(offset + ENTRY_HEADER_BYTES + i, key[i]);
+        }
+        this.slabPosition += size;
+        return ref(slab, offset);
+    }
+
+    private boolean keyEquals(long ref, byte[] key) {
+        ByteBuffer buffer = this.slabOf(ref);
+        int offset = offsetOf(ref);
+        if (buffer.getInt(offset + 4) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(offset + ENTRY_HEADER_BYTES + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String keyOf(long ref) {
+        ByteBuffer buffer = this.slabOf(ref);
+        int offset = offsetOf(ref);
+        byte[] bytes = new byte[buffer.getInt(offset + 4)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(offset + ENTRY_HEADER_BYTES + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /* ------------------------------- Index ------------------------------- */
+
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private long refAt(int slot) {
+        return this.index.getLong(slot * SLOT_BYTES);
+    }
+
+    private int hashAt(int slot) {
+        return this.index.getInt(slot * SLOT_BYTES + 8);
+    }
+
+    private void setSlot(int slot, long ref, int hash) {
+        this.index.putLong(slot * SLOT_BYTES, ref);
+        this.index.putInt(slot * SLOT_BYTES + 8, hash);
+    }
+
+    /**
+     * Returns the slot holding key if present, otherwise the bitwise
+     * complement of the empty slot where it would be inserted.
+     */
+    private int probe(byte[] key, int hash) {
+        int slot = spread(hash) & this.indexMask;
+        long ref;
+        while ((ref = this.refAt(slot)) != EMPTY) {
+            if (this.hashAt(slot) == hash && this.keyEquals(ref, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & this.indexMask;
+        }
+        return ~slot;
+    }
+
+    private void growIndex() {
+        int newCapacity = (this.indexMask + 1) * 2;
+        if (newCapacity > this.maxIndexCapacity) {
+            throw new IllegalStateException("index is full");
+        }
+
+        ByteBuffer oldIndex = this.index;
+        int oldCapacity = this.indexMask + 1;
+        this.index = newIndex(newCapacity);
+        this.indexMask = newCapacity - 1;
+        for (int i = 0; i < oldCapacity; i++) {
+            long ref = oldIndex.getLong(i * SLOT_BYTES);
+            if (ref == EMPTY) {
+                continue;
+            }
+            int hash = oldIndex.getInt(i * SLOT_BYTES + 8);
+            int slot = spread(hash) & this.indexMask;
+            while (this.refAt(slot) != EMPTY) {
+                slot = (slot + 1) & this.indexMask;
+            }
+            this.setSlot(slot, ref, hash);
+        }
+        DirectBuffers.free(oldIndex);
+    }
+
+    /* ------------------------------- Map61B ------------------------------- */
+
+    private static byte[] encode(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Removes all of the mappings from this map and frees all but one slab.
+     */
+    @Override
+    public void clear() {
+        this.checkOpen();
+        this.release();
+        this.setup();
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(String key) {
+        this.checkOpen();
+        return this.probe(encode(key), key.hashCode()) >= 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     */
+    @Override
+    public Integer get(String key) {
+        this.checkOpen();
+        int slot = this.probe(encode(key), key.hashCode());
+        if (slot < 0) {
+            return null;
+        }
+        long ref = this.refAt(slot);
+        return this.slabOf(ref).getInt(offsetOf(ref));
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return this.numItems;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key,
+     * the old value is replaced.
+     */
+    @Override
+    public void put(String key, Integer value) {
+        this.checkOpen();
+        if (value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        byte[] bytes = encode(key);
+        int hash = key.hashCode();
+        int slot = this.probe(bytes, hash);
+        if (slot >= 0) {
+            long ref = this.refAt(slot);
+            this.slabOf(ref).putInt(offsetOf(ref), value);
+            return;
+        }
+
+        // Grow before storing anything, so a full index rejects the key
+        // without changing the map and probing always finds an EMPTY slot
+        if (this.numItems + 1 > LOAD_FACTOR * (this.indexMask + 1)) {
+            this.growIndex();
+            slot = this.probe(bytes, hash);
+        }
+        this.setSlot(~slot, this.appendEntry(bytes, value), hash);
+        this.numItems += 1;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     */
+    @Override
+    public Integer remove(String key) {
+        this.checkOpen();
+        int slot = this.probe(encode(key), key.hashCode());
+        if (slot < 0) {
+            return null;
+        }
+
+        return this.removeSlot(slot);
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to
+     * the specified value. Returns the removed value, or null if nothing was
+     * removed.
+     */
+    @Override
+    public Integer remove(String key, Integer value) {
+        this.checkOpen();
+        int slot = this.probe(encode(key), key.hashCode());
+        if (slot < 0 || value == null) {
+            return null;
+        }
+        long ref = this.refAt(slot);
+        if (this.slabOf(ref).getInt(offsetOf(ref)) != value) {
+            return null;
+        }
+
+        return this.removeSlot(slot);
+    }
+
+    private int removeSlot(int slot) {
+        long removed = this.refAt(slot);
+        ByteBuffer buffer = this.slabOf(removed);
+        int value = buffer.getInt(offsetOf(removed));
+        this.deadBytes += ENTRY_HEADER_BYTES + buffer.getInt(offsetOf(removed) + 4);
+
+        int gap = slot;
+        int curr = (gap + 1) & this.indexMask;
+        long ref;
+        while ((ref = this.refAt(curr)) != EMPTY) {
+            int hash = this.hashAt(curr);
+            int home = spread(hash) & this.indexMask;
+            if (((curr - home) & this.indexMask) >= ((curr - gap) & this.indexMask)) {
+                this.setSlot(gap, ref, hash);
+                gap = curr;
+            }
+            curr = (curr + 1) & this.indexMask;
+        }
+        this.setSlot(gap, EMPTY, 0);
+        this.numItems -= 1;
+        return value;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        this.checkOpen();
+        return new Iterator<String>() {
+            private int slot = 0;
+            private int remaining = numItems;
+
+            @Override
+            public boolean hasNext() {
+                return this.remaining > 0;
+            }
+
+            @Override
+            public String next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                checkOpen();
+                while (refAt(this.slot) == EMPTY) {
+                    this.slot += 1;
+                }
+                this.remaining -= 1;
+                return keyOf(refAt(this.slot++));
+            }
+        };
+    }
+
+    /**
+     * Returns a Set of the keys contained in this map, decoded onto the heap.
+     */
+    @Override
+    public Set<String> keySet() {
+        HashSet<String> keys = new HashSet<>();
+        for (String key : this) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    /* ------------------------------- Memory ------------------------------- */
+
+    /** Returns the number of off-heap bytes held by the slabs and the index. */
+    public long allocatedBytes() {
+        if (this.closed) {
+            return 0;
+        }
+        return (long) this.slabs.size() * this.slabSize + this.index.capacity();
+    }
+
+    /** Returns the number of slab bytes used by entries, live or removed. */
+    public long usedBytes() {
+        return (long) (this.slabs.size() - 1) * this.slabSize + this.slabPosition;
+    }
+
+    /** Returns the number of slab bytes taken by entries that were removed. */
+    public long deadBytes() {
+        return this.deadBytes;
+    }
+
+    private void release() {
+        for (ByteBuffer slab : this.slabs) {
+            DirectBuffers.free(slab);
+        }
+        this.slabs.clear();
+        DirectBuffers.free(this.index);
+        this.index = null;
+    }
+
+    /**
+     * Frees all off-heap memory. The map cannot be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        this.release();
+        this.numItems = 0;
+    }
+}
@@ -0,0 +1,303 @@
+package hashmap;
+
+import java.util.*;
+
+/**
+ * A hash table-backed Map implementation that uses open addressing with
+ * linear probing. Keys and values live in two parallel arrays, so a lookup
+ * touches the key array directly instead of going through a bucket and a node.
+ * <p>
+ * Removal uses backward-shift deletion: the entries that follow the removed
+ * slot in its probe run are moved back, so the table never holds tombstones
+ * and probe sequences stay as short as if the removed key was never inserted.
+ * <p>
+ * Assumes null keys will never be inserted.
+ */
+public class OpenAddressingHashMap<K, V> implements Map61B<K, V> {
+
+    private static final int RESIZE_FACTOR = 2;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final double DEFAULT_LOAD_FACTOR = 0.5;
+
+    /* Instance Variables */
+    private K[] keys;
+    private V[] values;
+    private int numItems = 0;
+    private int mask;
+    private final double loadFactor;
+    private final int initialCapacity;
+
+    /**
+     * Constructors
+     */
+    public OpenAddressingHashMap() {
+        this(DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    public OpenAddressingHashMap(int initialSize) {
+        this(initialSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * OpenAddressingHashMap constructor that creates backing arrays of at least
+     * initialSize slots. The number of slots is rounded up to a power of two.
+     * The load factor (# items / # slots) should always be <= maxLoad
+     *
+     * @param initialSize initial size of backing arrays
+     * @param maxLoad     maximum load factor, must be in (0, 1)
+     */
+    public OpenAddressingHashMap(int initialSize, double maxLoad) {
+        if (initialSize <= 0 || maxLoad <= 0 || maxLoad >= 1) {
+            throw new IllegalArgumentException();
+        }
+
+        this.loadFactor = maxLoad;
+        this.initialCapacity = tableSizeFor(initialSize);
+        this.setupTable(this.initialCapacity);
+    }
+
+    private static int tableSizeFor(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size, 2) - 1) << 1;
+        return capacity < 0 ? 1 << 30 : capacity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setupTable(int capacity) {
+        this.keys = (K[]) new Object[capacity];
+        this.values = (V[]) new Object[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Spreads the higher bits of the hash code downwards, since only the low
+     * bits are used to pick a slot in a power-of-two table.
+     */
+    private static int spread(int h) {
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int slotOf(Object key) {
+        return spread(key.hashCode()) & this.mask;
+    }
+
+    /**
+     * Returns the slot holding key, or -1 if the key is absent.
+     */
+    private int findSlot(K key) {
+        int slot = this.slotOf(key);
+        K k;
+        while ((k = this.keys[slot]) != null) {
+            if (k.equals(key)) {
+                return slot;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    @Override
+    public void clear() {
+        this.numItems = 0;
+        this.setupTable(this.initialCapacity);
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        return this.findSlot(key) >= 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     */
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = this.findSlot(key);
+        return slot < 0 ? null : this.values[slot];
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return this.numItems;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key,
+     * the old value is replaced.
+     */
+    @Override
+    public void put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = this.slotOf(key);
+        K k;
+        while ((k = this.keys[slot]) != null) {
+            if (k.equals(key)) {
+                this.values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & this.mask;
+        }
+
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        this.numItems += 1;
+
+        if (this.numItems > this.loadFactor * this.keys.length) {
+            this.resize(this.keys.length * RESIZE_FACTOR);
+        }
+    }
+
+    private void resize(int newCapacity) {
+        K[] oldKeys = this.keys;
+        V[] oldValues = this.values;
+        this.setupTable(newCapacity);
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            K key = oldKeys[i];
+            if (key == null) {
+                continue;
+            }
+
+            int slot = this.slotOf(key);
+            while (this.keys[slot] != null) {
+                slot = (slot + 1) & this.mask;
+            }
+            this.keys[slot] = key;
+            this.values[slot] = oldValues[i];
+        }
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     */
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = this.findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+
+        V oldValue = this.values[slot];
+        this.removeSlot(slot);
+        return oldValue;
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to
+     * the specified value. Returns the removed value, or null if nothing was
+     * removed.
+     */
+    @Override
+    public V remove(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = this.findSlot(key);
+        if (slot < 0 || !Objects.equals(this.values[slot], value)) {
+            return null;
+        }
+
+        V oldValue = this.values[slot];
+        this.removeSlot(slot);
+        return oldValue;
+    }
+
+    /**
+     * Empties slot and shifts back every following entry of the probe run
+     * whose home slot allows it, closing the gap without a tombstone.
+     */
+    private void removeSlot(int slot) {
+        int gap = slot;
+        int curr = (gap + 1) & this.mask;
+        K k;
+        while ((k = this.keys[curr]) != null) {
+            int home = this.slotOf(k);
+            // the entry may move into the gap only if its home slot is not
+            // cyclically inside (gap, curr]
+            if (((curr - home) & this.mask) >= ((curr - gap) & this.mask)) {
+                this.keys[gap] = k;
+                this.values[gap] = this.values[curr];
+                gap = curr;
+            }
+            curr = (curr + 1) & this.mask;
+        }
+
+        this.keys[gap] = null;
+        this.values[gap] = null;
+        this.numItems -= 1;
+    }
+
+    private class ProbingIterator implements Iterator<K> {
+        private int slot;
+        private int remaining;
+
+        ProbingIterator() {
+            this.slot = 0;
+            this.remaining = numItems;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        @Override
+        public K next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            while (keys[this.slot] == null) {
+                this.slot += 1;
+            }
+            this.remaining -= 1;
+            return keys[this.slot++];
+        }
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new ProbingIterator();
+    }
+
+    /**
+     * Returns a Set view of the keys contained in this map.
+     */
+    @Override
+    public Set<K> keySet() {
+        HashSet<K> keySet = new HashSet<>();
+        for (K key : this) {
+            keySet.add(key);
+        }
+
+        return keySet;
+    }
+}
@@ -0,0 +1,566 @@
+package hashmap;
+
+import java.util.*;
+
+/**
+ * An immutable hash map, a hash array mapped trie (HAMT). Every version is a
+ * trie of nodes with up to 32 children, indexed by 5 bits of the key's hash
+ * per level. plus() and minus() return a new version that copies only the
+ * O(log32 n) nodes on the path to the key, and shares every other node with
+ * the old version, so many versions can be kept alive cheaply.
+ * <p>
+ * A node keeps a 32-bit bitmap of the children it has and stores only
+ * those, so a sparse node is small and the child for 5 hash bits is found
+ * with one bitCount(). Keys whose whole hashes are equal end up together in
+ * a collision node at the bottom of the trie.
+ * <p>
+ * Building a big map one plus() at a time copies a path for every key. A
+ * Builder from builder() or toBuilder() instead changes the nodes it created
+ * itself in place, and copies only the nodes it shares with other versions.
+ * build() hands its trie over as a new version, and the builder starts
+ * copying again.
+ * <p>
+ * put(), remove() and clear() throw UnsupportedOperationException; use
+ * plus() and minus() instead. Assumes null keys and values will never be
+ * inserted.
+ */
+public class PersistentHashMap<K, V> implements Map61B<K, V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY = new PersistentHashMap<>(null, 0);
+
+    /**
+     * A trie node. owner is the Builder allowed to change the node in place,
+     * or null for a node that belongs to persistent versions.
+     */
+    private abstract static class Node {
+        final Object owner;
+
+        Node(Object owner) {
+            this.owner = owner;
+        }
+
+        abstract Object find(int shift, int hash, Object key);
+
+        /**
+         * Returns the node with key mapped to value, where hash is key's
+         * hash, and sets added[0] if the key was new.
+         */
+        abstract Node put(Object owner, int shift, int hash, Object key, Object value,
+                          boolean[] added);
+
+        /**
+         * Returns the node without key, or null if the node is left empty,
+         * and sets removed[0] if the key was there.
+         */
+        abstract Node remove(Object owner, int shift, int hash, Object key, boolean[] removed);
+
+        /** Returns true if the node is a single entry its parent may hold instead. */
+        abstract boolean isSingleEntry();
+    }
+
+    /**
+     * An inner node. For the i-th set bit of bitmap, array[2i] is a key and
+     * array[2i + 1] its value, or array[2i] is null and array[2i + 1] the
+     * child node that holds the keys for that bit.
+     */
+    private static final class BitmapNode extends Node {
+        int bitmap;
+        Object[] array;
+
+        BitmapNode(Object owner, int bitmap, Object[] array) {
+            super(owner);
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(this.bitmap & (bit - 1));
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((this.bitmap & bit) == 0) {
+                return null;
+            }
+            int i = 2 * this.index(bit);
+            Object k = this.array[i];
+            if (k == null) {
+                return ((Node) this.array[i + 1]).find(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? this.array[i + 1] : null;
+        }
+
+        /** Returns this if owner may change it, or else a copy that owner may. */
+        private BitmapNode editable(Object owner) {
+            if (owner != null && this.owner == owner) {
+                return this;
+            }
+            return new BitmapNode(owner, this.bitmap, this.array.clone());
+        }
+
+        @Override
+        Node put(Object owner, int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            int i = 2 * this.index(bit);
+            if ((this.bitmap & bit) == 0) {
+                added[0] = true;
+                BitmapNode node = new BitmapNode(owner, this.bitmap | bit,
+                        new Object[this.array.length + 2]);
+                System.arraycopy(this.array, 0, node.array, 0, i);
+                node.array[i] = key;
+                node.array[i + 1] = value;
+                System.arraycopy(this.array, i, node.array, i + 2, this.array.length - i);
+                return node;
+            }
+
+            Object k = this.array[i];
+            Object v = this.array[i + 1];
+            if (k == null) {
+                Node child = ((Node) v).put(owner, shift + BITS, hash, key, value, added);
+                return child == v ? this : this.with(owner, i + 1, child);
+            }
+            if (key.equals(k)) {
+                return v == value ? this : this.with(owner, i + 1, value);
+            }
+
+            // two keys under the same bit: push both down into a new child
+            added[0] = true;
+            Node child = pair(owner, shift + BITS, hashOf(k), k, v, hash, key, value);
+            BitmapNode node = this.editable(owner);
+            node.array[i] = null;
+            node.array[i + 1] = child;
+            return node;
+        }
+
+        private BitmapNode with(Object owner, int i, Object o) {
+            BitmapNode node = this.editable(owner);
+            node.array[i] = o;
+            return node;
+        }
+
+        @Override
+        Node remove(Object owner, int shift, int hash, Object key, boolean[] removed) {
+            int bit = 1 << ((hash >>> shift) & MASK);
+            if ((this.bitmap & bit) == 0) {
+                return this;
+            }
+            int i = 2 * this.index(bit);
+            Object k = this.array[i];
+            if (k == null) {
+                Node child = (Node) this.array[i + 1];
+                Node newChild = child.remove(owner, shift + BITS, hash, key, removed);
+                if (newChild == child) {
+                    return this;
+                }
+                if (newChild == null) {
+                    return this.without(owner, bit, i);
+                }
+                if (newChild.isSingleEntry()) {
+                    // pull a lone entry up, so the trie stays as shallow as it can
+                    Object[] entry = ((BitmapNode) newChild).array;
+                    BitmapNode node = this.editable(owner);
+                    node.array[i] = entry[0];
+                    node.array[i + 1] = entry[1];
+                    return node;
+                }
+                return this.with(owner, i + 1, newChild);
+            }
+            if (!key.equals(k)) {
+                return this;
+            }
+            removed[0] = true;
+            return this.without(owner, bit, i);
+        }
+
+        private Node without(Object owner, int bit, int i) {
+            if (this.bitmap == bit) {
+                return null;
+            }
+            Object[] array = new Object[this.array.length - 2];
+            System.arraycopy(this.array, 0, array, 0, i);
+            System.arraycopy(this.array, i + 2, array, i, array.length - i);
+            return new BitmapNode(owner, this.bitmap & ~bit, array);
+        }
+
+        @Override
+        boolean isSingleEntry() {
+            return this.array.length == 2 && this.array[0] != null;
+        }
+    }
+
+    /** A leaf for keys whose whole 32-bit hashes are equal. */
+    private static final class CollisionNode extends Node {
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(Object owner, int hash, Object[] array) {
+            super(owner);
+            this.hash = hash;
+            this.array = array;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < this.array.length; i += 2) {
+                if (key.equals(this.array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int i = this.indexOf(key);
+            return i < 0 ? null : this.array[i + 1];
+        }
+
+        @Override
+        Node put(Object owner, int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // a key that only shares the path so far: split above this node
+                BitmapNode node = new BitmapNode(owner, 1 << ((this.hash >>> shift) & MASK),
+                        new Object[]{null, this});
+                return node.put(owner, shift, hash, key, value, added);
+            }
+            int i = this.indexOf(key);
+            if (i >= 0) {
+                if (this.array[i + 1] == value) {
+                    return this;
+                }
+                Object[] array = this.array.clone();
+                array[i + 1] = value;
+                return new CollisionNode(owner, hash, array);
+            }
+            added[0] = true;
+            Object[] array = Arrays.copyOf(this.array, this.array.length + 2);
+            array[this.array.length] = key;
+            array[this.array.length + 1] = value;
+            return new CollisionNode(owner, hash, array);
+        }
+
+        @Override
+        Node remove(Object owner, int shift, int hash, Object key, boolean[] removed) {
+            int i = this.indexOf(key);
+            if (i < 0) {
+                return this;
+            }
+            removed[0] = true;
+            if (this.array.length == 4) {
+                // the last entry left moves up as a single-entry node
+                int other = i == 0 ? 2 : 0;
+                return new BitmapNode(owner, 1 << ((this.hash >>> shift) & MASK),
+                        new Object[]{this.array[other], this.array[other + 1]});
+            }
+            Object[] array = new Object[this.array.length - 2];
+            System.arraycopy(this.array, 0, array, 0, i);
+            System.arraycopy(this.array, i + 2, array, i, array.length - i);
+            return new CollisionNode(owner, this.hash, array);
+        }
+
+        @Override
+        boolean isSingleEntry() {
+            return false;
+        }
+    }
+
+    /** Returns a node holding the two entries, at the level of shift. */
+    private static Node pair(Object owner, int shift, int hash1, Object key1, Object value1,
+                             int hash2, Object key2, Object value2) {
+        if (hash1 == hash2) {
+            return new CollisionNode(owner, hash1, new Object[]{key1, value1, key2, value2});
+        }
+        int bit1 = (hash1 >>> shift) & MASK;
+        int bit2 = (hash2 >>> shift) & MASK;
+        if (bit1 == bit2) {
+            Node child = pair(owner, shift + BITS, hash1, key1, value1, hash2, key2, value2);
+            return new BitmapNode(owner, 1 << bit1, new Object[]{null, child});
+        }
+        Object[] array = bit1 < bit2
+                ? new Object[]{key1, value1, key2, value2}
+                : new Object[]{key2, value2, key1, value1};
+        return new BitmapNode(owner, (1 << bit1) | (1 << bit2), array);
+    }
+
+    /** Spreads the hash code, so keys with regular hash codes do not form deep paths. */
+    private static int hashOf(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+
+    /* Instance Variables */
+    private final Node root;
+    private final int numItems;
+
+    private PersistentHashMap(Node root, int numItems) {
+        this.root = root;
+        this.numItems = numItems;
+    }
+
+    /** Returns the empty map. */
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    /** Returns a Builder that starts from the empty map. */
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>(null, 0);
+    }
+
+    /** Returns a Builder that starts from this version. */
+    public Builder<K, V> toBuilder() {
+        return new Builder<>(this.root, this.numItems);
+    }
+
+    /**
+     * Returns a version of this map with key mapped to value. This version
+     * is left as it was.
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException();
+        }
+
+        boolean[] added = {false};
+        Node root = putRoot(this.root, null, key, value, added);
+        if (root == this.root) {
+            return this;
+        }
+        return new PersistentHashMap<>(root, this.numItems + (added[0] ? 1 : 0));
+    }
+
+    /**
+     * Returns a version of this map without key. This version is left as
+     * it was.
+     */
+    public PersistentHashMap<K, V> minus(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        boolean[] removed = {false};
+        Node root = removeRoot(this.root, null, key, removed);
+        if (!removed[0]) {
+            return this;
+        }
+        return root == null ? empty() : new PersistentHashMap<>(root, this.numItems - 1);
+    }
+
+    private static Node putRoot(Node root, Object owner, Object key, Object value,
+                                boolean[] added) {
+        int hash = hashOf(key);
+        if (root == null) {
+            added[0] = true;
+            return new BitmapNode(owner, 1 << (hash & MASK), new Object[]{key, value});
+        }
+        return root.put(owner, 0, hash, key, value, added);
+    }
+
+    private static Node removeRoot(Node root, Object owner, Object key, boolean[] removed) {
+        if (root == null) {
+            return null;
+        }
+        return root.remove(owner, 0, hashOf(key), key, removed);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+        if (this.root == null) {
+            return null;
+        }
+
+        return (V) this.root.find(0, hashOf(key), key);
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(K key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return this.numItems;
+    }
+
+    @Override
+    public void put(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(K key) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public V remove(K key, V value) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Builds a PersistentHashMap in place. A Builder must not be shared
+     * between threads.
+     */
+    public static final class Builder<K, V> {
+        /* the nodes this builder may change carry this token as their owner */
+        private Object owner = new Object();
+        private Node root;
+        private int numItems;
+
+        private Builder(Node root, int numItems) {
+            this.root = root;
+            this.numItems = numItems;
+        }
+
+        /** Maps key to value, and returns this builder. */
+        public Builder<K, V> put(K key, V value) {
+            if (key == null || value == null) {
+                throw new IllegalArgumentException();
+            }
+
+            boolean[] added = {false};
+            this.root = putRoot(this.root, this.owner, key, value, added);
+            if (added[0]) {
+                this.numItems += 1;
+            }
+            return this;
+        }
+
+        /** Removes key if present, and returns this builder. */
+        public Builder<K, V> remove(K key) {
+            if (key == null) {
+                throw new IllegalArgumentException();
+            }
+
+            boolean[] removed = {false};
+            this.root = removeRoot(this.root, this.owner, key, removed);
+            if (removed[0]) {
+                this.numItems -= 1;
+            }
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public V get(K key) {
+            if (key == null) {
+                throw new IllegalArgumentException();
+            }
+            return this.root == null ? null : (V) this.root.find(0, hashOf(key), key);
+        }
+
+        public int size() {
+            return this.numItems;
+        }
+
+        /**
+         * Returns the map built so far. The builder can go on, but its next
+         * changes copy the nodes it now shares with the returned map.
+         */
+        public PersistentHashMap<K, V> build() {
+            this.owner = new Object();
+            return this.root == null ? empty() : new PersistentHashMap<>(this.root, this.numItems);
+        }
+    }
+
+    /** Walks the trie depth first, with an explicit stack of nodes and positions. */
+    private class TrieIterator implements Iterator<K> {
+        private final Object[][] arrays = new Object[8][];
+        private final int[] positions = new int[8];
+        private int depth;
+        private Object nextKey;
+
+        TrieIterator() {
+            this.depth = -1;
+            if (root != null) {
+                this.push(root);
+            }
+            this.advance();
+        }
+
+        private void push(Node node) {
+            this.depth += 1;
+            this.arrays[this.depth] = node instanceof BitmapNode
+                    ? ((BitmapNode) node).array : ((CollisionNode) node).array;
+            this.positions[this.depth] = 0;
+        }
+
+        private void advance() {
+            while (this.depth >= 0) {
+                Object[] array = this.arrays[this.depth];
+                int i = this.positions[this.depth];
+                if (i == array.length) {
+                    this.depth -= 1;
+                    continue;
+                }
+                this.positions[this.depth] = i + 2;
+                if (array[i] != null) {
+                    this.nextKey = array[i];
+                    return;
+                }
+                this.push((Node) array[i + 1]);
+            }
+            this.nextKey = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.nextKey != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            K key = (K) this.nextKey;
+            this.advance();
+            return key;
+        }
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new TrieIterator();
+    }
+
+    /**
+     * Returns a Set of the keys contained in this map.
+     */
+    @Override
+    public Set<K> keySet() {
+        HashSet<K> keySet = new HashSet<>();
+        for (K key : this) {
+            keySet.add(key);
+        }
+
+        return keySet;
+    }
+}
@@ -0,0 +1,90 @@
+package hashmap;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Buffered reads of what SnapshotOutput wrote, from a FileChannel's current
+ * position on. It reads ahead, so finish() must be called to leave the
+ * channel positioned right after the last value read. Used by
+ * MyHashMap.readFrom().
+ */
+class SnapshotInput {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /* Instance Variables */
+    private final FileChannel channel;
+    private final long start;
+    private long consumed;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+
+    SnapshotInput(FileChannel channel) throws IOException {
+        this.channel = channel;
+        this.start = channel.position();
+        this.buffer.flip();
+    }
+
+    /** Makes sure at least bytes bytes are buffered. */
+    private void ensure(int bytes) throws IOException {
+        if (this.buffer.remaining() >= bytes) {
+            return;
+        }
+        if (this.buffer.capacity() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(bytes, this.buffer.capacity() * 2));
+            larger.put(this.buffer);
+            this.buffer = larger;
+        } else {
+            this.buffer.compact();
+        }
+        while (this.buffer.position() < bytes) {
+            if (this.channel.read(this.buffer) < 0) {
+                throw new EOFException("snapshot ends early");
+            }
+        }
+        this.buffer.flip();
+    }
+
+    int readInt() throws IOException {
+        this.ensure(Integer.BYTES);
+        this.consumed += Integer.BYTES;
+        return this.buffer.getInt();
+    }
+
+    long readLong() throws IOException {
+        this.ensure(Long.BYTES);
+        this.consumed += Long.BYTES;
+        return this.buffer.getLong();
+    }
+
+    /** Reads a value that write() wrote with codec. */
+    <T> T read(Codec<T> codec) throws IOException {
+        int length = this.readInt();
+        if (length == SnapshotOutput.NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0) {
+            throw new IOException("corrupt snapshot: value of length " + length);
+        }
+
+        this.ensure(length);
+        int limit = this.buffer.limit();
+        int end = this.buffer.position() + length;
+        this.buffer.limit(end);
+        T value = codec.decode(this.buffer);
+        if (this.buffer.position() != end) {
+            throw new IOException("codec read " + (this.buffer.position() + length - end)
+                    + " of " + length + " bytes");
+        }
+        this.buffer.limit(limit);
+        this.consumed += length;
+        return value;
+    }
+
+    /** Moves the channel to right after the last value read. */
+    void finish() throws IOException {
+        this.channel.position(this.start + this.consumed);
+    }
+}
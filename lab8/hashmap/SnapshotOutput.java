@@ -0,0 +1,78 @@
+package hashmap;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Buffered writes of ints, longs and length-prefixed codec values to a
+ * FileChannel, from its current position on. A value that does not fit in
+ * the buffer flushes it, and one that does not fit in an empty buffer grows
+ * it. Used by MyHashMap.writeTo().
+ */
+class SnapshotOutput {
+
+    private static final int BUFFER_BYTES = 1 << 16;
+    /** The length written in place of a null value. */
+    static final int NULL_LENGTH = -1;
+
+    /* Instance Variables */
+    private final FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+
+    SnapshotOutput(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (this.buffer.remaining() < bytes) {
+            this.flush();
+        }
+    }
+
+    void writeInt(int value) throws IOException {
+        this.ensure(Integer.BYTES);
+        this.buffer.putInt(value);
+    }
+
+    void writeLong(long value) throws IOException {
+        this.ensure(Long.BYTES);
+        this.buffer.putLong(value);
+    }
+
+    /** Writes value with codec, behind its length in bytes. */
+    <T> void write(Codec<T> codec, T value) throws IOException {
+        if (value == null) {
+            this.writeInt(NULL_LENGTH);
+            return;
+        }
+
+        while (true) {
+            this.ensure(Integer.BYTES);
+            int start = this.buffer.position();
+            this.buffer.position(start + Integer.BYTES);
+            try {
+                codec.encode(value, this.buffer);
+                this.buffer.putInt(start, this.buffer.position() - start - Integer.BYTES);
+                return;
+            } catch (BufferOverflowException e) {
+                this.buffer.position(start);
+                if (start == 0) {
+                    this.buffer = ByteBuffer.allocate(this.buffer.capacity() * 2);
+                } else {
+                    this.flush();
+                }
+            }
+        }
+    }
+
+    /** Writes out everything buffered so far. */
+    void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+}
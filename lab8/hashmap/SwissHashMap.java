@@ -0,0 +1,389 @@
+package hashmap;
+
+import java.util.*;
+
+/**
+ * A hash table-backed Map implementation in the style of the SwissTable:
+ * open addressing over groups of GROUP_SIZE slots, with one control byte per
+ * slot. A control byte is EMPTY, DELETED or, for a full slot, the low 7 bits
+ * of the key's hash (its h2). The other hash bits pick the first group to
+ * probe, and groups are probed quadratically from there.
+ * <p>
+ * The 8 control bytes of a group are packed into one long, so a probe
+ * compares h2 against all 8 slots at once with SWAR (SIMD within a
+ * register) arithmetic, and only calls equals() on the few slots whose h2
+ * matches, 1 in 128 of the non-matching keys. A probe sequence ends at the
+ * first group that has an EMPTY slot.
+ * <p>
+ * Removal leaves a DELETED tombstone, unless the group still has an EMPTY
+ * slot, in which case no probe ever went past it and the slot can become
+ * EMPTY again. Tombstones count against the load factor, and the table is
+ * rehashed, without growing if most of the load is tombstones, when they
+ * use up the room.
+ * <p>
+ * Assumes null keys will never be inserted.
+ */
+public class SwissHashMap<K, V> implements Map61B<K, V> {
+
+    public static final int GROUP_SIZE = 8;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private static final byte EMPTY = (byte) 0x80;
+    private static final byte DELETED = (byte) 0xFE;
+    private static final long LSBS = 0x0101010101010101L;
+    private static final long MSBS = 0x8080808080808080L;
+    /** A group of EMPTY control bytes. */
+    private static final long EMPTY_GROUP = LSBS * (EMPTY & 0xFF);
+
+    /* Instance Variables */
+    private long[] ctrl;
+    private K[] keys;
+    private V[] values;
+    private int numItems = 0;
+    private int groupMask;
+    /* how many more EMPTY slots may be filled before the table is rehashed */
+    private int growthLeft;
+    private final int initialCapacity;
+
+    /**
+     * Constructors
+     */
+    public SwissHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * SwissHashMap constructor that creates a table with room for at least
+     * initialSize entries. The table is kept at most 7/8 full.
+     *
+     * @param initialSize initial number of entries the table can hold
+     */
+    public SwissHashMap(int initialSize) {
+        if (initialSize <= 0) {
+            throw new IllegalArgumentException();
+        }
+
+        this.initialCapacity = tableSizeFor(initialSize);
+        this.setupTable(this.initialCapacity);
+    }
+
+    /** Returns the number of slots needed for size entries at 7/8 load. */
+    private static int tableSizeFor(int size) {
+        long slots = Math.max(GROUP_SIZE, (size * 8L + 6) / 7);
+        int capacity = Integer.highestOneBit((int) Math.min(slots, 1 << 30) - 1) << 1;
+        return Math.max(capacity, GROUP_SIZE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void setupTable(int capacity) {
+        int numGroups = capacity / GROUP_SIZE;
+        this.ctrl = new long[numGroups];
+        Arrays.fill(this.ctrl, EMPTY_GROUP);
+        this.keys = (K[]) new Object[capacity];
+        this.values = (V[]) new Object[capacity];
+        this.groupMask = numGroups - 1;
+        this.growthLeft = capacity - capacity / 8 - this.numItems;
+    }
+
+    /** The MurmurHash3 32-bit finalizer, so every bit of h2 and h1 is mixed. */
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /** Returns the group a key with hash h probes first. */
+    private int h1(int h) {
+        return (h >>> 7) & this.groupMask;
+    }
+
+    /** Returns the 7 hash bits kept in the control byte of a key with hash h. */
+    private static int h2(int h) {
+        return h & 0x7F;
+    }
+
+    /* ------------------------------- SWAR ------------------------------- */
+
+    /**
+     * Returns the high bit of every control byte of group equal to h2. It may
+     * also flag a full byte right above a match, so candidates still need
+     * equals(), but never an EMPTY or DELETED byte.
+     */
+    private static long matchH2(long group, int h2) {
+        long x = group ^ (LSBS * h2);
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    /** Returns the high bit of every EMPTY control byte of group. */
+    private static long matchEmpty(long group) {
+        // only EMPTY has its high bit set and bit 1 clear
+        return group & ~(group << 6) & MSBS;
+    }
+
+    /** Returns the high bit of every EMPTY or DELETED control byte of group. */
+    private static long matchFree(long group) {
+        // full bytes are the ones with a clear high bit
+        return group & MSBS;
+    }
+
+    /** Returns the slot within its group of the lowest flagged byte of mask. */
+    private static int lowestSlot(long mask) {
+        return Long.numberOfTrailingZeros(mask) >>> 3;
+    }
+
+    private void setCtrl(int slot, byte b) {
+        int group = slot / GROUP_SIZE;
+        int shift = (slot % GROUP_SIZE) * 8;
+        this.ctrl[group] = (this.ctrl[group] & ~(0xFFL << shift)) | ((b & 0xFFL) << shift);
+    }
+
+    /* ------------------------------- Probing ------------------------------- */
+
+    /**
+     * Returns the slot holding key, or -1 if the key is absent.
+     */
+    private int findSlot(K key, int h) {
+        int h2 = h2(h);
+        int group = this.h1(h);
+        for (int step = 1; ; step++) {
+            long word = this.ctrl[group];
+            for (long m = matchH2(word, h2); m != 0; m &= m - 1) {
+                int slot = group * GROUP_SIZE + lowestSlot(m);
+                if (key.equals(this.keys[slot])) {
+                    return slot;
+                }
+            }
+            if (matchEmpty(word) != 0) {
+                return -1;
+            }
+            // triangular steps visit every group of a power-of-two table
+            group = (group + step) & this.groupMask;
+        }
+    }
+
+    /**
+     * Returns the first EMPTY or DELETED slot on the probe sequence of hash h.
+     */
+    private int findFreeSlot(int h) {
+        int group = this.h1(h);
+        for (int step = 1; ; step++) {
+            long m = matchFree(this.ctrl[group]);
+            if (m != 0) {
+                return group * GROUP_SIZE + lowestSlot(m);
+            }
+            group = (group + step) & this.groupMask;
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    @Override
+    public void clear() {
+        this.numItems = 0;
+        this.setupTable(this.initialCapacity);
+    }
+
+    /**
+     * Returns true if this map contains a mapping for the specified key.
+     */
+    @Override
+    public boolean containsKey(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        return this.findSlot(key, hash(key)) >= 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or null if this
+     * map contains no mapping for the key.
+     */
+    @Override
+    public V get(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = this.findSlot(key, hash(key));
+        return slot < 0 ? null : this.values[slot];
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     */
+    @Override
+    public int size() {
+        return this.numItems;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key,
+     * the old value is replaced.
+     */
+    @Override
+    public void put(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int h = hash(key);
+        int slot = this.findSlot(key, h);
+        if (slot >= 0) {
+            this.values[slot] = value;
+            return;
+        }
+
+        slot = this.findFreeSlot(h);
+        if (this.growthLeft == 0 && this.isEmpty(slot)) {
+            this.rehash();
+            slot = this.findFreeSlot(h);
+        }
+        if (this.isEmpty(slot)) {
+            this.growthLeft -= 1;
+        }
+        this.setCtrl(slot, (byte) h2(h));
+        this.keys[slot] = key;
+        this.values[slot] = value;
+        this.numItems += 1;
+    }
+
+    private boolean isEmpty(int slot) {
+        return (byte) (this.ctrl[slot / GROUP_SIZE] >>> ((slot % GROUP_SIZE) * 8)) == EMPTY;
+    }
+
+    /**
+     * Moves every entry into a fresh table, dropping the tombstones. The
+     * table doubles unless the entries alone fill less than half of it.
+     */
+    private void rehash() {
+        long[] oldCtrl = this.ctrl;
+        K[] oldKeys = this.keys;
+        V[] oldValues = this.values;
+
+        int capacity = oldKeys.length;
+        if (this.numItems >= capacity / 2 - capacity / 16) {
+            capacity *= 2;
+        }
+        this.setupTable(capacity);
+
+        for (int group = 0; group < oldCtrl.length; group++) {
+            // every full slot of the group, as the bytes with a clear high bit
+            for (long m = ~oldCtrl[group] & MSBS; m != 0; m &= m - 1) {
+                int oldSlot = group * GROUP_SIZE + lowestSlot(m);
+                K key = oldKeys[oldSlot];
+                int h = hash(key);
+                int slot = this.findFreeSlot(h);
+                this.setCtrl(slot, (byte) h2(h));
+                this.keys[slot] = key;
+                this.values[slot] = oldValues[oldSlot];
+            }
+        }
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     */
+    @Override
+    public V remove(K key) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = this.findSlot(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+
+        V oldValue = this.values[slot];
+        this.removeSlot(slot);
+        return oldValue;
+    }
+
+    /**
+     * Removes the entry for the specified key only if it is currently mapped to
+     * the specified value. Returns the removed value, or null if nothing was
+     * removed.
+     */
+    @Override
+    public V remove(K key, V value) {
+        if (key == null) {
+            throw new IllegalArgumentException();
+        }
+
+        int slot = this.findSlot(key, hash(key));
+        if (slot < 0 || !Objects.equals(this.values[slot], value)) {
+            return null;
+        }
+
+        V oldValue = this.values[slot];
+        this.removeSlot(slot);
+        return oldValue;
+    }
+
+    private void removeSlot(int slot) {
+        // a probe that reaches a group with an EMPTY slot stops there, so no
+        // other key depends on this slot having been full
+        if (matchEmpty(this.ctrl[slot / GROUP_SIZE]) != 0) {
+            this.setCtrl(slot, EMPTY);
+            this.growthLeft += 1;
+        } else {
+            this.setCtrl(slot, DELETED);
+        }
+        this.keys[slot] = null;
+        this.values[slot] = null;
+        this.numItems -= 1;
+    }
+
+    private class SwissIterator implements Iterator<K> {
+        private int slot;
+        private int remaining;
+
+        SwissIterator() {
+            this.slot = 0;
+            this.remaining = numItems;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.remaining > 0;
+        }
+
+        @Override
+        public K next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            while (keys[this.slot] == null) {
+                this.slot += 1;
+            }
+            this.remaining -= 1;
+            return keys[this.slot++];
+        }
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        return new SwissIterator();
+    }
+
+    /**
+     * Returns a Set view of the keys contained in this map.
+     */
+    @Override
+    public Set<K> keySet() {
+        HashSet<K> keySet = new HashSet<>();
+        for (K key : this) {
+            keySet.add(key);
+        }
+
+        return keySet;
+    }
+}
@@ -0,0 +1,68 @@
+package hashmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/** Tests of BloomFilteredMap and its BlockedBloomFilter. */
+public class TestBloomFilteredMap {
+
+    @Test
+    public void sanityTests() {
+        TestMyHashMap.sanityClearTest(new BloomFilteredMap<>(new MyHashMap<>()));
+        TestMyHashMap.sanityContainsKeyTest(new BloomFilteredMap<>(new MyHashMap<>()));
+        TestMyHashMap.sanityGetTest(new BloomFilteredMap<>(new MyHashMap<>()));
+        TestMyHashMap.sanitySizeTest(new BloomFilteredMap<>(new MyHashMap<>()));
+        TestMyHashMap.sanityPutTest(new BloomFilteredMap<>(new MyHashMap<>()));
+        TestMyHashMap.sanityKeySetTest(new BloomFilteredMap<>(new MyHashMap<>()));
+        TestMyHashMap.upsertTest(new BloomFilteredMap<>(new MyHashMap<>()));
+    }
+
+    /** The filter never hides a key, through growth, removals and rebuilds. */
+    @Test
+    public void noFalseNegativesTest() {
+        BloomFilteredMap<Integer, Integer> map = new BloomFilteredMap<>(new MyHashMap<>(), 16, 8);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random r = new Random(61);
+
+        for (int i = 0; i < 50000; i++) {
+            int key = r.nextInt(i < 25000 ? 20000 : 2000);
+            if (r.nextInt(3) > 0) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+        for (int key = 0; key < 20000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertTrue(map.rebuilds() > 0);
+    }
+
+    @Test
+    public void falsePositiveRateTest() {
+        BloomFilteredMap<String, Integer> map = new BloomFilteredMap<>(new MyHashMap<>(),
+                100000, 10);
+        for (int i = 0; i < 100000; i++) {
+            map.put("in" + i, i);
+        }
+        for (int i = 0; i < 100000; i++) {
+            assertFalse(map.containsKey("out" + i));
+        }
+
+        // a blocked filter at 10 bits per key stays near 1%
+        assertTrue(map.falsePositiveRate() > 0);
+        assertTrue(map.falsePositiveRate() < 0.02);
+        assertEquals(map.expectedFalsePositiveRate(), map.falsePositiveRate(), 0.01);
+        assertTrue(map.filterBytes() <= 100000 * 10 / 8 + 64);
+        assertEquals(100000, map.filterNegatives() + map.falsePositives());
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertFalse(map.containsKey("in0"));
+    }
+}
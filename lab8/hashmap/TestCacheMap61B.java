@@ -0,0 +1,212 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/** Tests of the LRU and LFU CacheMap61B. */
+public class TestCacheMap61B {
+
+    /** A cache large enough to never evict passes the MyHashMap sanity tests. */
+    @Test
+    public void sanityTests() {
+        for (CacheMap61B.Policy policy : CacheMap61B.Policy.values()) {
+            TestMyHashMap.sanityClearTest(new CacheMap61B<>(1000, policy));
+            TestMyHashMap.sanityContainsKeyTest(new CacheMap61B<>(1000, policy));
+            TestMyHashMap.sanityGetTest(new CacheMap61B<>(1000, policy));
+            TestMyHashMap.sanitySizeTest(new CacheMap61B<>(1000, policy));
+            TestMyHashMap.sanityPutTest(new CacheMap61B<>(1000, policy));
+            TestMyHashMap.sanityKeySetTest(new CacheMap61B<>(1000, policy));
+            TestMyHashMap.upsertTest(new CacheMap61B<>(1000, policy));
+        }
+    }
+
+    @Test
+    public void lruTest() {
+        CacheMap61B<String, Integer> cache = new CacheMap61B<>(3, CacheMap61B.Policy.LRU);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        assertEquals(Integer.valueOf(1), cache.get("a")); // b c a
+        cache.put("d", 4); // evicts b
+        assertFalse(cache.containsKey("b"));
+        assertEquals(3, cache.size());
+
+        cache.put("c", 30); // a d c
+        assertTrue(cache.containsKey("a")); // containsKey does not count as a use
+        cache.put("e", 5); // evicts a
+        assertFalse(cache.containsKey("a"));
+        assertTrue(cache.containsKey("d"));
+        assertTrue(cache.containsKey("c"));
+        assertTrue(cache.containsKey("e"));
+        assertEquals(2, cache.evictions());
+    }
+
+    @Test
+    public void lfuTest() {
+        CacheMap61B<String, Integer> cache = new CacheMap61B<>(3, CacheMap61B.Policy.LFU);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        cache.get("a");
+        cache.get("a");
+        cache.get("b");
+        cache.put("d", 4); // c was used least
+        assertFalse(cache.containsKey("c"));
+
+        cache.put("e", 5); // d and e were used once, d longer ago
+        assertFalse(cache.containsKey("d"));
+        assertTrue(cache.containsKey("e"));
+
+        cache.get("e");
+        cache.get("e"); // a and e used three times, b twice
+        cache.put("f", 6); // evicts b, not the new f
+        assertFalse(cache.containsKey("b"));
+        cache.put("g", 7); // evicts f
+        assertFalse(cache.containsKey("f"));
+        assertTrue(cache.containsKey("g"));
+        assertTrue(cache.containsKey("a"));
+        assertTrue(cache.containsKey("e"));
+    }
+
+    @Test
+    public void weightTest() {
+        CacheMap61B<String, String> cache = new CacheMap61B<>(10, CacheMap61B.Policy.LRU,
+                (k, v) -> v.length());
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertEquals(8, cache.weight());
+        cache.put("c", "cc");
+        assertEquals(10, cache.weight());
+        assertEquals(0, cache.evictions());
+
+        cache.put("b", "bbbbbb"); // a c b, weighs 12
+        assertFalse(cache.containsKey("a"));
+        assertEquals(8, cache.weight());
+
+        cache.put("d", "ddddddddddd"); // heavier than the whole cache
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+
+        cache.put("e", "e");
+        cache.remove("e");
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void cursorSetValueTest() {
+        CacheMap61B<String, String> cache = new CacheMap61B<>(10, CacheMap61B.Policy.LRU,
+                (k, v) -> v.length());
+        cache.put("a", "aa");
+        cache.put("b", "bb");
+        MyHashMap<String, String>.Cursor cursor = cache.cursor();
+        assertTrue(cursor.next());
+        String kept = cursor.key();
+        cursor.setValue("123456789"); // the other entry is evicted
+        assertEquals(1, cache.size());
+        assertTrue(cache.containsKey(kept));
+        assertEquals(9, cache.weight());
+        assertEquals(1, cache.evictions());
+
+        cursor.reset();
+        assertTrue(cursor.next());
+        cursor.setValue("heavier than the whole cache");
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+        assertEquals(2, cache.evictions());
+    }
+
+    @Test
+    public void countersTest() {
+        CacheMap61B<String, Integer> cache = new CacheMap61B<>(2, CacheMap61B.Policy.LRU);
+        assertEquals(0.0, cache.hitRate(), 0);
+        assertNull(cache.get("a"));
+        assertEquals(Integer.valueOf(1), cache.computeIfAbsent("a", k -> 1));
+        assertEquals(Integer.valueOf(1), cache.computeIfAbsent("a", k -> 2));
+        assertEquals(Integer.valueOf(1), cache.get("a"));
+        assertEquals(2, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(0.5, cache.hitRate(), 0);
+
+        cache.put("b", 2);
+        cache.put("c", 3);
+        assertEquals(1, cache.evictions());
+        cache.clear();
+        assertEquals(0, cache.weight());
+        assertEquals(1, cache.evictions());
+    }
+
+    /**
+     * Compares both policies to a simple reference cache that scans for its
+     * victim, under random puts, gets and removes.
+     */
+    @Test
+    public void randomizedTest() {
+        for (CacheMap61B.Policy policy : CacheMap61B.Policy.values()) {
+            Random random = new Random(61);
+            CacheMap61B<Integer, Integer> cache = new CacheMap61B<>(16, policy);
+            Map<Integer, long[]> uses = new HashMap<>(); // key -> {count, last use}
+            long clock = 0;
+
+            for (int i = 0; i < 20000; i++) {
+                int key = random.nextInt(40);
+                int op = random.nextInt(10);
+                clock += 1;
+                if (op < 5) {
+                    Integer value = cache.get(key);
+                    assertEquals(uses.containsKey(key), value != null);
+                    if (value != null) {
+                        uses.get(key)[0] += 1;
+                        uses.get(key)[1] = clock;
+                    }
+                } else if (op < 9) {
+                    if (uses.containsKey(key)) {
+                        uses.get(key)[0] += 1;
+                        uses.get(key)[1] = clock;
+                    } else {
+                        if (uses.size() == 16) {
+                            uses.remove(victim(uses, policy));
+                        }
+                        uses.put(key, new long[]{1, clock});
+                    }
+                    cache.put(key, i);
+                } else {
+                    uses.remove(key);
+                    cache.remove(key);
+                }
+                assertEquals(uses.size(), cache.size());
+                assertEquals(uses.size(), cache.weight());
+            }
+            List<Integer> keys = new ArrayList<>();
+            cache.forEach((k, v) -> keys.add(k));
+            assertEquals(uses.keySet(), new HashSet<>(keys));
+        }
+    }
+
+    private static Integer victim(Map<Integer, long[]> uses, CacheMap61B.Policy policy) {
+        Integer victim = null;
+        long[] best = null;
+        for (Map.Entry<Integer, long[]> e : uses.entrySet()) {
+            long[] u = e.getValue();
+            boolean better;
+            if (best == null) {
+                better = true;
+            } else if (policy == CacheMap61B.Policy.LFU && u[0] != best[0]) {
+                better = u[0] < best[0];
+            } else {
+                better = u[1] < best[1];
+            }
+            if (better) {
+                victim = e.getKey();
+                best = u;
+            }
+        }
+        return victim;
+    }
+}
@@ -0,0 +1,114 @@
+package hashmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/** Tests of ConcurrentCounterMap in exact and approximate mode. */
+public class TestConcurrentCounterMap {
+
+    @Test
+    public void exactCountsTest() {
+        ConcurrentCounterMap<String> counts = new ConcurrentCounterMap<>();
+        assertFalse(counts.isApproximate());
+        counts.increment("a");
+        counts.increment("b");
+        counts.add("a", 5);
+        counts.increment("c");
+        counts.add("c", -1);
+        assertEquals(6, counts.count("a"));
+        assertEquals(1, counts.count("b"));
+        assertEquals(0, counts.count("c"));
+        assertEquals(0, counts.count("d"));
+        assertEquals(7, counts.total());
+        assertEquals(3, counts.size());
+
+        List<Map.Entry<String, Long>> top = counts.topK(2);
+        assertEquals(2, top.size());
+        assertEquals("a", top.get(0).getKey());
+        assertEquals(Long.valueOf(6), top.get(0).getValue());
+        assertEquals("b", top.get(1).getKey());
+        assertTrue(counts.topK(0).isEmpty());
+        assertEquals(3, counts.topK(10).size());
+
+        counts.clear();
+        assertEquals(0, counts.size());
+        assertEquals(0, counts.count("a"));
+        assertEquals(0, counts.total());
+    }
+
+    /** Threads bumping the same few keys lose no increments. */
+    @Test
+    public void concurrentExactCountsTest() throws InterruptedException {
+        ConcurrentCounterMap<Integer> counts = new ConcurrentCounterMap<>();
+        int threads = 4;
+        int opsPerThread = 100000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < opsPerThread; i++) {
+                    counts.increment(i % 100);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertEquals((long) threads * opsPerThread, counts.total());
+        assertEquals(100, counts.size());
+        for (int key = 0; key < 100; key++) {
+            assertEquals((long) threads * opsPerThread / 100, counts.count(key));
+        }
+    }
+
+    /**
+     * Approximate counts are never too low and stay within the error bound,
+     * and the heavy hitters come out on top.
+     */
+    @Test
+    public void approximateCountsTest() {
+        ConcurrentCounterMap<Integer> counts = ConcurrentCounterMap.approximate(0.001, 0.01, 1000);
+        assertTrue(counts.isApproximate());
+        HashMap<Integer, Long> expected = new HashMap<>();
+        Random r = new Random(61);
+        for (int i = 0; i < 500000; i++) {
+            // keys 0..9 take about half of all counts
+            int key = r.nextBoolean() ? r.nextInt(10) : 10 + r.nextInt(100000);
+            counts.increment(key);
+            expected.merge(key, 1L, Long::sum);
+        }
+
+        long bound = (long) (0.001 * counts.total());
+        int outOfBound = 0;
+        for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+            long count = counts.count(entry.getKey());
+            assertTrue(count >= entry.getValue());
+            if (count > entry.getValue() + bound) {
+                outOfBound += 1;
+            }
+        }
+        assertTrue(outOfBound < expected.size() / 100);
+
+        // only the heavy hitters got counters of their own
+        assertTrue(counts.size() < 100);
+        List<Map.Entry<Integer, Long>> top = counts.topK(10);
+        for (Map.Entry<Integer, Long> entry : top) {
+            assertTrue(entry.getKey() < 10);
+        }
+        try {
+            counts.add(1, -1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // sketch cells only grow
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package hashmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/** Tests for ConcurrentMyHashMap, single-threaded and under contention. */
+public class TestConcurrentMyHashMap {
+
+    @Test
+    public void sanityTests() {
+        TestMyHashMap.sanityClearTest(new ConcurrentMyHashMap<>());
+        TestMyHashMap.sanityContainsKeyTest(new ConcurrentMyHashMap<>());
+        TestMyHashMap.sanityGetTest(new ConcurrentMyHashMap<>());
+        TestMyHashMap.sanitySizeTest(new ConcurrentMyHashMap<>());
+        TestMyHashMap.sanityPutTest(new ConcurrentMyHashMap<>());
+        TestMyHashMap.sanityKeySetTest(new ConcurrentMyHashMap<>());
+        TestMyHashMap.functionalityTest(new ConcurrentMyHashMap<>(), new ConcurrentMyHashMap<>());
+        TestMyHashMap.sanityKeySetTest(new ConcurrentMyHashMap<>(1));
+    }
+
+    // Every thread owns a disjoint key range, puts it all and removes half of it.
+    @Test
+    public void concurrentPutRemoveTest() throws InterruptedException {
+        ConcurrentMyHashMap<String, Integer> map = new ConcurrentMyHashMap<>(4);
+        int threads = 8;
+        int perThread = 20000;
+
+        List<Thread> workers = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            workers.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        map.put(id + ":" + i, i);
+                    }
+                    for (int i = 0; i < perThread; i += 2) {
+                        assertEquals(Integer.valueOf(i), map.remove(id + ":" + i));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for (Thread w : workers) {
+            w.start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        assertNull(failure.get());
+
+        assertEquals(threads * perThread / 2, map.size());
+        assertEquals(threads * perThread / 2, map.keySet().size());
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < perThread; i++) {
+                Integer expected = i % 2 == 0 ? null : i;
+                assertEquals(expected, map.get(t + ":" + i));
+            }
+        }
+    }
+
+    // clear() goes back to the presized segments, not the default ones
+    @Test
+    public void clearKeepsBucketsTest() {
+        ConcurrentMyHashMap<String, Integer> map = new ConcurrentMyHashMap<>(4, 4096, 0.75);
+        int presized = map.numBuckets();
+        assertEquals(4096, presized);
+        for (int i = 0; i < 10000; i++) {
+            map.put("hi" + i, i);
+        }
+        assertTrue(map.numBuckets() > presized);
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertEquals(presized, map.numBuckets());
+        map.put("hi", 1);
+        assertEquals(Integer.valueOf(1), map.get("hi"));
+    }
+
+    /**
+     * Threads merge and computeIfAbsent over a shared set of keys. No update
+     * may be lost. If createsOnce, computeIfAbsent must only create each
+     * value once; otherwise racing threads may each create one.
+     */
+    static void concurrentUpsertTest(Map61B<String, Integer> map, boolean createsOnce)
+            throws InterruptedException {
+        int threads = 8;
+        int perThread = 20000;
+        int numKeys = 100;
+        AtomicInteger created = new AtomicInteger();
+
+        List<Thread> workers = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(new Thread(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        map.merge("count" + (i % numKeys), 1, Integer::sum);
+                        map.computeIfAbsent("once" + (i % numKeys), k -> created.incrementAndGet());
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            }));
+        }
+        for (Thread w : workers) {
+            w.start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        assertNull(failure.get());
+
+        assertEquals(2 * numKeys, map.size());
+        for (int k = 0; k < numKeys; k++) {
+            assertEquals(Integer.valueOf(threads * perThread / numKeys), map.get("count" + k));
+        }
+        if (createsOnce) {
+            assertEquals(numKeys, created.get());
+        } else {
+            assertTrue(created.get() >= numKeys);
+        }
+    }
+
+    // computeIfAbsent runs under the segment lock, so it creates every value once.
+    @Test
+    public void concurrentUpsertTest() throws InterruptedException {
+        concurrentUpsertTest(new ConcurrentMyHashMap<>(4), true);
+    }
+}
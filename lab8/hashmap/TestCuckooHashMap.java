@@ -0,0 +1,72 @@
+package hashmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/** Tests for the cuckoo map, reusing the MyHashMap sanity checks. */
+public class TestCuckooHashMap {
+
+    @Test
+    public void sanityTests() {
+        TestMyHashMap.sanityClearTest(new CuckooHashMap<>());
+        TestMyHashMap.sanityContainsKeyTest(new CuckooHashMap<>());
+        TestMyHashMap.sanityGetTest(new CuckooHashMap<>());
+        TestMyHashMap.sanitySizeTest(new CuckooHashMap<>());
+        TestMyHashMap.sanityPutTest(new CuckooHashMap<>());
+        TestMyHashMap.sanityKeySetTest(new CuckooHashMap<>());
+    }
+
+    @Test
+    public void functionalityTest() {
+        TestMyHashMap.functionalityTest(new CuckooHashMap<>(), new CuckooHashMap<>());
+    }
+
+    // A high load factor makes inserts kick entries around and fill the stash.
+    @Test
+    public void randomizedTest() {
+        CuckooHashMap<Integer, Integer> map = new CuckooHashMap<>(8, 0.97);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random r = new Random(61);
+
+        for (int i = 0; i < 50000; i++) {
+            int key = r.nextInt(5000);
+            if (r.nextInt(3) > 0) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+            assertTrue(map.stashSize() <= CuckooHashMap.STASH_SIZE);
+        }
+
+        for (int key : expected.keySet()) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertEquals(expected.keySet(), map.keySet());
+    }
+
+    /** Keys that share a hash code overflow into the stash but are all kept. */
+    @Test
+    public void sameHashCodeTest() {
+        CuckooHashMap<String, Integer> map = new CuckooHashMap<>();
+        String[] blocks = {"Aa", "BB"};
+        for (int i = 0; i < 256; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int bit = 0; bit < 8; bit++) {
+                key.append(blocks[(i >>> bit) & 1]);
+            }
+            map.put(key.toString(), i);
+        }
+
+        assertEquals(256, map.size());
+        assertTrue(map.stashSize() >= 256 - 2 * CuckooHashMap.SLOTS_PER_BUCKET);
+        assertEquals(Integer.valueOf(255), map.get("BBBBBBBBBBBBBBBB"));
+        assertEquals(Integer.valueOf(255), map.remove("BBBBBBBBBBBBBBBB"));
+        assertEquals(Integer.valueOf(0), map.remove("AaAaAaAaAaAaAaAa"));
+        assertEquals(254, map.keySet().size());
+    }
+}
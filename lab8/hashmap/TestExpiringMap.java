@@ -0,0 +1,136 @@
+package hashmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/** Tests of ExpiringMap, driven by a clock the test moves by hand. */
+public class TestExpiringMap {
+
+    /** A clock that only moves when told to. */
+    private static class ManualClock {
+        private long now;
+
+        long now() {
+            return this.now;
+        }
+
+        void advance(long millis) {
+            this.now += millis;
+        }
+    }
+
+    @Test
+    public void sanityTests() {
+        TestMyHashMap.sanityClearTest(new ExpiringMap<>());
+        TestMyHashMap.sanityContainsKeyTest(new ExpiringMap<>());
+        TestMyHashMap.sanityGetTest(new ExpiringMap<>());
+        TestMyHashMap.sanitySizeTest(new ExpiringMap<>());
+        TestMyHashMap.sanityPutTest(new ExpiringMap<>());
+        TestMyHashMap.sanityKeySetTest(new ExpiringMap<>());
+    }
+
+    @Test
+    public void expiryTest() {
+        ManualClock clock = new ManualClock();
+        ExpiringMap<String, Integer> map = new ExpiringMap<>(1, clock::now);
+        map.put("short", 1, 10);
+        map.put("long", 2, 100000);
+        map.put("forever", 3);
+        assertEquals(3, map.size());
+
+        clock.advance(9);
+        assertEquals(Integer.valueOf(1), map.get("short"));
+        assertEquals(1, map.timeToLive("short"));
+        clock.advance(1);
+        assertNull(map.get("short"));
+        assertFalse(map.containsKey("short"));
+        assertEquals(2, map.size());
+        assertEquals(-1, map.timeToLive("short"));
+
+        // put without a ttl keeps the deadline
+        map.put("long", 20);
+        assertEquals(100000 - 10, map.timeToLive("long"));
+        clock.advance(100000);
+        assertEquals(Set.of("forever"), map.keySet());
+        assertEquals(Long.MAX_VALUE, map.timeToLive("forever"));
+        assertEquals(2, map.expirations());
+
+        // a new ttl replaces the old deadline, and remove cancels it
+        map.put("a", 1, 50);
+        map.put("a", 1, 500);
+        clock.advance(100);
+        assertTrue(map.containsKey("a"));
+        assertEquals(Integer.valueOf(1), map.remove("a"));
+        clock.advance(1000);
+        assertEquals(2, map.expirations());
+        assertEquals(1, map.size());
+    }
+
+    /** Deadlines inside a long tick still expire on time. */
+    @Test
+    public void longTickTest() {
+        ManualClock clock = new ManualClock();
+        ExpiringMap<Integer, Integer> map = new ExpiringMap<>(1000, clock::now);
+        for (int i = 1; i <= 999; i++) {
+            map.put(i, i, i);
+        }
+        for (int t = 1; t <= 999; t++) {
+            clock.advance(1);
+            assertFalse(map.containsKey(t));
+            assertEquals(999 - t, map.size());
+        }
+    }
+
+    /**
+     * Random ttls across every level of the wheel, and past it, against a
+     * HashMap of deadlines, with the clock moving in uneven steps.
+     */
+    @Test
+    public void randomizedTest() {
+        for (long tick : new long[]{1, 7}) {
+            ManualClock clock = new ManualClock();
+            clock.advance(-123456789);
+            ExpiringMap<Integer, Integer> map = new ExpiringMap<>(tick, clock::now);
+            HashMap<Integer, Long> deadlines = new HashMap<>();
+            Random r = new Random(61);
+            for (int i = 0; i < 100000; i++) {
+                int key = r.nextInt(2000);
+                long ttl = 1 + (long) Math.pow(2, r.nextDouble() * 30);
+                map.put(key, i, ttl);
+                deadlines.put(key, clock.now() + ttl);
+
+                clock.advance((long) Math.pow(2, r.nextDouble() * 14));
+                if (i % 100 == 0) {
+                    deadlines.values().removeIf(deadline -> deadline <= clock.now());
+                    assertEquals(deadlines.size(), map.size());
+                    assertEquals(deadlines.keySet(), map.keySet());
+                }
+                int probe = r.nextInt(2000);
+                Long deadline = deadlines.get(probe);
+                assertEquals(deadline != null && deadline > clock.now(), map.containsKey(probe));
+            }
+        }
+    }
+
+    @Test
+    public void sweeperTest() throws InterruptedException {
+        ExpiringMap<Integer, Integer> map = new ExpiringMap<>();
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i, 20);
+        }
+        map.startSweeper(5);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (map.expirations() < 1000 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        map.stopSweeper();
+        assertEquals(1000, map.expirations());
+        assertEquals(0, map.size());
+    }
+}
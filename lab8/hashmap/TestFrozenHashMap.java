@@ -0,0 +1,112 @@
+package hashmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/** Tests of MyHashMap.freeze() and the perfect-hash FrozenHashMap. */
+public class TestFrozenHashMap {
+
+    @Test
+    public void freezeTest() {
+        MyHashMap<String, Integer> map = new MyHashMap<>();
+        HashMap<String, Integer> expected = new HashMap<>();
+        Random r = new Random(61);
+        // enough keys for several partitions
+        for (int i = 0; i < 50000; i++) {
+            String key = Integer.toString(r.nextInt(), 36);
+            map.put(key, i);
+            expected.put(key, i);
+        }
+
+        FrozenHashMap<String, Integer> frozen = map.freeze();
+        assertEquals(expected.size(), frozen.size());
+        for (String key : expected.keySet()) {
+            assertEquals(expected.get(key), frozen.get(key));
+            assertTrue(frozen.containsKey(key));
+        }
+        for (int i = 0; i < 50000; i++) {
+            String key = "missing" + i;
+            assertNull(frozen.get(key));
+            assertFalse(frozen.containsKey(key));
+        }
+        assertEquals(expected.keySet(), frozen.keySet());
+        assertTrue(frozen.bitsPerKey() < 16);
+
+        // the snapshot does not follow the map
+        map.put("new", 1);
+        map.remove(expected.keySet().iterator().next());
+        assertEquals(expected.size(), frozen.size());
+        assertNull(frozen.get("new"));
+    }
+
+    @Test
+    public void smallAndEmptyTest() {
+        MyHashMap<String, Integer> map = new MyHashMap<>();
+        FrozenHashMap<String, Integer> frozen = map.freeze();
+        assertEquals(0, frozen.size());
+        assertNull(frozen.get("a"));
+        assertFalse(frozen.iterator().hasNext());
+
+        map.put("a", 1);
+        frozen = map.freeze();
+        assertEquals(Integer.valueOf(1), frozen.get("a"));
+        assertNull(frozen.get("b"));
+    }
+
+    /** Keys that share a hash code go to the overflow map. */
+    @Test
+    public void sameHashCodeTest() {
+        MyHashMap<String, Integer> map = new MyHashMap<>();
+        String[] blocks = {"Aa", "BB"};
+        Set<String> keys = new HashSet<>();
+        for (int i = 0; i < 64; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int bit = 0; bit < 6; bit++) {
+                key.append(blocks[(i >>> bit) & 1]);
+            }
+            map.put(key.toString(), i);
+            keys.add(key.toString());
+        }
+        map.put("other", -1);
+        keys.add("other");
+
+        FrozenHashMap<String, Integer> frozen = map.freeze();
+        assertEquals(65, frozen.size());
+        assertEquals(Integer.valueOf(63), frozen.get("BBBBBBBBBBBB"));
+        assertEquals(Integer.valueOf(0), frozen.get("AaAaAaAaAaAa"));
+        assertEquals(Integer.valueOf(-1), frozen.get("other"));
+        assertNull(frozen.get("AaAaAaAaAaBB" + "x"));
+        assertEquals(keys, frozen.keySet());
+    }
+
+    @Test
+    public void readOnlyTest() {
+        MyHashMap<String, Integer> map = new MyHashMap<>();
+        map.put("a", 1);
+        FrozenHashMap<String, Integer> frozen = map.freeze();
+        try {
+            frozen.put("b", 2);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            frozen.remove("a");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            frozen.clear();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        assertEquals(Integer.valueOf(1), frozen.get("a"));
+    }
+}
@@ -0,0 +1,142 @@
+package hashmap;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+/** Tests of LinkedMyHashMap in insertion and access order. */
+public class TestLinkedMyHashMap {
+
+    @Test
+    public void sanityTests() {
+        for (boolean accessOrder : new boolean[]{false, true}) {
+            TestMyHashMap.sanityClearTest(new LinkedMyHashMap<>(16, 0.75, accessOrder));
+            TestMyHashMap.sanityContainsKeyTest(new LinkedMyHashMap<>(16, 0.75, accessOrder));
+            TestMyHashMap.sanityGetTest(new LinkedMyHashMap<>(16, 0.75, accessOrder));
+            TestMyHashMap.sanitySizeTest(new LinkedMyHashMap<>(16, 0.75, accessOrder));
+            TestMyHashMap.sanityPutTest(new LinkedMyHashMap<>(16, 0.75, accessOrder));
+            TestMyHashMap.sanityKeySetTest(new LinkedMyHashMap<>(16, 0.75, accessOrder));
+            TestMyHashMap.upsertTest(new LinkedMyHashMap<>(16, 0.75, accessOrder));
+        }
+    }
+
+    private static <K> List<K> keys(Iterable<K> map) {
+        List<K> keys = new ArrayList<>();
+        for (K key : map) {
+            keys.add(key);
+        }
+        return keys;
+    }
+
+    @Test
+    public void insertionOrderTest() {
+        LinkedMyHashMap<String, Integer> map = new LinkedMyHashMap<>();
+        map.put("c", 1);
+        map.put("a", 2);
+        map.put("b", 3);
+        map.put("a", 20); // already there, does not move
+        map.get("c");
+        assertEquals(Arrays.asList("c", "a", "b"), keys(map));
+
+        map.remove("a");
+        map.put("a", 4);
+        assertEquals(Arrays.asList("c", "b", "a"), keys(map));
+        assertEquals(Arrays.asList("c", "b", "a"), new ArrayList<>(map.keySet()));
+        assertEquals(Arrays.asList("c", "b", "a"), map.stream().collect(Collectors.toList()));
+        assertEquals("c", map.firstKey());
+        assertEquals("a", map.lastKey());
+
+        StringBuilder visited = new StringBuilder();
+        map.forEach((k, v) -> visited.append(k).append(v));
+        assertEquals("c1b3a4", visited.toString());
+    }
+
+    @Test
+    public void accessOrderTest() {
+        LinkedMyHashMap<String, Integer> map = new LinkedMyHashMap<>(16, 0.75, true);
+        map.put("a", 1);
+        map.put("b", 2);
+        map.put("c", 3);
+        map.get("a");
+        assertEquals(Arrays.asList("b", "c", "a"), keys(map));
+        map.put("b", 20);
+        assertEquals(Arrays.asList("c", "a", "b"), keys(map));
+        map.containsKey("c");
+        assertEquals(Arrays.asList("c", "a", "b"), keys(map));
+        map.merge("c", 1, Integer::sum);
+        assertEquals(Arrays.asList("a", "b", "c"), keys(map));
+        assertEquals(Integer.valueOf(4), map.get("c"));
+
+        MyHashMap<String, Integer>.Cursor cursor = map.cursor();
+        while (cursor.next() && !cursor.key().equals("a")) {
+            // find "a"
+        }
+        cursor.setValue(10);
+        assertEquals(Arrays.asList("b", "c", "a"), keys(map));
+    }
+
+    /** Matches java.util.LinkedHashMap through random puts, gets and removes. */
+    @Test
+    public void randomizedOrderTest() {
+        for (boolean accessOrder : new boolean[]{false, true}) {
+            LinkedMyHashMap<Integer, Integer> map = new LinkedMyHashMap<>(4, 0.75, accessOrder);
+            LinkedHashMap<Integer, Integer> expected = new LinkedHashMap<>(4, 0.75f, accessOrder);
+            Random r = new Random(61);
+            for (int i = 0; i < 20000; i++) {
+                int key = r.nextInt(500);
+                switch (r.nextInt(3)) {
+                    case 0:
+                        map.put(key, i);
+                        expected.put(key, i);
+                        break;
+                    case 1:
+                        assertEquals(expected.get(key), map.get(key));
+                        break;
+                    default:
+                        assertEquals(expected.remove(key), map.remove(key));
+                }
+            }
+            assertEquals(new ArrayList<>(expected.keySet()), keys(map));
+        }
+    }
+
+    @Test
+    public void iteratorRemoveTest() {
+        LinkedMyHashMap<Integer, Integer> map = new LinkedMyHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        Iterator<Integer> iter = map.iterator();
+        while (iter.hasNext()) {
+            if (iter.next() % 2 == 0) {
+                iter.remove();
+            }
+        }
+        assertEquals(50, map.size());
+        assertEquals(Integer.valueOf(1), map.firstKey());
+        assertEquals(Integer.valueOf(99), map.lastKey());
+        assertFalse(map.containsKey(2));
+
+        iter = map.iterator();
+        iter.next();
+        map.put(1000, 0);
+        try {
+            iter.next();
+            fail();
+        } catch (ConcurrentModificationException e) {
+            // expected
+        }
+
+        map.clear();
+        assertFalse(map.iterator().hasNext());
+        assertNull(map.firstKey());
+    }
+}
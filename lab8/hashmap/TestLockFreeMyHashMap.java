@@ -0,0 +1,112 @@
+package hashmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for LockFreeMyHashMap. The stress test replays every thread's
+ * operations on a single-threaded MyHashMap and checks that both maps agree.
+ */
+public class TestLockFreeMyHashMap {
+
+    @Test
+    public void sanityTests() {
+        TestMyHashMap.sanityClearTest(new LockFreeMyHashMap<>());
+        TestMyHashMap.sanityContainsKeyTest(new LockFreeMyHashMap<>());
+        TestMyHashMap.sanityGetTest(new LockFreeMyHashMap<>());
+        TestMyHashMap.sanitySizeTest(new LockFreeMyHashMap<>());
+        TestMyHashMap.sanityPutTest(new LockFreeMyHashMap<>());
+        TestMyHashMap.sanityKeySetTest(new LockFreeMyHashMap<>());
+        TestMyHashMap.functionalityTest(new LockFreeMyHashMap<>(), new LockFreeMyHashMap<>());
+    }
+
+    /**
+     * Writers own disjoint key sets and grow the map from two buckets, so
+     * many resizes run while they write. Each writer mirrors its operations
+     * into its own MyHashMap. Meanwhile a reader checks that keys loaded
+     * before the start never go missing while buckets are being moved.
+     */
+    @Test
+    public void stressAgainstMyHashMapTest() throws InterruptedException {
+        LockFreeMyHashMap<Integer, Integer> map = new LockFreeMyHashMap<>(2);
+        int writers = 4;
+        int opsPerWriter = 100000;
+        int stableKeys = 1000;
+
+        for (int k = 0; k < stableKeys; k++) {
+            map.put(-1 - k, k);
+        }
+
+        List<MyHashMap<Integer, Integer>> references = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        for (int w = 0; w < writers; w++) {
+            MyHashMap<Integer, Integer> reference = new MyHashMap<>();
+            references.add(reference);
+            final int id = w;
+            threads.add(new Thread(() -> {
+                Random r = new Random(id);
+                for (int i = 0; i < opsPerWriter; i++) {
+                    int key = r.nextInt(20000) * writers + id;
+                    if (r.nextInt(4) == 0) {
+                        Integer expected = reference.remove(key);
+                        if (!java.util.Objects.equals(expected, map.remove(key))) {
+                            failure.compareAndSet(null, new AssertionError("remove " + key));
+                        }
+                    } else {
+                        reference.put(key, i);
+                        map.put(key, i);
+                    }
+                }
+            }));
+        }
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        Thread reader = new Thread(() -> {
+            Random r = new Random(61);
+            while (!done.get()) {
+                int k = r.nextInt(stableKeys);
+                Integer v = map.get(-1 - k);
+                if (v == null || v != k) {
+                    failure.compareAndSet(null, new AssertionError("lost stable key " + k));
+                }
+            }
+        });
+
+        reader.start();
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        done.set(true);
+        reader.join();
+        assertNull(failure.get());
+
+        int expectedSize = stableKeys;
+        for (MyHashMap<Integer, Integer> reference : references) {
+            expectedSize += reference.size();
+            for (Integer key : reference) {
+                assertEquals(reference.get(key), map.get(key));
+            }
+        }
+        assertEquals(expectedSize, map.size());
+        assertEquals(expectedSize, map.keySet().size());
+
+        map.clear();
+        assertEquals(0, map.size());
+        assertTrue(map.keySet().isEmpty());
+    }
+
+    @Test
+    public void concurrentUpsertTest() throws InterruptedException {
+        TestConcurrentMyHashMap.concurrentUpsertTest(new LockFreeMyHashMap<>(2), false);
+    }
+}
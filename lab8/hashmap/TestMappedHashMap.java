@@ -0,0 +1,142 @@
+package hashmap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Random;
+
+/** Tests for MappedHashMap. */
+public class TestMappedHashMap {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path newFile() throws IOException {
+        Path path = this.folder.newFile().toPath();
+        Files.delete(path);
+        return path;
+    }
+
+    @Test
+    public void sanityTests() throws IOException {
+        try (MappedHashMap map = new MappedHashMap(this.newFile())) {
+            TestMyHashMap.sanityClearTest(map);
+        }
+        try (MappedHashMap map = new MappedHashMap(this.newFile())) {
+            TestMyHashMap.sanityContainsKeyTest(map);
+            TestMyHashMap.sanityGetTest(map);
+        }
+        try (MappedHashMap map = new MappedHashMap(this.newFile())) {
+            TestMyHashMap.sanitySizeTest(map);
+        }
+        try (MappedHashMap map = new MappedHashMap(this.newFile())) {
+            TestMyHashMap.sanityKeySetTest(map);
+        }
+    }
+
+    // Few buckets force the directory to grow and removals force compaction.
+    @Test
+    public void randomAgainstHashMapTest() throws IOException {
+        HashMap<String, Integer> expected = new HashMap<>();
+        Random r = new Random(61);
+        try (MappedHashMap map = new MappedHashMap(this.newFile(), 4)) {
+            for (int i = 0; i < 50000; i++) {
+                String key = "k\u00e9y" + r.nextInt(5000);
+                if (r.nextInt(3) == 0) {
+                    assertEquals(expected.remove(key), map.remove(key));
+                } else {
+                    expected.put(key, i);
+                    map.put(key, i);
+                }
+                assertEquals(expected.size(), map.size());
+            }
+
+            for (String key : expected.keySet()) {
+                assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.keySet(), map.keySet());
+
+            long used = map.usedBytes();
+            map.compact();
+            assertEquals(0, map.deadBytes());
+            assertTrue(map.usedBytes() <= used);
+            assertEquals(expected.keySet(), map.keySet());
+        }
+    }
+
+    @Test
+    public void reopenTest() throws IOException {
+        Path path = this.newFile();
+        try (MappedHashMap map = new MappedHashMap(path)) {
+            for (int i = 0; i < 10000; i++) {
+                map.put("hi" + i, i);
+            }
+            map.remove("hi5");
+        }
+
+        try (MappedHashMap map = new MappedHashMap(path)) {
+            assertEquals(9999, map.size());
+            assertFalse(map.containsKey("hi5"));
+            for (int i = 0; i < 10000; i++) {
+                if (i != 5) {
+                    assertEquals(Integer.valueOf(i), map.get("hi" + i));
+                }
+            }
+            map.put("hi5", 5);
+        }
+
+        try (MappedHashMap map = new MappedHashMap(path)) {
+            assertEquals(10000, map.size());
+            assertEquals(Integer.valueOf(5), map.get("hi5"));
+        }
+    }
+
+    // clear() starts over with the bucket count the map was opened with
+    @Test
+    public void clearKeepsBucketsTest() throws IOException {
+        Path path = this.newFile();
+        try (MappedHashMap map = new MappedHashMap(path, 1 << 14)) {
+            long emptySize = Files.size(path);
+            for (int i = 0; i < 1000; i++) {
+                map.put("hi" + i, i);
+            }
+            map.clear();
+            assertEquals(0, map.size());
+            assertEquals(emptySize, Files.size(path));
+            map.put("hi", 1);
+            assertEquals(Integer.valueOf(1), map.get("hi"));
+        }
+    }
+
+    @Test
+    public void badFileTest() throws IOException {
+        Path path = this.newFile();
+        Files.write(path, new byte[128]);
+        try {
+            new MappedHashMap(path);
+            fail();
+        } catch (IOException e) {
+            // expected, not one of our files
+        }
+    }
+
+    @Test
+    public void closeTest() throws IOException {
+        MappedHashMap map = new MappedHashMap(this.newFile());
+        map.put("hello", 1);
+        map.close();
+        try {
+            map.get("hello");
+            fail();
+        } catch (IllegalStateException e) {
+            // expected, the file is unmapped
+        }
+        map.close();
+    }
+}
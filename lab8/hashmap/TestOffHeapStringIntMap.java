@@ -0,0 +1,100 @@
+package hashmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/** Tests for OffHeapStringIntMap. */
+public class TestOffHeapStringIntMap {
+
+    @Test
+    public void sanityTests() {
+        try (OffHeapStringIntMap map = new OffHeapStringIntMap()) {
+            TestMyHashMap.sanityClearTest(map);
+        }
+        try (OffHeapStringIntMap map = new OffHeapStringIntMap()) {
+            TestMyHashMap.sanityContainsKeyTest(map);
+            TestMyHashMap.sanityGetTest(map);
+        }
+        try (OffHeapStringIntMap map = new OffHeapStringIntMap()) {
+            TestMyHashMap.sanitySizeTest(map);
+        }
+        try (OffHeapStringIntMap map = new OffHeapStringIntMap()) {
+            TestMyHashMap.sanityKeySetTest(map);
+        }
+    }
+
+    // Small slabs force entries to spread over many buffers.
+    @Test
+    public void randomAgainstHashMapTest() {
+        HashMap<String, Integer> expected = new HashMap<>();
+        Random r = new Random(61);
+        try (OffHeapStringIntMap map = new OffHeapStringIntMap(256)) {
+            for (int i = 0; i < 50000; i++) {
+                String key = "k\u00e9y" + r.nextInt(5000);
+                if (r.nextInt(4) == 0) {
+                    assertEquals(expected.remove(key), map.remove(key));
+                } else {
+                    expected.put(key, i);
+                    map.put(key, i);
+                }
+                assertEquals(expected.size(), map.size());
+            }
+
+            for (String key : expected.keySet()) {
+                assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.keySet(), map.keySet());
+            assertTrue(map.deadBytes() > 0);
+            assertTrue(map.usedBytes() <= map.allocatedBytes());
+        }
+    }
+
+    // An index capped at its starting size fills up after 0.6 * 1024 keys.
+    @Test
+    public void fullIndexTest() {
+        try (OffHeapStringIntMap map = new OffHeapStringIntMap(1 << 16, 1 << 10)) {
+            int fits = 0;
+            try {
+                while (true) {
+                    map.put("key" + fits, fits);
+                    fits += 1;
+                }
+            } catch (IllegalStateException e) {
+                // expected, the index cannot grow
+            }
+            assertEquals(614, fits);
+            assertEquals(fits, map.size());
+            assertFalse(map.containsKey("key" + fits));
+            assertNull(map.get("key" + fits));
+            assertEquals(fits, map.keySet().size());
+
+            map.put("key0", -1);
+            assertEquals(-1, (int) map.get("key0"));
+            assertEquals(fits, map.size());
+
+            assertEquals(-1, (int) map.remove("key0"));
+            map.put("key" + fits, fits);
+            assertEquals(fits, (int) map.get("key" + fits));
+            assertEquals(fits, map.size());
+        }
+    }
+
+    @Test
+    public void closeTest() {
+        OffHeapStringIntMap map = new OffHeapStringIntMap();
+        map.put("hello", 1);
+        assertTrue(map.allocatedBytes() > 0);
+        map.close();
+        assertEquals(0, map.allocatedBytes());
+        try {
+            map.get("hello");
+            fail();
+        } catch (IllegalStateException e) {
+            // expected, the memory is gone
+        }
+        map.close();
+    }
+}
@@ -0,0 +1,51 @@
+package hashmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/** Tests for the open addressing map, reusing the MyHashMap sanity checks. */
+public class TestOpenAddressingHashMap {
+
+    @Test
+    public void sanityTests() {
+        TestMyHashMap.sanityClearTest(new OpenAddressingHashMap<>());
+        TestMyHashMap.sanityContainsKeyTest(new OpenAddressingHashMap<>());
+        TestMyHashMap.sanityGetTest(new OpenAddressingHashMap<>());
+        TestMyHashMap.sanitySizeTest(new OpenAddressingHashMap<>());
+        TestMyHashMap.sanityPutTest(new OpenAddressingHashMap<>());
+        TestMyHashMap.sanityKeySetTest(new OpenAddressingHashMap<>());
+    }
+
+    @Test
+    public void functionalityTest() {
+        TestMyHashMap.functionalityTest(new OpenAddressingHashMap<>(),
+                new OpenAddressingHashMap<>());
+    }
+
+    // Colliding keys force long probe runs, so removals have to shift entries back.
+    @Test
+    public void backwardShiftRemoveTest() {
+        OpenAddressingHashMap<Integer, Integer> map = new OpenAddressingHashMap<>(8, 0.9);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random r = new Random(61);
+
+        for (int i = 0; i < 20000; i++) {
+            int key = r.nextInt(512) * 1024;
+            if (r.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (int key : expected.keySet()) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertEquals(expected.keySet(), map.keySet());
+    }
+}
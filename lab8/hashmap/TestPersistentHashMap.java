@@ -0,0 +1,180 @@
+package hashmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/** Tests of the persistent HAMT map and its Builder. */
+public class TestPersistentHashMap {
+
+    @Test
+    public void versionsTest() {
+        PersistentHashMap<String, Integer> empty = PersistentHashMap.empty();
+        PersistentHashMap<String, Integer> one = empty.plus("a", 1);
+        PersistentHashMap<String, Integer> two = one.plus("b", 2);
+        PersistentHashMap<String, Integer> changed = two.plus("a", 10);
+
+        assertEquals(0, empty.size());
+        assertNull(empty.get("a"));
+        assertEquals(1, one.size());
+        assertEquals(Integer.valueOf(1), one.get("a"));
+        assertNull(one.get("b"));
+        assertEquals(2, two.size());
+        assertEquals(Integer.valueOf(1), two.get("a"));
+        assertEquals(2, changed.size());
+        assertEquals(Integer.valueOf(10), changed.get("a"));
+
+        PersistentHashMap<String, Integer> removed = changed.minus("a");
+        assertEquals(1, removed.size());
+        assertFalse(removed.containsKey("a"));
+        assertTrue(changed.containsKey("a"));
+        assertSame(removed, removed.minus("missing"));
+        assertSame(two, two.plus("b", 2));
+        assertEquals(0, removed.minus("b").size());
+    }
+
+    /**
+     * Keeps every version of a random history, and checks each against a
+     * copy of a HashMap taken at the same point.
+     */
+    @Test
+    public void randomizedVersionsTest() {
+        Random r = new Random(61);
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        List<PersistentHashMap<Integer, Integer>> versions = new ArrayList<>();
+        List<Map<Integer, Integer>> snapshots = new ArrayList<>();
+
+        for (int i = 0; i < 20000; i++) {
+            int key = r.nextInt(3000);
+            if (r.nextInt(3) > 0) {
+                map = map.plus(key, i);
+                expected.put(key, i);
+            } else {
+                map = map.minus(key);
+                expected.remove(key);
+            }
+            assertEquals(expected.size(), map.size());
+            if (i % 1000 == 0) {
+                versions.add(map);
+                snapshots.add(new HashMap<>(expected));
+            }
+        }
+
+        for (int v = 0; v < versions.size(); v++) {
+            Map<Integer, Integer> snapshot = snapshots.get(v);
+            PersistentHashMap<Integer, Integer> version = versions.get(v);
+            for (int key = 0; key < 3000; key++) {
+                assertEquals(snapshot.get(key), version.get(key));
+            }
+            assertEquals(snapshot.keySet(), version.keySet());
+        }
+    }
+
+    @Test
+    public void builderTest() {
+        PersistentHashMap.Builder<String, Integer> builder = PersistentHashMap.builder();
+        for (int i = 0; i < 10000; i++) {
+            builder.put("k" + i, i);
+        }
+        builder.remove("k0");
+        PersistentHashMap<String, Integer> built = builder.build();
+        assertEquals(9999, built.size());
+        assertNull(built.get("k0"));
+
+        // later builder changes must not show in the built map
+        builder.put("k1", -1).remove("k2").put("extra", 0);
+        assertEquals(Integer.valueOf(1), built.get("k1"));
+        assertEquals(Integer.valueOf(2), built.get("k2"));
+        assertNull(built.get("extra"));
+        assertEquals(9999, builder.size());
+
+        PersistentHashMap<String, Integer> edited = built.toBuilder().put("k3", -3).build();
+        assertEquals(Integer.valueOf(-3), edited.get("k3"));
+        assertEquals(Integer.valueOf(3), built.get("k3"));
+    }
+
+    /** Like randomizedVersionsTest, but through one Builder that keeps going after build(). */
+    @Test
+    public void randomizedBuilderTest() {
+        Random r = new Random(61);
+        PersistentHashMap.Builder<Integer, Integer> builder = PersistentHashMap.builder();
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        List<PersistentHashMap<Integer, Integer>> versions = new ArrayList<>();
+        List<Map<Integer, Integer>> snapshots = new ArrayList<>();
+
+        for (int i = 0; i < 20000; i++) {
+            int key = r.nextInt(3000);
+            if (r.nextInt(3) > 0) {
+                builder.put(key, i);
+                expected.put(key, i);
+            } else {
+                builder.remove(key);
+                expected.remove(key);
+            }
+            assertEquals(expected.size(), builder.size());
+            if (i % 1000 == 0) {
+                versions.add(builder.build());
+                snapshots.add(new HashMap<>(expected));
+            }
+        }
+
+        for (int v = 0; v < versions.size(); v++) {
+            assertEquals(snapshots.get(v).keySet(), versions.get(v).keySet());
+            for (int key : snapshots.get(v).keySet()) {
+                assertEquals(snapshots.get(v).get(key), versions.get(v).get(key));
+            }
+        }
+    }
+
+    /** Keys with equal hash codes share a collision node. */
+    @Test
+    public void sameHashCodeTest() {
+        String[] blocks = {"Aa", "BB"};
+        PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int bit = 0; bit < 4; bit++) {
+                key.append(blocks[(i >>> bit) & 1]);
+            }
+            keys.add(key.toString());
+            map = map.plus(key.toString(), i);
+        }
+        map = map.plus("other", -1);
+
+        assertEquals(17, map.size());
+        for (int i = 0; i < 16; i++) {
+            assertEquals(Integer.valueOf(i), map.get(keys.get(i)));
+        }
+        for (int i = 0; i < 15; i++) {
+            map = map.minus(keys.get(i));
+        }
+        assertEquals(2, map.size());
+        assertEquals(Integer.valueOf(15), map.get(keys.get(15)));
+        assertEquals(Integer.valueOf(-1), map.get("other"));
+    }
+
+    @Test
+    public void readOnlyTest() {
+        PersistentHashMap<String, Integer> map = PersistentHashMap.<String, Integer>empty()
+                .plus("a", 1);
+        try {
+            map.put("b", 2);
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        try {
+            map.remove("a");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package hashmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Random;
+
+/** Tests for ObjectIntMap and IntIntMap against java.util.HashMap. */
+public class TestPrimitiveMaps {
+
+    @Test
+    public void objectIntMapCountTest() {
+        ObjectIntMap<String> counts = new ObjectIntMap<>();
+        String[] words = {"a", "rose", "is", "a", "rose", "is", "a", "rose"};
+        for (String w : words) {
+            counts.addTo(w, 1);
+        }
+
+        assertEquals(3, counts.size());
+        assertEquals(3, counts.getInt("a"));
+        assertEquals(3, counts.getInt("rose"));
+        assertEquals(2, counts.getInt("is"));
+        assertEquals(0, counts.getInt("tulip"));
+        assertFalse(counts.containsKey("tulip"));
+
+        assertEquals(2, counts.putInt("is", 7));
+        assertEquals(7, counts.removeInt("is"));
+        assertFalse(counts.containsKey("is"));
+        assertEquals(2, counts.size());
+
+        HashSet<String> keys = new HashSet<>();
+        for (String k : counts) {
+            keys.add(k);
+        }
+        assertEquals(new HashSet<>(java.util.Arrays.asList("a", "rose")), keys);
+
+        counts.clear();
+        assertEquals(0, counts.size());
+        assertFalse(counts.containsKey("a"));
+    }
+
+    @Test
+    public void objectIntMapRandomTest() {
+        ObjectIntMap<Integer> map = new ObjectIntMap<>();
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random r = new Random(61);
+
+        for (int i = 0; i < 50000; i++) {
+            int key = r.nextInt(2000);
+            int op = r.nextInt(3);
+            if (op == 0) {
+                int old = expected.getOrDefault(key, 0);
+                expected.put(key, i);
+                assertEquals(old, map.putInt(key, i));
+            } else if (op == 1) {
+                expected.merge(key, 3, Integer::sum);
+                assertEquals((int) expected.get(key), map.addTo(key, 3));
+            } else {
+                Integer old = expected.remove(key);
+                assertEquals(old == null ? 0 : old, map.removeInt(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (int key : expected.keySet()) {
+            assertEquals((int) expected.get(key), map.getInt(key));
+        }
+    }
+
+    @Test
+    public void intIntMapRandomTest() {
+        IntIntMap map = new IntIntMap();
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random r = new Random(61);
+
+        for (int i = 0; i < 50000; i++) {
+            // keep key 0 in play, since it is stored outside the table
+            int key = r.nextInt(2000) - 1000;
+            int op = r.nextInt(3);
+            if (op == 0) {
+                int old = expected.getOrDefault(key, 0);
+                expected.put(key, i);
+                assertEquals(old, map.putInt(key, i));
+            } else if (op == 1) {
+                expected.merge(key, 3, Integer::sum);
+                assertEquals((int) expected.get(key), map.addTo(key, 3));
+            } else {
+                Integer old = expected.remove(key);
+                assertEquals(old == null ? 0 : old, map.removeInt(key));
+            }
+            assertEquals(expected.size(), map.size());
+            assertEquals(expected.containsKey(key), map.containsKey(key));
+        }
+
+        HashSet<Integer> keys = new HashSet<>();
+        for (int key : map.keys()) {
+            keys.add(key);
+            assertEquals((int) expected.get(key), map.getInt(key));
+        }
+        assertEquals(expected.keySet(), keys);
+    }
+}
@@ -0,0 +1,71 @@
+package hashmap;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Random;
+
+/** Tests for the SwissTable-style map, reusing the MyHashMap sanity checks. */
+public class TestSwissHashMap {
+
+    @Test
+    public void sanityTests() {
+        TestMyHashMap.sanityClearTest(new SwissHashMap<>());
+        TestMyHashMap.sanityContainsKeyTest(new SwissHashMap<>());
+        TestMyHashMap.sanityGetTest(new SwissHashMap<>());
+        TestMyHashMap.sanitySizeTest(new SwissHashMap<>());
+        TestMyHashMap.sanityPutTest(new SwissHashMap<>());
+        TestMyHashMap.sanityKeySetTest(new SwissHashMap<>());
+    }
+
+    @Test
+    public void functionalityTest() {
+        TestMyHashMap.functionalityTest(new SwissHashMap<>(), new SwissHashMap<>());
+    }
+
+    // Churn on a small key range leaves tombstones behind, which have to be
+    // skipped by lookups and cleared by rehashes.
+    @Test
+    public void tombstoneTest() {
+        SwissHashMap<Integer, Integer> map = new SwissHashMap<>(8);
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        Random r = new Random(61);
+
+        for (int i = 0; i < 100000; i++) {
+            int key = r.nextInt(i < 50000 ? 300 : 3000);
+            if (r.nextBoolean()) {
+                map.put(key, i);
+                expected.put(key, i);
+            } else {
+                assertEquals(expected.remove(key), map.remove(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        for (int key = 0; key < 3000; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        assertEquals(expected.keySet(), map.keySet());
+    }
+
+    /** Keys that share a hash code share their h2 too, so every probe calls equals. */
+    @Test
+    public void sameHashCodeTest() {
+        SwissHashMap<String, Integer> map = new SwissHashMap<>();
+        String[] blocks = {"Aa", "BB"};
+        for (int i = 0; i < 256; i++) {
+            StringBuilder key = new StringBuilder();
+            for (int bit = 0; bit < 8; bit++) {
+                key.append(blocks[(i >>> bit) & 1]);
+            }
+            map.put(key.toString(), i);
+        }
+
+        assertEquals(256, map.size());
+        assertEquals(Integer.valueOf(255), map.get("BBBBBBBBBBBBBBBB"));
+        assertEquals(Integer.valueOf(0), map.remove("AaAaAaAaAaAaAaAa"));
+        assertNull(map.get("AaAaAaAaAaAaAaAa"));
+        assertEquals(255, map.keySet().size());
+    }
+}
@@ -0,0 +1,112 @@
+package speed;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.Scanner;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import hashmap.BloomFilteredMap;
+import hashmap.Map61B;
+import hashmap.MappedHashMap;
+import hashmap.MyHashMap;
+import hashmap.MyHashMapTSBuckets;
+
+/**
+ * Times containsKey() on a workload where 95% of the lookups miss, on maps
+ * with and without a BloomFilteredMap in front. Each map gets N random
+ * strings of length L, then 10 * N lookups are made, one in twenty of a key
+ * in the map. Also prints the false positive rate and the memory of each
+ * filter.
+ */
+public class BloomSpeedTest {
+    /** The fraction of lookups that are for keys in the map. */
+    private static final double HIT_RATE = 0.05;
+
+    /**
+     * Requests user input and runs the miss-heavy lookups. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program looks up random Strings of length L,"
+                + " 95% of them missing,\n in maps with and without a Bloom filter.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into each map: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+            String[] keys = new String[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+            }
+            String[] lookups = new String[10 * N];
+            Random random = new Random(61);
+            for (int i = 0; i < lookups.length; i++) {
+                lookups[i] = random.nextDouble() < HIT_RATE
+                        ? keys[random.nextInt(N)]
+                        // one character longer, so never in the maps
+                        : StringUtils.randomString(L + 1);
+            }
+
+            timeLookups(new MyHashMap<>(), keys, lookups);
+            timeLookups(new MyHashMapTSBuckets<>(), keys, lookups);
+
+            Path file = Files.createTempFile("bloom", ".map");
+            Files.delete(file);
+            try (MappedHashMap mapped = new MappedHashMap(file)) {
+                timeLookups(mapped, keys, lookups);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Fills map with keys, then times containsKey() for every lookup on the
+     * map alone and behind a Bloom filter, and prints both and the filter's
+     * statistics.
+     */
+    public static void timeLookups(Map61B<String, Integer> map, String[] keys, String[] lookups) {
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        BloomFilteredMap<String, Integer> filtered = new BloomFilteredMap<>(map);
+
+        // once untimed each, to warm up the JIT
+        countHits(map, lookups);
+        countHits(filtered, lookups);
+
+        Stopwatch sw = new Stopwatch();
+        long hits = countHits(map, lookups);
+        double plainTime = sw.elapsedTime();
+        sw = new Stopwatch();
+        long filteredHits = countHits(filtered, lookups);
+        double filteredTime = sw.elapsedTime();
+
+        System.out.printf(map.getClass() + ": %.2f sec, with Bloom filter %.2f sec (%.1fx)\n",
+                plainTime, filteredTime, plainTime / filteredTime);
+        System.out.println("  " + filtered);
+        if (hits != filteredHits) {
+            System.out.println("--the filter changed the answers: " + hits + " vs " + filteredHits);
+        }
+    }
+
+    private static long countHits(Map61B<String, Integer> map, String[] lookups) {
+        long hits = 0;
+        for (String key : lookups) {
+            if (map.containsKey(key)) {
+                hits += 1;
+            }
+        }
+        return hits;
+    }
+}
@@ -5,17 +5,24 @@ import edu.princeton.cs.algs4.Stopwatch;
 import java.io.IOException;
 import java.util.Scanner;
 
+import hashmap.CuckooHashMap;
 import hashmap.Map61B;
 import hashmap.MyHashMapALBuckets;
 import hashmap.MyHashMapLLBuckets;
 import hashmap.MyHashMapTSBuckets;
 import hashmap.MyHashMapHSBuckets;
 import hashmap.MyHashMapPQBuckets;
+import hashmap.MyHashMapAdaptiveBuckets;
+import hashmap.OpenAddressingHashMap;
+import hashmap.SwissHashMap;
 
 /** Performs a timing test on three different set implementations.
  *  @author Neil Kulkarni adapted from Josh Hug, Brendan Hu
  */
 public class BucketsSpeedTest {
+    /** Number of "Aa"/"BB" blocks in a colliding key, enough for 2^20 distinct keys. */
+    private static final int COLLIDING_BLOCKS = 20;
+
     /**
      * Requests user input and performs tests of three different set
      * implementations. ARGS is unused. 
@@ -42,6 +49,44 @@ public class BucketsSpeedTest {
             timeRandomMap61B(new MyHashMapTSBuckets<>(), N, L);
             timeRandomMap61B(new MyHashMapHSBuckets<>(), N, L);
             timeRandomMap61B(new MyHashMapPQBuckets<>(), N, L);
+            timeRandomMap61B(new MyHashMapAdaptiveBuckets<>(), N, L);
+            timeRandomMap61B(new OpenAddressingHashMap<>(), N, L);
+            timeRandomMap61B(new CuckooHashMap<>(), N, L);
+            timeRandomMap61B(new SwissHashMap<>(), N, L);
+
+            // the tail of get latency is what cuckoo hashing is meant to bound
+            System.out.println();
+            getLatencyRandomMap61B(new MyHashMapALBuckets<>(), N, L);
+            getLatencyRandomMap61B(new MyHashMapLLBuckets<>(), N, L);
+            getLatencyRandomMap61B(new MyHashMapTSBuckets<>(), N, L);
+            getLatencyRandomMap61B(new MyHashMapHSBuckets<>(), N, L);
+            getLatencyRandomMap61B(new MyHashMapPQBuckets<>(), N, L);
+            getLatencyRandomMap61B(new MyHashMapAdaptiveBuckets<>(), N, L);
+            getLatencyRandomMap61B(new OpenAddressingHashMap<>(), N, L);
+            getLatencyRandomMap61B(new CuckooHashMap<>(), N, L);
+            getLatencyRandomMap61B(new SwissHashMap<>(), N, L);
+
+            // same workload with metrics on, kept apart so it does not skew the times
+            System.out.println();
+            InsertRandomSpeedTest.metricsRandomMyHashMap(new MyHashMapALBuckets<>(), N, L);
+            InsertRandomSpeedTest.metricsRandomMyHashMap(new MyHashMapLLBuckets<>(), N, L);
+            InsertRandomSpeedTest.metricsRandomMyHashMap(new MyHashMapTSBuckets<>(), N, L);
+            InsertRandomSpeedTest.metricsRandomMyHashMap(new MyHashMapHSBuckets<>(), N, L);
+            InsertRandomSpeedTest.metricsRandomMyHashMap(new MyHashMapPQBuckets<>(), N, L);
+            InsertRandomSpeedTest.metricsRandomMyHashMap(new MyHashMapAdaptiveBuckets<>(), N, L);
+
+            // every colliding key lands in the same bucket, so keep N small
+            System.out.print("\nEnter # colliding strings to insert into each map: ");
+            N = waitForPositiveInt(input);
+            timeCollidingMap61B(new MyHashMapALBuckets<>(), N);
+            timeCollidingMap61B(new MyHashMapLLBuckets<>(), N);
+            timeCollidingMap61B(new MyHashMapTSBuckets<>(), N);
+            timeCollidingMap61B(new MyHashMapHSBuckets<>(), N);
+            timeCollidingMap61B(new MyHashMapPQBuckets<>(), N);
+            timeCollidingMap61B(new MyHashMapAdaptiveBuckets<>(), N);
+            timeCollidingMap61B(new OpenAddressingHashMap<>(), N);
+            timeCollidingMap61B(new CuckooHashMap<>(), N);
+            timeCollidingMap61B(new SwissHashMap<>(), N);
 
             System.out.print("\nWould you like to try more timed-tests? (y/n)");
             repeat = input.nextLine();
@@ -63,6 +108,39 @@ public class BucketsSpeedTest {
         return sw.elapsedTime();
     }
 
+    /**
+     * Returns time needed to put N random strings that all share one hash
+     * code into the hashmap.Map61B 61bMap.
+     */
+    public static double insertColliding(Map61B<String, Integer> map61B, int N) {
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < N; i++) {
+            String s = StringUtils.collidingString(COLLIDING_BLOCKS);
+            map61B.put(s, i);
+        }
+        return sw.elapsedTime();
+    }
+
+    /**
+     * Puts N random strings of length L into map61B, then gets each of them
+     * back, timing every get individually, and returns the recorded latencies.
+     */
+    public static LatencyRecorder getRandomLatency(Map61B<String, Integer> map61B, int N, int L) {
+        String[] keys = new String[N];
+        for (int i = 0; i < N; i++) {
+            keys[i] = StringUtils.randomString(L);
+            map61B.put(keys[i], i);
+        }
+
+        LatencyRecorder latencies = new LatencyRecorder(N);
+        for (String key : keys) {
+            long start = System.nanoTime();
+            map61B.get(key);
+            latencies.record(System.nanoTime() - start);
+        }
+        return latencies;
+    }
+
     /**
      * Attempts to insert N random strings of length L into map,
      * Prints time of the N insert calls, otherwise
@@ -79,6 +157,38 @@ public class BucketsSpeedTest {
         }
     }
 
+    /**
+     * Attempts to insert N random strings of length L into map and get them back,
+     * Prints percentiles of the get latency, otherwise
+     * Prints a nice message about the error
+     */
+    public static void getLatencyRandomMap61B(Map61B<String, Integer> map, int N, int L) {
+        try {
+            LatencyRecorder latencies = getRandomLatency(map, N, L);
+            System.out.println(map.getClass() + " get latency: " + latencies.summary());
+        } catch (StackOverflowError e) {
+            printInfoOnStackOverflow(N, L);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Attempts to insert N colliding strings into map,
+     * Prints time of the N insert calls, otherwise
+     * Prints a nice message about the error
+     */
+    public static void timeCollidingMap61B(Map61B<String, Integer> map, int N) {
+        try {
+            double mapTime = insertColliding(map, N);
+            System.out.printf(map.getClass() + " (colliding keys): %.2f sec\n", mapTime);
+        } catch (StackOverflowError e) {
+            printInfoOnStackOverflow(N, COLLIDING_BLOCKS * 2);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Waits for the user on other side of Scanner
      * to enter a positive int,
@@ -0,0 +1,243 @@
+package speed;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+import hashmap.ConcurrentMyHashMap;
+import hashmap.LockFreeMyHashMap;
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+
+/**
+ * Measures the throughput of maps shared by several threads. Each run
+ * preloads a map with N random strings of length L, then every thread
+ * performs a mix of get and put calls on keys drawn from the same pool.
+ * Thread counts are swept from 1 up to a maximum, and the read share of
+ * the mix is varied. java.util.concurrent.ConcurrentHashMap is included as
+ * a baseline.
+ */
+public class ConcurrentSpeedTest {
+    /** Read shares, in percent, of the operation mixes that are measured. */
+    private static final int[] READ_PERCENTS = {50, 90, 99};
+
+    /**
+     * Requests user input and runs the throughput sweep. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program measures concurrent get/put throughput"
+                + " on <String, Integer> maps.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to preload into each map: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+            System.out.print("Enter # operations per thread: ");
+            int ops = InsertRandomSpeedTest.waitForPositiveInt(input);
+            System.out.print("Enter maximum # threads: ");
+            int maxThreads = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+            String[] keys = new String[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+            }
+
+            for (int readPercent : READ_PERCENTS) {
+                System.out.println("\n-- " + readPercent + "% reads --");
+                for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                    timeConcurrentMap61B(() -> new SynchronizedMap61B<>(new MyHashMap<>()),
+                            keys, threads, ops, readPercent);
+                    timeConcurrentMap61B(ConcurrentMyHashMap::new,
+                            keys, threads, ops, readPercent);
+                    timeConcurrentMap61B(LockFreeMyHashMap::new,
+                            keys, threads, ops, readPercent);
+                    timeConcurrentMap61B(ConcurrentHashMap61B::new,
+                            keys, threads, ops, readPercent);
+                }
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Returns the throughput, in operations per second, of THREADS threads
+     * each doing OPS operations on a map preloaded with KEYS. READPERCENT of
+     * the operations are get calls, the rest are put calls.
+     */
+    public static double throughput(Map61B<String, Integer> map, String[] keys, int threads,
+                                    int ops, int readPercent) throws InterruptedException {
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final long seed = t;
+            Thread worker = new Thread(() -> {
+                Random r = new Random(seed);
+                Integer one = 1;
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ops; i++) {
+                    String key = keys[r.nextInt(keys.length)];
+                    if (r.nextInt(100) < readPercent) {
+                        map.get(key);
+                    } else {
+                        map.put(key, one);
+                    }
+                }
+                done.countDown();
+            });
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        return (double) threads * ops / seconds;
+    }
+
+    /**
+     * Runs throughput() on a fresh map from MAPS and prints the result in
+     * millions of operations per second.
+     */
+    public static void timeConcurrentMap61B(Supplier<Map61B<String, Integer>> maps, String[] keys,
+                                            int threads, int ops, int readPercent)
+            throws InterruptedException {
+        Map61B<String, Integer> map = maps.get();
+        try {
+            double opsPerSec = throughput(map, keys, threads, ops, readPercent);
+            System.out.printf("%s, %d threads: %.2f Mops/sec\n",
+                    map.getClass().getSimpleName(), threads, opsPerSec / 1e6);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Wraps a Map61B so that every call holds one global lock. This is the
+     * baseline a shared single-threaded map has to fall back to.
+     */
+    public static class SynchronizedMap61B<K, V> implements Map61B<K, V> {
+        private final Map61B<K, V> map;
+
+        public SynchronizedMap61B(Map61B<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public synchronized void clear() {
+            this.map.clear();
+        }
+
+        @Override
+        public synchronized boolean containsKey(K key) {
+            return this.map.containsKey(key);
+        }
+
+        @Override
+        public synchronized V get(K key) {
+            return this.map.get(key);
+        }
+
+        @Override
+        public synchronized int size() {
+            return this.map.size();
+        }
+
+        @Override
+        public synchronized void put(K key, V value) {
+            this.map.put(key, value);
+        }
+
+        @Override
+        public synchronized Set<K> keySet() {
+            return this.map.keySet();
+        }
+
+        @Override
+        public synchronized V remove(K key) {
+            return this.map.remove(key);
+        }
+
+        @Override
+        public synchronized V remove(K key, V value) {
+            return this.map.remove(key, value);
+        }
+
+        @Override
+        public synchronized Iterator<K> iterator() {
+            return this.map.keySet().iterator();
+        }
+    }
+
+    /**
+     * Adapts java.util.concurrent.ConcurrentHashMap to Map61B so it can be
+     * measured next to our own maps.
+     */
+    public static class ConcurrentHashMap61B<K, V> implements Map61B<K, V> {
+        private final ConcurrentHashMap<K, V> map = new ConcurrentHashMap<>();
+
+        @Override
+        public void clear() {
+            this.map.clear();
+        }
+
+        @Override
+        public boolean containsKey(K key) {
+            return this.map.containsKey(key);
+        }
+
+        @Override
+        public V get(K key) {
+            return this.map.get(key);
+        }
+
+        @Override
+        public int size() {
+            return this.map.size();
+        }
+
+        @Override
+        public void put(K key, V value) {
+            this.map.put(key, value);
+        }
+
+        @Override
+        public Set<K> keySet() {
+            return this.map.keySet();
+        }
+
+        @Override
+        public V remove(K key) {
+            return this.map.remove(key);
+        }
+
+        @Override
+        public V remove(K key, V value) {
+            return this.map.remove(key, value) ? value : null;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return this.map.keySet().iterator();
+        }
+    }
+}
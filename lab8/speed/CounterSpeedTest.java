@@ -0,0 +1,130 @@
+package speed;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import hashmap.ConcurrentCounterMap;
+import hashmap.LockFreeMyHashMap;
+import hashmap.MyHashMap;
+
+/**
+ * Measures how fast several threads can count tokens. A pool of N random
+ * strings of length L is drawn from by every thread, with a skew that makes
+ * a few tokens hot, as in word counts. Thread counts are swept from 1 up to
+ * a maximum. Counting with a locked MyHashMap, LockFreeMyHashMap.merge(),
+ * ConcurrentCounterMap in both modes, and a ConcurrentHashMap of LongAdders
+ * as the baseline are compared.
+ */
+public class CounterSpeedTest {
+
+    /**
+     * Requests user input and runs the throughput sweep. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program measures concurrent token counting"
+                + " on random Strings of length L.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # distinct tokens: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+            System.out.print("Enter # tokens counted per thread: ");
+            int ops = InsertRandomSpeedTest.waitForPositiveInt(input);
+            System.out.print("Enter maximum # threads: ");
+            int maxThreads = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+            String[] tokens = new String[N];
+            for (int i = 0; i < N; i++) {
+                tokens[i] = StringUtils.randomString(L);
+            }
+
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                System.out.println("\n-- " + threads + " threads --");
+                timeCounting("MyHashMap, locked", () -> {
+                    MyHashMap<String, Integer> map = new MyHashMap<>();
+                    return token -> {
+                        synchronized (map) {
+                            map.merge(token, 1, Integer::sum);
+                        }
+                    };
+                }, tokens, threads, ops);
+                timeCounting("LockFreeMyHashMap.merge", () -> {
+                    LockFreeMyHashMap<String, Integer> map = new LockFreeMyHashMap<>();
+                    return token -> map.merge(token, 1, Integer::sum);
+                }, tokens, threads, ops);
+                timeCounting("ConcurrentCounterMap", () -> {
+                    ConcurrentCounterMap<String> counts = new ConcurrentCounterMap<>();
+                    return counts::increment;
+                }, tokens, threads, ops);
+                timeCounting("ConcurrentCounterMap, approximate", () -> {
+                    ConcurrentCounterMap<String> counts =
+                            ConcurrentCounterMap.approximate(0.0001, 0.01, 1000);
+                    return counts::increment;
+                }, tokens, threads, ops);
+                timeCounting("ConcurrentHashMap<LongAdder>", () -> {
+                    ConcurrentHashMap<String, LongAdder> map = new ConcurrentHashMap<>();
+                    return token -> map.computeIfAbsent(token, t -> new LongAdder()).increment();
+                }, tokens, threads, ops);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Returns the throughput, in tokens per second, of THREADS threads each
+     * passing OPS tokens to COUNTER. Token i is picked with a chance that
+     * falls off like 1 / sqrt(i), so the first few tokens are hot.
+     */
+    public static double throughput(Consumer<String> counter, String[] tokens, int threads,
+                                    int ops) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final long seed = t;
+            Thread worker = new Thread(() -> {
+                Random r = new Random(seed);
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < ops; i++) {
+                    double u = r.nextDouble();
+                    counter.accept(tokens[(int) (u * u * tokens.length)]);
+                }
+                done.countDown();
+            });
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        return (double) threads * ops / seconds;
+    }
+
+    /**
+     * Runs throughput() on a fresh counter from COUNTERS and prints the
+     * result in millions of tokens per second.
+     */
+    public static void timeCounting(String name, Supplier<Consumer<String>> counters,
+                                    String[] tokens, int threads, int ops)
+            throws InterruptedException {
+        double tokensPerSec = throughput(counters.get(), tokens, threads, ops);
+        System.out.printf("%s: %.2f Mtokens/sec\n", name, tokensPerSec / 1e6);
+    }
+}
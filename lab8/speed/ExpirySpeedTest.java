@@ -0,0 +1,101 @@
+package speed;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Scanner;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import hashmap.ExpiringMap;
+import hashmap.MyHashMap;
+
+/**
+ * Times expiring entries with ExpiringMap's timing wheel against scanning a
+ * MyHashMap of deadlines. N random strings of length L are put with ttls of
+ * up to a minute on a simulated clock, which then moves forward a
+ * millisecond at a time while new strings keep arriving, one per
+ * millisecond. The scan looks at every entry once every SCAN_PERIOD
+ * milliseconds, so it also lets entries live up to that much too long.
+ */
+public class ExpirySpeedTest {
+    /** Milliseconds between two scans of the MyHashMap. */
+    private static final int SCAN_PERIOD = 100;
+    /** Simulated milliseconds each run lasts. */
+    private static final int DURATION = 60_000;
+    /** The longest ttl, in milliseconds. */
+    private static final int MAX_TTL = 60_000;
+
+    /**
+     * Requests user input and runs both expiry schemes. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program expires random Strings of length L from a map"
+                + "\n over a simulated minute.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to start with: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+            String[] keys = new String[N + DURATION];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = StringUtils.randomString(L);
+            }
+
+            timeWheel(keys, N);
+            timeScan(keys, N);
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    private static void timeWheel(String[] keys, int N) {
+        long[] now = {0};
+        ExpiringMap<String, Integer> map = new ExpiringMap<>(1, () -> now[0]);
+        Random r = new Random(61);
+
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < N; i++) {
+            map.put(keys[i], i, 1 + r.nextInt(MAX_TTL));
+        }
+        for (int t = 0; t < DURATION; t++) {
+            now[0] += 1;
+            map.put(keys[N + t], t, 1 + r.nextInt(MAX_TTL));
+            map.size();
+        }
+        System.out.printf("hashmap.ExpiringMap: %.2f sec, %d expired, %d left\n",
+                sw.elapsedTime(), map.expirations(), map.size());
+    }
+
+    private static void timeScan(String[] keys, int N) {
+        MyHashMap<String, Long> deadlines = new MyHashMap<>();
+        Random r = new Random(61);
+        long expired = 0;
+
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < N; i++) {
+            deadlines.put(keys[i], (long) 1 + r.nextInt(MAX_TTL));
+        }
+        for (int t = 0; t < DURATION; t++) {
+            long now = t + 1;
+            deadlines.put(keys[N + t], now + 1 + r.nextInt(MAX_TTL));
+            if (now % SCAN_PERIOD == 0) {
+                Iterator<String> iter = deadlines.iterator();
+                while (iter.hasNext()) {
+                    if (deadlines.get(iter.next()) <= now) {
+                        iter.remove();
+                        expired += 1;
+                    }
+                }
+            }
+        }
+        System.out.printf("hashmap.MyHashMap, scanned every %d ms: %.2f sec, %d expired, %d left\n",
+                SCAN_PERIOD, sw.elapsedTime(), expired, deadlines.size());
+    }
+}
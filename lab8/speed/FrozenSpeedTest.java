@@ -0,0 +1,155 @@
+package speed;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+
+import hashmap.FrozenHashMap;
+import hashmap.Map61B;
+import hashmap.MyHashMap;
+
+/**
+ * Compares lookups in a MyHashMap with lookups in its frozen, perfect-hash
+ * copy from MyHashMap.freeze(). The map is filled with N random strings of
+ * length L, frozen with 1, 2, 4, ... fork-join workers up to the number of
+ * cores, and then every key, and as many missing keys, are looked up in
+ * both maps in random order. Java's HashMap is run the same way as a baseline.
+ */
+public class FrozenSpeedTest {
+    /** Untimed runs before each measurement, to let the JIT warm up. */
+    private static final int WARMUP_RUNS = 3;
+
+    /** Timed runs per measurement; the best one is reported. */
+    private static final int TIMED_RUNS = 5;
+
+    /**
+     * Requests user input and runs the lookup comparison. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException,
+            ExecutionException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program looks up random Strings of length L\n"
+                + " in a MyHashMap and in its frozen copy.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into the maps: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+            MyHashMap<String, Integer> map = new MyHashMap<>();
+            HashMap<String, Integer> hashMap = new HashMap<>();
+            String[] hits = new String[N];
+            String[] misses = new String[N];
+            for (int i = 0; i < N; i++) {
+                hits[i] = StringUtils.randomString(L);
+                // one character longer, so never in the maps
+                misses[i] = StringUtils.randomString(L + 1);
+                map.put(hits[i], i);
+                hashMap.put(hits[i], i);
+            }
+            // look the keys up out of insertion order, or the nodes of the
+            // chained maps are visited in the order they were allocated
+            Collections.shuffle(Arrays.asList(hits), new Random(61));
+
+            int cores = Runtime.getRuntime().availableProcessors();
+            System.out.println(cores + " cores available");
+            for (int workers = 1; workers <= cores; workers *= 2) {
+                double freeze = bestInPool(workers, () -> map.freeze().size());
+                System.out.printf("freeze(), %d workers: %.3f sec\n", workers, freeze);
+            }
+
+            FrozenHashMap<String, Integer> frozen = map.freeze();
+            System.out.printf("perfect hash: %.2f bits per key\n", frozen.bitsPerKey());
+            timeLookups("hashmap.MyHashMap", map, hits, misses);
+            timeLookups("hashmap.FrozenHashMap", frozen, hits, misses);
+
+            double javaHits = bestOf(() -> lookUp(hashMap, hits));
+            double javaMisses = bestOf(() -> lookUp(hashMap, misses));
+            System.out.printf("Java's HashMap: hits %.1f ns, misses %.1f ns per get\n",
+                    javaHits * 1e9 / N, javaMisses * 1e9 / N);
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /** Prints the time per get() of looking up hits and misses in map. */
+    private static void timeLookups(String name, Map61B<String, Integer> map,
+                                    String[] hits, String[] misses)
+            throws InterruptedException, ExecutionException {
+        double hitTime = bestOf(() -> lookUp(map, hits));
+        double missTime = bestOf(() -> lookUp(map, misses));
+        System.out.printf("%s: hits %.1f ns, misses %.1f ns per get\n",
+                name, hitTime * 1e9 / hits.length, missTime * 1e9 / misses.length);
+    }
+
+    private static long lookUp(Map61B<String, Integer> map, String[] keys) {
+        long found = 0;
+        for (String key : keys) {
+            if (map.get(key) != null) {
+                found += 1;
+            }
+        }
+        return found;
+    }
+
+    private static long lookUp(HashMap<String, Integer> map, String[] keys) {
+        long found = 0;
+        for (String key : keys) {
+            if (map.get(key) != null) {
+                found += 1;
+            }
+        }
+        return found;
+    }
+
+    /** A measurement to time. */
+    private interface Run {
+        long run() throws InterruptedException, ExecutionException;
+    }
+
+    /**
+     * Returns the best time, in seconds, of TIMED_RUNS runs of run
+     * after WARMUP_RUNS untimed ones.
+     */
+    private static double bestOf(Run run) throws InterruptedException, ExecutionException {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            sink += run.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            long start = System.nanoTime();
+            sink += run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (sink == 42) {
+            // keeps the JIT from dropping the runs
+            System.out.print("");
+        }
+        return best / 1e9;
+    }
+
+    /**
+     * Like bestOf(), but runs inside a fork-join pool of workers threads, so
+     * the parallel streams of freeze() use exactly that many.
+     */
+    private static double bestInPool(int workers, Run run)
+            throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            return bestOf(() -> pool.submit(run::run).get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
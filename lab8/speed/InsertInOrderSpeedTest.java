@@ -8,6 +8,7 @@ import edu.princeton.cs.algs4.Stopwatch;
 import hashmap.Map61B;
 import hashmap.ULLMap;
 import hashmap.MyHashMap;
+import hashmap.HashStrategy;
 
 /**
  * Performs a timing test on three different set implementations.
@@ -40,6 +41,13 @@ public class InsertInOrderSpeedTest {
             timeInOrderMap61B(new MyHashMap<String, Integer>(),
                     i.waitForPositiveInt(input));
 
+            System.out.print("\nEnter # strings to insert into hashmap.MyHashMap"
+                    + " with each HashStrategy: ");
+            int strategyN = i.waitForPositiveInt(input);
+            timeInOrderHashStrategy(HashStrategy.MODULO, strategyN);
+            timeInOrderHashStrategy(HashStrategy.MURMUR3, strategyN);
+            timeInOrderHashStrategy(HashStrategy.FIBONACCI, strategyN);
+
             System.out.print("\nEnter # strings to insert into Java's HashMap: ");
             timeInOrderHashMap(new HashMap<String, Integer>(),
                     i.waitForPositiveInt(input));
@@ -93,6 +101,24 @@ public class InsertInOrderSpeedTest {
         }
     }
 
+    /**
+     * Attempts to insert N in-order strings into a MyHashMap using strategy,
+     * Prints time of the N insert calls and the bucket statistics, otherwise
+     * Prints a nice message about the error
+     */
+    public static void timeInOrderHashStrategy(HashStrategy strategy, int N) {
+        try {
+            MyHashMap<String, Integer> map = new MyHashMap<>(16, 0.75, strategy);
+            double mapTime = insertInOrder(map, N);
+            System.out.printf(map.getClass() + " with " + strategy + ": %.2f sec\n", mapTime);
+            System.out.println("  " + map.stats());
+        } catch (StackOverflowError e) {
+            printInfoOnStackOverflow(N);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Attempts to insert N in-order strings of length L into HashMap,
      * Prints time of the N insert calls, otherwise
@@ -2,12 +2,17 @@ package speed;
 
 import java.util.HashMap;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Scanner;
 import edu.princeton.cs.algs4.Stopwatch;
 
 import hashmap.Map61B;
 import hashmap.ULLMap;
+import hashmap.MappedHashMap;
+import hashmap.MetricsRecorder;
 import hashmap.MyHashMap;
+import hashmap.ObjectIntMap;
 
 /** Performs a timing test on three different set implementations.
  *  @author Josh Hug
@@ -39,6 +44,23 @@ public class InsertRandomSpeedTest {
             timeRandomMap61B(new MyHashMap<String, Integer>(),
                     waitForPositiveInt(input), L);
 
+            System.out.print("\nEnter # strings for the per-put latency test of hashmap.MyHashMap: ");
+            int latencyN = waitForPositiveInt(input);
+            latencyRandomMap61B(new MyHashMap<String, Integer>(),
+                    latencyN, L, "full resize");
+            latencyRandomMap61B(new MyHashMap<String, Integer>(16, 0.75, true),
+                    latencyN, L, "incremental resize");
+            metricsRandomMyHashMap(new MyHashMap<String, Integer>(), latencyN, L);
+            metricsRandomMyHashMap(new MyHashMap<String, Integer>(16, 0.75, true),
+                    latencyN, L);
+
+            System.out.print("\nEnter # strings to insert into hashmap.ObjectIntMap: ");
+            timeRandomObjectIntMap(new ObjectIntMap<String>(),
+                    waitForPositiveInt(input), L);
+
+            System.out.print("\nEnter # strings to insert into hashmap.MappedHashMap: ");
+            timeRandomMappedHashMap(waitForPositiveInt(input), L);
+
             System.out.print("\nEnter # strings to insert into Java's HashMap: ");
             timeRandomHashMap(new HashMap<String, Integer>(),
                     waitForPositiveInt(input), L);
@@ -77,6 +99,36 @@ public class InsertRandomSpeedTest {
         return sw.elapsedTime();
     }
 
+    /**
+     * Puts N random strings of length L into map61B, timing every put
+     * individually, and returns the recorded latencies.
+     */
+    public static LatencyRecorder insertRandomLatency(Map61B<String, Integer> map61B, int N, int L) {
+        LatencyRecorder latencies = new LatencyRecorder(N);
+        for (int i = 0; i < N; i++) {
+            String s = StringUtils.randomString(L);
+            Integer v = i;
+            long start = System.nanoTime();
+            map61B.put(s, v);
+            latencies.record(System.nanoTime() - start);
+        }
+        return latencies;
+    }
+
+    /**
+     * Returns time needed to put N random strings of length L into the
+     * unboxed hashmap.ObjectIntMap map.
+     */
+    public static double insertRandom(ObjectIntMap<String> map, int N, int L) {
+        Stopwatch sw = new Stopwatch();
+        String s = "cat";
+        for (int i = 0; i < N; i++) {
+            s = StringUtils.randomString(L);
+            map.putInt(s, i);
+        }
+        return sw.elapsedTime();
+    }
+
     /**
      * Attempts to insert N random strings of length L into map,
      * Prints time of the N insert calls, otherwise
@@ -93,6 +145,95 @@ public class InsertRandomSpeedTest {
         }
     }
 
+    /**
+     * Attempts to insert N random strings of length L into map,
+     * Prints the p50/p99/max latency of a single put under LABEL, otherwise
+     * Prints a nice message about the error
+     */
+    public static void latencyRandomMap61B(Map61B<String, Integer> map, int N, int L,
+                                           String label) {
+        try {
+            LatencyRecorder latencies = insertRandomLatency(map, N, L);
+            System.out.println(map.getClass() + " (" + label + ") put latency: "
+                    + latencies.summary());
+        } catch (StackOverflowError e) {
+            printInfoOnStackOverflow(N, L);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Attempts to insert N random strings of length L into map and get each
+     * of them back with a MetricsRecorder attached,
+     * Prints the recorded probe histograms and resizes, otherwise
+     * Prints a nice message about the error
+     */
+    public static void metricsRandomMyHashMap(MyHashMap<String, Integer> map, int N, int L) {
+        try {
+            MetricsRecorder metrics = new MetricsRecorder();
+            map.setMetrics(metrics);
+            String[] keys = new String[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+                map.put(keys[i], i);
+            }
+            for (String key : keys) {
+                map.get(key);
+            }
+            System.out.println(map.getClass() + " metrics:\n" + metrics);
+        } catch (StackOverflowError e) {
+            printInfoOnStackOverflow(N, L);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Attempts to insert N random strings of length L into an ObjectIntMap,
+     * Prints time of the N insert calls, otherwise
+     * Prints a nice message about the error
+     */
+    public static void timeRandomObjectIntMap(ObjectIntMap<String> map, int N, int L) {
+        try {
+            double mapTime = insertRandom(map, N, L);
+            System.out.printf(map.getClass() + ": %.2f sec\n", mapTime);
+        } catch (StackOverflowError e) {
+            printInfoOnStackOverflow(N, L);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Attempts to insert N random strings of length L into a MappedHashMap
+     * backed by a temporary file, then closes it and reopens it.
+     * Prints time of the N insert calls and of the reopen, otherwise
+     * Prints a nice message about the error
+     */
+    public static void timeRandomMappedHashMap(int N, int L) throws IOException {
+        Path file = Files.createTempFile("mapped", ".map");
+        Files.delete(file);
+        try {
+            MappedHashMap map = new MappedHashMap(file);
+            double mapTime = insertRandom(map, N, L);
+            map.close();
+            System.out.printf(map.getClass() + ": %.2f sec\n", mapTime);
+
+            Stopwatch sw = new Stopwatch();
+            map = new MappedHashMap(file);
+            int size = map.size();
+            double reopenTime = sw.elapsedTime();
+            map.close();
+            System.out.printf(map.getClass() + " reopen with %d entries: %.4f sec\n",
+                    size, reopenTime);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
     /**
      * Attempts to insert N random strings of length L into a HashMap
      * Prints time of the N insert calls, otherwise
@@ -0,0 +1,78 @@
+package speed;
+
+import java.io.IOException;
+import java.util.Scanner;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import hashmap.LinkedMyHashMap;
+import hashmap.MyHashMap;
+
+/**
+ * Times iterating over a map that grew to N random strings of length L and
+ * then had all but K of them removed, as a periodic export over a long-lived
+ * map would. MyHashMap walks all of its buckets, LinkedMyHashMap only its
+ * entries.
+ */
+public class IterateSpeedTest {
+    /** How many times the remaining keys are iterated over. */
+    private static final int PASSES = 100;
+
+    /**
+     * Requests user input and runs the iterations. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program iterates over a map of random Strings of length L"
+                + "\n that grew to N keys and shrank back to K.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into each map: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+            System.out.print("Enter # strings to keep: ");
+            int K = Math.min(N, InsertRandomSpeedTest.waitForPositiveInt(input));
+
+            String[] keys = new String[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+            }
+
+            timeIteration(new MyHashMap<>(), keys, K);
+            timeIteration(new LinkedMyHashMap<>(), keys, K);
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Puts all keys into map, removes all but the first K, then prints the
+     * time of PASSES iterations over what is left.
+     */
+    public static void timeIteration(MyHashMap<String, Integer> map, String[] keys, int K) {
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        for (int i = K; i < keys.length; i++) {
+            map.remove(keys[i]);
+        }
+
+        Stopwatch sw = new Stopwatch();
+        long total = 0;
+        for (int pass = 0; pass < PASSES; pass++) {
+            for (String key : map) {
+                total += key.length();
+            }
+        }
+        double time = sw.elapsedTime();
+        System.out.printf(map.getClass() + ": %.2f ms per pass over %d keys\n",
+                time * 1000 / PASSES, map.size());
+        if (total != (long) PASSES * map.size() * keys[0].length()) {
+            System.out.println("--wrong number of keys");
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package speed;
+
+import java.util.Arrays;
+
+/**
+ * Collects per-operation latencies in nanoseconds and reports percentiles.
+ * Latencies are kept in a growable long[] so recording does not box.
+ */
+public class LatencyRecorder {
+    private long[] samples;
+    private int count;
+
+    public LatencyRecorder(int expectedSamples) {
+        this.samples = new long[Math.max(expectedSamples, 16)];
+        this.count = 0;
+    }
+
+    /** Records one operation that took NANOS nanoseconds. */
+    public void record(long nanos) {
+        if (this.count == this.samples.length) {
+            this.samples = Arrays.copyOf(this.samples, this.count * 2);
+        }
+        this.samples[this.count++] = nanos;
+    }
+
+    /** Returns the latency below which fraction P of the samples fall. */
+    public long percentile(double p) {
+        if (this.count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(this.samples, this.count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(p * this.count) - 1;
+        return sorted[Math.max(0, Math.min(index, this.count - 1))];
+    }
+
+    /** Returns the largest recorded latency. */
+    public long max() {
+        long max = 0;
+        for (int i = 0; i < this.count; i++) {
+            max = Math.max(max, this.samples[i]);
+        }
+        return max;
+    }
+
+    /** Returns a one-line summary of p50, p99, p99.9 and max in microseconds. */
+    public String summary() {
+        return String.format("p50 %.2f us, p99 %.2f us, p99.9 %.2f us, max %.2f us",
+                this.percentile(0.50) / 1000.0, this.percentile(0.99) / 1000.0,
+                this.percentile(0.999) / 1000.0, this.max() / 1000.0);
+    }
+}
@@ -0,0 +1,135 @@
+package speed;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.ToLongFunction;
+
+import hashmap.MyHashMap;
+
+/**
+ * Measures how a read-only reduction over every entry of a MyHashMap scales
+ * with parallel streams. The map is filled with N random strings of length
+ * L, then the same reduction is run on a sequential stream and on parallel
+ * streams in fork-join pools of 1, 2, 4, ... workers up to the number of
+ * cores. Java's HashMap is run the same way as a baseline.
+ */
+public class ParallelStreamSpeedTest {
+    /** Untimed runs before each measurement, to let the JIT warm up. */
+    private static final int WARMUP_RUNS = 3;
+
+    /** Timed runs per measurement; the best one is reported. */
+    private static final int TIMED_RUNS = 5;
+
+    /**
+     * A deliberately CPU-bound per-entry computation, so the reduction is
+     * limited by work rather than by memory bandwidth.
+     */
+    private static final ToLongFunction<Map.Entry<String, Integer>> WORK = e -> {
+        long h = e.getValue();
+        String key = e.getKey();
+        for (int i = 0; i < key.length(); i++) {
+            h = h * 31 + key.charAt(i);
+            h ^= h >>> 17;
+        }
+        return h & 0xFF;
+    };
+
+    /**
+     * Requests user input and runs the scaling measurement. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException,
+            ExecutionException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program sums a function of every entry of a map"
+                + " of random Strings of length L\n with sequential and parallel streams.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into the maps: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+            MyHashMap<String, Integer> map = new MyHashMap<>();
+            HashMap<String, Integer> hashMap = new HashMap<>();
+            for (int i = 0; i < N; i++) {
+                String s = StringUtils.randomString(L);
+                map.put(s, i);
+                hashMap.put(s, i);
+            }
+
+            int cores = Runtime.getRuntime().availableProcessors();
+            System.out.println(cores + " cores available");
+
+            double sequential = bestOf(() -> map.entryStream().mapToLong(WORK).sum());
+            System.out.printf("hashmap.MyHashMap sequential: %.3f sec\n", sequential);
+            for (int workers = 1; workers <= cores; workers *= 2) {
+                double parallel = bestInPool(workers,
+                    () -> map.parallelEntryStream().mapToLong(WORK).sum());
+                System.out.printf("hashmap.MyHashMap parallel, %d workers: %.3f sec (%.2fx)\n",
+                        workers, parallel, sequential / parallel);
+            }
+
+            double javaSequential = bestOf(() -> hashMap.entrySet().stream()
+                    .mapToLong(WORK).sum());
+            System.out.printf("Java's HashMap sequential: %.3f sec\n", javaSequential);
+            for (int workers = 1; workers <= cores; workers *= 2) {
+                double parallel = bestInPool(workers, () -> hashMap.entrySet().parallelStream()
+                        .mapToLong(WORK).sum());
+                System.out.printf("Java's HashMap parallel, %d workers: %.3f sec (%.2fx)\n",
+                        workers, parallel, javaSequential / parallel);
+            }
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /** A reduction to time. */
+    private interface Reduction {
+        long run() throws InterruptedException, ExecutionException;
+    }
+
+    /**
+     * Returns the best time, in seconds, of TIMED_RUNS runs of reduction
+     * after WARMUP_RUNS untimed ones.
+     */
+    private static double bestOf(Reduction reduction) throws InterruptedException,
+            ExecutionException {
+        long sink = 0;
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            sink += reduction.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < TIMED_RUNS; i++) {
+            long start = System.nanoTime();
+            sink += reduction.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        if (sink == 42) {
+            // keeps the JIT from dropping the reductions
+            System.out.print("");
+        }
+        return best / 1e9;
+    }
+
+    /**
+     * Like bestOf(), but runs reduction inside a fork-join pool of workers
+     * threads, so its parallel stream uses exactly that many.
+     */
+    private static double bestInPool(int workers, Reduction reduction)
+            throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            return bestOf(() -> pool.submit(reduction::run).get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package speed;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import hashmap.MyHashMap;
+import hashmap.PersistentHashMap;
+
+/**
+ * Compares keeping many versions of a map as PersistentHashMaps with keeping
+ * them as copies of a MyHashMap. A map of N random strings of length L is
+ * built, then V versions are made that each change one key of the one
+ * before, and all V are kept alive (at most COPY_BUDGET / N for the
+ * copies). Prints the time and the heap used per version, and the time to
+ * build the first map with plus(), with a Builder and with MyHashMap.put().
+ */
+public class PersistentSpeedTest {
+    /**
+     * The most entries all the kept copies of MyHashMap may hold together;
+     * fewer copies than versions are made if N * V is larger.
+     */
+    private static final long COPY_BUDGET = 5_000_000;
+
+    /**
+     * Requests user input and runs the comparison. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program keeps many versions of a map of random"
+                + " Strings of length L.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings in the first version: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+            System.out.print("Enter # versions to keep: ");
+            int V = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+            String[] keys = new String[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+            }
+
+            Stopwatch sw = new Stopwatch();
+            PersistentHashMap<String, Integer> persistent = PersistentHashMap.empty();
+            for (int i = 0; i < N; i++) {
+                persistent = persistent.plus(keys[i], i);
+            }
+            System.out.printf("hashmap.PersistentHashMap plus(): %.2f sec\n", sw.elapsedTime());
+
+            sw = new Stopwatch();
+            PersistentHashMap.Builder<String, Integer> builder = PersistentHashMap.builder();
+            for (int i = 0; i < N; i++) {
+                builder.put(keys[i], i);
+            }
+            persistent = builder.build();
+            System.out.printf("hashmap.PersistentHashMap Builder: %.2f sec\n", sw.elapsedTime());
+
+            sw = new Stopwatch();
+            MyHashMap<String, Integer> map = new MyHashMap<>();
+            for (int i = 0; i < N; i++) {
+                map.put(keys[i], i);
+            }
+            System.out.printf("hashmap.MyHashMap put(): %.2f sec\n", sw.elapsedTime());
+
+            timePersistentVersions(persistent, keys, V);
+            timeCopiedVersions(map, keys, V);
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /** Makes and keeps V versions of first with plus(), and prints their cost. */
+    private static void timePersistentVersions(PersistentHashMap<String, Integer> first,
+                                               String[] keys, int V) {
+        List<PersistentHashMap<String, Integer>> versions = new ArrayList<>(V);
+        long before = usedHeap();
+        Stopwatch sw = new Stopwatch();
+        PersistentHashMap<String, Integer> map = first;
+        for (int v = 0; v < V; v++) {
+            map = map.plus(keys[v % keys.length], -v);
+            versions.add(map);
+        }
+        double time = sw.elapsedTime();
+        long bytes = usedHeap() - before;
+        System.out.printf("hashmap.PersistentHashMap: %.2f us and %d bytes per version\n",
+                time * 1e6 / V, bytes / V);
+        if (versions.get(V - 1).size() != keys.length) {
+            System.out.println("--wrong size");
+        }
+    }
+
+    /** Makes and keeps V copies of first, each with one key changed, and prints their cost. */
+    private static void timeCopiedVersions(MyHashMap<String, Integer> first, String[] keys, int V) {
+        V = (int) Math.max(1, Math.min(V, COPY_BUDGET / keys.length));
+        List<MyHashMap<String, Integer>> versions = new ArrayList<>(V);
+        long before = usedHeap();
+        Stopwatch sw = new Stopwatch();
+        MyHashMap<String, Integer> map = first;
+        for (int v = 0; v < V; v++) {
+            MyHashMap<String, Integer> copy = new MyHashMap<>();
+            map.forEach(copy::put);
+            copy.put(keys[v % keys.length], -v);
+            versions.add(copy);
+            map = copy;
+        }
+        double time = sw.elapsedTime();
+        long bytes = usedHeap() - before;
+        System.out.printf("hashmap.MyHashMap copies: %.2f us and %d bytes per version (%d kept)\n",
+                time * 1e6 / V, bytes / V, V);
+        if (versions.get(V - 1).size() != keys.length) {
+            System.out.println("--wrong size");
+        }
+    }
+
+    /** Returns the bytes of heap in use after a garbage collection. */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
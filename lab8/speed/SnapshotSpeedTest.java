@@ -0,0 +1,94 @@
+package speed;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Scanner;
+import edu.princeton.cs.algs4.Stopwatch;
+
+import hashmap.Codec;
+import hashmap.LinkedMyHashMap;
+import hashmap.MyHashMap;
+
+/**
+ * Compares restoring a map of N random strings of length L from a
+ * MyHashMap.writeTo() snapshot with rebuilding it by replaying N puts. The
+ * replay puts keys that are already in memory, so it does not pay for
+ * reading them from anywhere; the restore reads and decodes its snapshot
+ * from a temporary file, usually from the OS page cache.
+ */
+public class SnapshotSpeedTest {
+
+    /**
+     * Requests user input and runs the comparison. ARGS is unused.
+     */
+    public static void main(String[] args) throws IOException {
+        Scanner input = new Scanner(System.in);
+
+        System.out.println("\n This program saves and restores a map of random Strings"
+                + " of length L.\n");
+        System.out.print("What would you like L to be?: ");
+        int L = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+        String repeat = "y";
+        do {
+            System.out.print("\nEnter # strings to insert into each map: ");
+            int N = InsertRandomSpeedTest.waitForPositiveInt(input);
+
+            String[] keys = new String[N];
+            for (int i = 0; i < N; i++) {
+                keys[i] = StringUtils.randomString(L);
+            }
+
+            timeSnapshot(new MyHashMap<>(), new MyHashMap<>(), keys);
+            timeSnapshot(new LinkedMyHashMap<>(), new LinkedMyHashMap<>(), keys);
+
+            System.out.print("\nWould you like to try more timed-tests? (y/n)");
+            repeat = input.nextLine();
+        } while (!repeat.equalsIgnoreCase("n") && !repeat.equalsIgnoreCase("no"));
+        input.close();
+    }
+
+    /**
+     * Replays a put of every key into map, saves it, and restores the
+     * snapshot into restored, printing the time of each step.
+     */
+    public static void timeSnapshot(MyHashMap<String, Integer> map,
+                                    MyHashMap<String, Integer> restored, String[] keys)
+            throws IOException {
+        Stopwatch sw = new Stopwatch();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], i);
+        }
+        double replayTime = sw.elapsedTime();
+
+        Path file = Files.createTempFile("snapshot", ".bin");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            sw = new Stopwatch();
+            map.writeTo(channel, Codec.STRING, Codec.INTEGER);
+            double writeTime = sw.elapsedTime();
+            long bytes = channel.size();
+            int size = map.size();
+            map.clear();
+
+            channel.position(0);
+            sw = new Stopwatch();
+            restored.readFrom(channel, Codec.STRING, Codec.INTEGER);
+            double readTime = sw.elapsedTime();
+
+            System.out.printf("%s: replaying puts %.2f sec, writeTo %.2f sec (%d MB),"
+                            + " readFrom %.2f sec (%.1fx faster)\n",
+                    map.getClass().getSimpleName(), replayTime, writeTime, bytes >> 20,
+                    readTime, replayTime / readTime);
+            if (restored.size() != size) {
+                System.out.println("--restored " + restored.size() + " of " + size + " entries");
+            }
+        } finally {
+            restored.clear();
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -27,6 +27,19 @@ public class StringUtils {
         return new String(someChars);
     }
 
+    /**
+     * Returns a random string made of BLOCKS two-character blocks, each
+     * either "Aa" or "BB". Those two blocks have the same hash code, so every
+     * string with the same number of blocks has the same hash code too.
+     */
+    public static String collidingString(int blocks) {
+        StringBuilder sb = new StringBuilder(blocks * 2);
+        for (int i = 0; i < blocks; i++) {
+            sb.append(r.nextBoolean() ? "Aa" : "BB");
+        }
+        return sb.toString();
+    }
+
     /**
      * Returns true if string S consists of characters between
      * 'a' and 'z' only. No spaces, numbers, upper-case, or any other